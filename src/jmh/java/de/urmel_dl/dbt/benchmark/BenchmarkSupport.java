@@ -0,0 +1,92 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.mycore.common.config.MCRConfigurationBase;
+import org.mycore.common.config.MCRConfigurationLoader;
+import org.mycore.common.config.MCRConfigurationLoaderFactory;
+
+/**
+ * Initializes the MyCoRe configuration for the benchmarks the same way the test cases do and gives access to the
+ * fixtures in <code>src/test/resources</code>.
+ *
+ * @author René Adler (eagle)
+ */
+public final class BenchmarkSupport {
+
+    private static boolean initialized;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Initializes the configuration once per JVM with the test properties and a temporary data directory.
+     */
+    public static synchronized void initialize() {
+        if (initialized) {
+            return;
+        }
+
+        try {
+            Path baseDir = Files.createTempDirectory("dbt-benchmark");
+            String appName = Paths.get(System.getProperty("user.dir")).getFileName().toString();
+
+            System.setProperty("MCR.Home", baseDir.toString());
+            System.setProperty("MCR.AppName", appName);
+            System.setProperty("MCRRuntimeComponentDetector.underTesting", appName);
+            Files.createDirectories(baseDir.resolve(appName));
+
+            MCRConfigurationLoader configurationLoader = MCRConfigurationLoaderFactory.getConfigurationLoader();
+            HashMap<String, String> properties = new HashMap<>(configurationLoader.load());
+            properties.put("MCR.datadir", Files.createDirectories(baseDir.resolve("data")).toString());
+            MCRConfigurationBase.initialize(Collections.emptyMap(), properties, true);
+
+            initialized = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a fixture from the class path.
+     *
+     * @param name the resource name, relative to the class path root
+     * @param charset the charset of the fixture
+     * @return the fixture content
+     */
+    public static String fixture(String name, Charset charset) {
+        try (InputStream is = BenchmarkSupport.class.getClassLoader().getResourceAsStream(name)) {
+            if (is == null) {
+                throw new IllegalArgumentException("Fixture " + name + " not found.");
+            }
+            return new String(is.readAllBytes(), charset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.opc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.urmel_dl.dbt.benchmark.BenchmarkSupport;
+import de.urmel_dl.dbt.opc.datamodel.pica.PPField;
+
+/**
+ * Benchmarks the PICA+ parsing of {@link OPCConnector#getPPFields(String)} on a captured record.
+ *
+ * @author René Adler (eagle)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OPCConnectorBenchmark {
+
+    /**
+     * The record is read like {@link OPCConnector} reads it from the catalog, as ISO-8859-1.
+     */
+    private static final String PICA_PLUS_FIXTURE = "benchmark/picaplus_1012341062.pp";
+
+    private String ppraw;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.initialize();
+
+        ppraw = BenchmarkSupport.fixture(PICA_PLUS_FIXTURE, StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public List<PPField> parsePPFields() {
+        return OPCConnector.parsePPFields(ppraw);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.opc.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.urmel_dl.dbt.benchmark.BenchmarkSupport;
+
+/**
+ * Benchmarks {@link PicaCharDecoder#decode(String)} on the subfield contents of a captured PICA+ record.
+ *
+ * @author René Adler (eagle)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PicaCharDecoderBenchmark {
+
+    private String[] subfields;
+
+    private String encoded;
+
+    private String plain;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.initialize();
+
+        String ppraw = BenchmarkSupport.fixture("benchmark/picaplus_1012341062.pp", StandardCharsets.ISO_8859_1);
+        Matcher matcher = Pattern.compile("\037([a-zA-Z0-9])([^\037\036]+)").matcher(ppraw);
+        subfields = matcher.results().map(r -> r.group(2)).toArray(String[]::new);
+
+        encoded = "Grundz\u00C3\u0093ge der Algebra / von Hans M\u00C3\u0093ller ; Karl Sch\u00C3\u0092nbrunn";
+        plain = "Springer-Lehrbuch ; Literaturverz. S. 309 - 312";
+    }
+
+    @Benchmark
+    public void decodeRecord(Blackhole bh) {
+        for (String subfield : subfields) {
+            bh.consume(PicaCharDecoder.decode(subfield));
+        }
+    }
+
+    @Benchmark
+    public String decodeEncoded() {
+        return PicaCharDecoder.decode(encoded);
+    }
+
+    @Benchmark
+    public String decodePlain() {
+        return PicaCharDecoder.decode(plain);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc.datamodel;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.urmel_dl.dbt.benchmark.BenchmarkSupport;
+
+/**
+ * Benchmarks {@link RCCalendar#getPeriodList(String, Date, boolean, int)} on the shipped <code>rccalendar.xml</code>.
+ *
+ * @author René Adler (eagle)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RCCalendarBenchmark {
+
+    @Param({ "0", "2700" })
+    public String areaCode;
+
+    @Param({ "1", "4" })
+    public int numNext;
+
+    private Date date;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ParseException {
+        BenchmarkSupport.initialize();
+
+        date = new SimpleDateFormat(TypedDate.SHORT_DATE_FORMAT, Locale.ROOT).parse("15.11.2022");
+        // loads the calendar once
+        RCCalendar.instance();
+    }
+
+    @Benchmark
+    public RCCalendar getPeriodList() {
+        return RCCalendar.getPeriodList(areaCode, date, true, numNext);
+    }
+
+    @Benchmark
+    public RCCalendar getPeriodListAll() {
+        return RCCalendar.getPeriodList(areaCode, date, false, numNext);
+    }
+}
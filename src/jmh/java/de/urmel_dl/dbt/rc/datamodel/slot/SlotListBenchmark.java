@@ -0,0 +1,92 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc.datamodel.slot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.mycore.datamodel.classifications2.MCRCategoryID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.urmel_dl.dbt.benchmark.BenchmarkSupport;
+
+/**
+ * Benchmarks the lookup of a {@link Slot} by its id in differently sized {@link SlotList}s.
+ *
+ * @author René Adler (eagle)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SlotListBenchmark {
+
+    private static final int SLOTS_PER_LOCATION = 5000;
+
+    private static final int NUM_LOOKUPS = 1024;
+
+    @Param({ "1000", "10000", "100000" })
+    public int numSlots;
+
+    private SlotList slotList;
+
+    private String[] slotIds;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.initialize();
+
+        slotList = new SlotList();
+        List<String> ids = new ArrayList<>(numSlots);
+        for (int i = 0; i < numSlots; i++) {
+            MCRCategoryID location = new MCRCategoryID(Slot.CLASSIF_ROOT_LOCATION,
+                String.format(Locale.ROOT, "%04d.01.01", 3400 + i / SLOTS_PER_LOCATION));
+            Slot slot = new Slot(location, i % SLOTS_PER_LOCATION + 1);
+            slotList.addSlot(slot);
+            ids.add(slot.getSlotId());
+        }
+
+        Collections.shuffle(ids, new Random(42));
+        slotIds = ids.subList(0, Math.min(NUM_LOOKUPS, ids.size())).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public Slot getSlotById() {
+        next = (next + 1) % slotIds.length;
+        return slotList.getSlotById(slotIds[next]);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.mycore.datamodel.metadata.MCRObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.urmel_dl.dbt.benchmark.BenchmarkSupport;
+import de.urmel_dl.dbt.rc.datamodel.slot.Slot;
+import de.urmel_dl.dbt.rc.persistency.SlotManager;
+import de.urmel_dl.dbt.utils.EntityFactory;
+
+/**
+ * Benchmarks the conversion between {@link Slot} and {@link MCRObject}.
+ * <p>
+ * The wrap benchmark uses a fixed object id, since {@link SlotWrapper#wrapSlot(Slot)} would allocate the next free id
+ * from the metadata store.
+ *
+ * @author René Adler (eagle)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SlotWrapperBenchmark {
+
+    private Slot slot;
+
+    private MCRObject object;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.initialize();
+
+        slot = new EntityFactory<>(Slot.class)
+            .fromXML(BenchmarkSupport.fixture("benchmark/slot.xml", StandardCharsets.UTF_8));
+        object = wrapSlot();
+    }
+
+    @Benchmark
+    public MCRObject wrapSlot() {
+        SlotWrapper wrapper = new SlotWrapper();
+        wrapper.setID(SlotManager.PROJECT_ID, 1);
+        wrapper.setSlot(slot);
+        return wrapper.getMCRObject();
+    }
+
+    @Benchmark
+    public Slot unwrapMCRObject() {
+        return SlotWrapper.unwrapMCRObject(object);
+    }
+}
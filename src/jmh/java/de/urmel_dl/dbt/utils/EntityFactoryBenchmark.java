@@ -0,0 +1,127 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.urmel_dl.dbt.benchmark.BenchmarkSupport;
+import de.urmel_dl.dbt.rc.datamodel.slot.Slot;
+import de.urmel_dl.dbt.rc.datamodel.slot.SlotList;
+
+/**
+ * Benchmarks the XML and JSON round trips of {@link Slot} and {@link SlotList} through {@link EntityFactory}.
+ *
+ * @author René Adler (eagle)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EntityFactoryBenchmark {
+
+    private static final String SLOT_FIXTURE = "benchmark/slot.xml";
+
+    @Param({ "10", "100" })
+    public int numSlots;
+
+    private Slot slot;
+
+    private String slotXML;
+
+    private String slotJSON;
+
+    private SlotList slotList;
+
+    private String slotListXML;
+
+    private String slotListJSON;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.initialize();
+
+        slotXML = BenchmarkSupport.fixture(SLOT_FIXTURE, StandardCharsets.UTF_8);
+        slot = new EntityFactory<>(Slot.class).fromXML(slotXML);
+        slotJSON = new EntityFactory<>(slot).toJSON();
+
+        slotList = new SlotList();
+        for (int id = 1; id <= numSlots; id++) {
+            Slot s = new EntityFactory<>(Slot.class).fromXML(slotXML);
+            s.setId(id);
+            slotList.addSlot(s);
+        }
+        slotListXML = new EntityFactory<>(slotList).toXML();
+        slotListJSON = new EntityFactory<>(slotList).toJSON();
+    }
+
+    @Benchmark
+    public String slotToXML() {
+        return new EntityFactory<>(slot).toXML();
+    }
+
+    @Benchmark
+    public Slot slotFromXML() {
+        return new EntityFactory<>(Slot.class).fromXML(slotXML);
+    }
+
+    @Benchmark
+    public String slotToJSON() {
+        return new EntityFactory<>(slot).toJSON();
+    }
+
+    @Benchmark
+    public Slot slotFromJSON() {
+        return new EntityFactory<>(Slot.class).fromJSON(slotJSON);
+    }
+
+    @Benchmark
+    public String slotListToXML() {
+        return new EntityFactory<>(slotList).toXML();
+    }
+
+    @Benchmark
+    public SlotList slotListFromXML() {
+        return new EntityFactory<>(SlotList.class).fromXML(slotListXML);
+    }
+
+    @Benchmark
+    public String slotListToJSON() {
+        return new EntityFactory<>(slotList).toJSON();
+    }
+
+    @Benchmark
+    public SlotList slotListFromJSON() {
+        return new EntityFactory<>(SlotList.class).fromJSON(slotListJSON);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.events;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.processing.MCRProcessableDefaultCollection;
+import org.mycore.common.processing.MCRProcessableRegistry;
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs the identifier extraction of objects with a fixed number of workers.
+ *
+ * An object is queued only once until a worker picks it up, so repeated events for the same object while it waits
+ * don't cause repeated catalog lookups. If the queue is full, submitting waits until a worker takes the next object,
+ * so a bulk ingest or reindex is slowed down to the extraction rate instead of skipping objects. Objects are only
+ * dropped if the queue is shut down.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ */
+public class IdentifierExtractionQueue {
+
+    public static final String CONFIG_PREFIX = "DBT.IdentifierExtractor.";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final ThreadPoolExecutor executor;
+
+    private final Set<MCRObjectID> pending = ConcurrentHashMap.newKeySet();
+
+    private final Consumer<MCRObjectID> processor;
+
+    private final MCRProcessableDefaultCollection collection;
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder blocked = new LongAdder();
+
+    /**
+     * Creates a new queue.
+     *
+     * @param workers the number of objects processed in parallel
+     * @param queueSize the number of objects waiting for a worker
+     * @param processor the identifier extraction
+     */
+    public IdentifierExtractionQueue(int workers, int queueSize, Consumer<MCRObjectID> processor) {
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(queueSize),
+            new ThreadFactoryBuilder().setNameFormat("IdentifierExtractor-#%d").setDaemon(true).build(),
+            this::waitForQueue);
+        this.processor = processor;
+
+        collection = new MCRProcessableDefaultCollection("Identifier Extractor");
+        collection.setProperty("workers", workers);
+        collection.setProperty("queue size", queueSize);
+        MCRProcessableRegistry.getSingleInstance().register(collection);
+        updateMetrics();
+    }
+
+    /**
+     * Creates a new queue configured by the <code>DBT.IdentifierExtractor.*</code> properties.
+     *
+     * @param processor the identifier extraction
+     * @return the queue
+     */
+    public static IdentifierExtractionQueue fromConfiguration(Consumer<MCRObjectID> processor) {
+        return new IdentifierExtractionQueue(
+            MCRConfiguration2.getInt(CONFIG_PREFIX + "Workers").orElse(2),
+            MCRConfiguration2.getInt(CONFIG_PREFIX + "QueueSize").orElse(1000),
+            processor);
+    }
+
+    /**
+     * Queues the object with the given id, if it isn't already waiting. Waits while the queue is full.
+     *
+     * @param id the object id
+     * @return <code>true</code> if the object was queued
+     */
+    public boolean submit(MCRObjectID id) {
+        if (!pending.add(id)) {
+            return false;
+        }
+
+        try {
+            executor.execute(() -> {
+                // later changes of the object are queued again while this one is running
+                pending.remove(id);
+                updateMetrics();
+                try {
+                    processor.accept(id);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error on extract identifiers for object " + id, e);
+                } finally {
+                    completed.increment();
+                    updateMetrics();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(id);
+            dropped.increment();
+            updateMetrics();
+            LOGGER.warn("Drop identifier extraction for object {}, the queue is shut down.", id);
+            return false;
+        }
+
+        updateMetrics();
+        return true;
+    }
+
+    /**
+     * Returns <code>true</code> if the object with the given id waits for a worker.
+     *
+     * @param id the object id
+     * @return <code>true</code> if the object is waiting
+     */
+    public boolean isPending(MCRObjectID id) {
+        return pending.contains(id);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns how often submitting had to wait for a full queue.
+     *
+     * @return the number of waits
+     */
+    public long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    /**
+     * Stops accepting objects and drops the waiting ones.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOGGER.warn("Identifier extraction still running on shutdown.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        MCRProcessableRegistry.getSingleInstance().unregister(collection);
+    }
+
+    private void waitForQueue(Runnable task, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("Identifier extraction is shut down.");
+        }
+
+        blocked.increment();
+        updateMetrics();
+        LOGGER.debug("Identifier extraction queue is full, wait for a free slot.");
+        try {
+            pool.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for identifier extraction queue.", e);
+        }
+    }
+
+    private void updateMetrics() {
+        collection.setProperty("queued", getQueueDepth());
+        collection.setProperty("active", getActiveCount());
+        collection.setProperty("completed", getCompletedCount());
+        collection.setProperty("dropped", getDroppedCount());
+        collection.setProperty("blocked", getBlockedCount());
+    }
+}
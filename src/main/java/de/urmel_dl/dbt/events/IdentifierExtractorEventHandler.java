@@ -17,13 +17,17 @@
  */
 package de.urmel_dl.dbt.events;
 
+import java.net.MalformedURLException;
 import java.text.MessageFormat;
 import java.text.Normalizer;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -35,12 +39,24 @@ import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 import org.jdom2.xpath.XPathExpression;
 import org.jdom2.xpath.XPathFactory;
+import org.mycore.access.MCRAccessException;
 import org.mycore.common.MCRConstants;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRSystemUserInformation;
 import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.common.events.MCREvent;
 import org.mycore.common.events.MCREventHandlerBase;
+import org.mycore.common.events.MCRShutdownHandler;
+import org.mycore.common.events.MCRShutdownHandler.Closeable;
+import org.mycore.datamodel.metadata.MCRMetadataManager;
 import org.mycore.datamodel.metadata.MCRObject;
+import org.mycore.datamodel.metadata.MCRObjectID;
 import org.mycore.mods.MCRMODSWrapper;
+import org.mycore.util.concurrent.MCRTransactionableRunnable;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.RateLimiter;
 
 import de.urmel_dl.dbt.opc.OPCConnector;
 import de.urmel_dl.dbt.opc.datamodel.pica.PPField;
@@ -49,6 +65,13 @@ import de.urmel_dl.dbt.opc.datamodel.pica.Record;
 import de.urmel_dl.dbt.opc.datamodel.pica.Result;
 
 /**
+ * Adds the PPN of matching catalog records and the GND identifiers of their persons to MODS objects.
+ *
+ * The extraction runs after the commit of the event transaction in an {@link IdentifierExtractionQueue}, so ingests
+ * and reindexes don't wait for catalog lookups. All workers share one {@link OPCConnector} whose requests are
+ * limited to <code>DBT.IdentifierExtractor.RequestsPerSecond</code>. Found identifiers are stored with an update of
+ * the object.
+ *
  * @author Ren\u00E9 Adler (eagle)
  *
  */
@@ -62,82 +85,49 @@ public class IdentifierExtractorEventHandler extends MCREventHandlerBase {
 
     private static final String URI_SYNTAX = "http://uri.gbv.de/document/{0}:ppn:{1}";
 
-    private static final String QUERY_FILTER = "[-+]";
+    private static final Pattern QUERY_FILTER = Pattern.compile("[-+]");
+
+    private static final Pattern PARTS_SEPARATOR = Pattern.compile("[,\\s:]");
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}|´");
+
+    private static final List<String> NAME_TAGS = List.of("028A", "028B", "028C", "028D", "028E", "028F", "028G",
+        "028H", "028L", "028M");
+
+    private static final List<String> TITLE_SUBFIELDS = List.of("a", "d");
+
+    private static final List<String> NAME_SUBFIELDS = List.of("d", "a", "c");
+
+    // JDOM expressions aren't thread-safe, so every worker keeps its own compiled ones
+    private static final ThreadLocal<Map<String, XPathExpression<Element>>> XPATH_CACHE = ThreadLocal
+        .withInitial(HashMap::new);
+
+    // identifiers of authority records by id type and IDN, persons recur across the objects of a collection
+    private static final Cache<String, Optional<String>> IDENTIFIER_CACHE = CacheBuilder.newBuilder()
+        .maximumSize(10000).expireAfterWrite(1, TimeUnit.HOURS).build();
+
+    private static final IdentifierExtractionQueue QUEUE;
+
+    private static volatile OPCConnector connector;
+
+    static {
+        QUEUE = IdentifierExtractionQueue.fromConfiguration(IdentifierExtractorEventHandler::extractIdentifiers);
+        MCRShutdownHandler.getInstance().addCloseable(new Closeable() {
+            @Override
+            public void close() {
+                QUEUE.shutdown();
+            }
+        });
+    }
 
     /* (non-Javadoc)
      * @see org.mycore.common.events.MCREventHandlerBase#handleObjectCreated(org.mycore.common.events.MCREvent, org.mycore.datamodel.metadata.MCRObject)
      */
     @Override
-    synchronized protected void handleObjectCreated(MCREvent evt, MCRObject obj) {
-        if (!obj.getId().getTypeId().equals("mods")) {
-            return;
-        }
-
-        MCRMODSWrapper mods = new MCRMODSWrapper(obj);
-
-        try {
-            final String prefix = PREFIX_SINGELTON.getPrefix(mods);
-
-            if (mods.getElements("mods:identifier[@type='uri']").stream()
-                .noneMatch(e -> e.getText()
-                    .contains(new MessageFormat(URI_SYNTAX, Locale.ROOT).format(new Object[] { prefix, "" })))) {
-                final OPCConnector opc = new OPCConnector();
-                opc.setMaxHits(50);
-
-                final List<Element> titleInfos = mods.getElements("mods:titleInfo");
-                titleInfos.parallelStream().forEach(titleInfo -> {
-                    try {
-                        final String query = buildQuery(titleInfo);
-                        final Result result = opc.search(query);
-
-                        if (result.getRecords().isEmpty()) {
-                            LOGGER.info("Nothing was found for title " + query);
-                        } else {
-                            result.getRecords().parallelStream().map(record -> {
-                                record.load(true);
-                                return record;
-                            }).filter(record -> Optional.ofNullable(record.getFieldByTag("002@"))
-                                .map(f -> f.getSubfieldByCode("0")).map(sf -> sf.getContent().startsWith("O"))
-                                .orElse(false) && matchTitle(titleInfo, record)
-                                && matchPersons(mods.getElements("mods:name[@type='personal']"), record, opc))
-                                .findFirst()
-                                .ifPresent(record -> {
-                                    LOGGER.info("Found PPN " + record.getPPN());
-
-                                    final Element mId = mods.addElement("identifier");
-                                    mId.setAttribute("type", "uri");
-                                    mId.addContent(new MessageFormat(URI_SYNTAX, Locale.ROOT)
-                                        .format(new Object[] { prefix, record.getPPN() }));
-
-                                    final List<Element> persons = mods.getElements("mods:name[@type='personal']");
-                                    persons.parallelStream()
-                                        .filter(person -> buildXPath("mods:nameIdentifier[@type='gnd']")
-                                            .evaluateFirst(person) == null)
-                                        .forEach(person -> {
-                                            final String gnd = extractPersonIdentifier("gnd",
-                                                buildXPath("mods:displayForm").evaluateFirst(person), record, opc);
-                                            if (gnd != null) {
-                                                final Element mNId = new Element("nameIdentifier",
-                                                    MCRConstants.MODS_NAMESPACE);
-                                                mNId.setAttribute("type", "gnd");
-                                                mNId.addContent(gnd);
-                                                person.addContent(mNId);
-                                            }
-                                        });
-
-                                    if (LOGGER.isDebugEnabled()) {
-                                        LOGGER.debug(new XMLOutputter(Format.getPrettyFormat())
-                                            .outputString(obj.createXML()));
-                                    }
-                                });
-                        }
-                    } catch (ExecutionException e1) {
-                        LOGGER.error("Error on extract identifiers for object " + obj, e1);
-                    }
-                });
-            }
-        } catch (Exception e) {
-            LOGGER.error("Error on extract identifiers for object " + obj, e);
+    protected void handleObjectCreated(MCREvent evt, MCRObject obj) {
+        if (needsIdentifier(obj)) {
+            final MCRObjectID id = obj.getId();
+            MCRSessionMgr.getCurrentSession().onCommit(() -> QUEUE.submit(id));
         }
     }
 
@@ -145,7 +135,7 @@ public class IdentifierExtractorEventHandler extends MCREventHandlerBase {
      * @see org.mycore.common.events.MCREventHandlerBase#handleObjectUpdated(org.mycore.common.events.MCREvent, org.mycore.datamodel.metadata.MCRObject)
      */
     @Override
-    synchronized protected void handleObjectUpdated(MCREvent evt, MCRObject obj) {
+    protected void handleObjectUpdated(MCREvent evt, MCRObject obj) {
         handleObjectCreated(evt, obj);
     }
 
@@ -153,7 +143,7 @@ public class IdentifierExtractorEventHandler extends MCREventHandlerBase {
      * @see org.mycore.common.events.MCREventHandlerBase#handleObjectRepaired(org.mycore.common.events.MCREvent, org.mycore.datamodel.metadata.MCRObject)
      */
     @Override
-    synchronized protected void handleObjectRepaired(MCREvent evt, MCRObject obj) {
+    protected void handleObjectRepaired(MCREvent evt, MCRObject obj) {
         handleObjectCreated(evt, obj);
     }
 
@@ -161,35 +151,173 @@ public class IdentifierExtractorEventHandler extends MCREventHandlerBase {
      * @see org.mycore.common.events.MCREventHandlerBase#handleObjectIndex(org.mycore.common.events.MCREvent, org.mycore.datamodel.metadata.MCRObject)
      */
     @Override
-    synchronized protected void handleObjectIndex(MCREvent evt, MCRObject obj) {
+    protected void handleObjectIndex(MCREvent evt, MCRObject obj) {
         handleObjectCreated(evt, obj);
     }
 
-    private XPathExpression<Element> buildXPath(String xPath) {
-        return XPathFactory.instance().compile(xPath, Filters.element(), null, MCRConstants.MODS_NAMESPACE,
-            MCRConstants.XLINK_NAMESPACE);
+    private static boolean needsIdentifier(MCRObject obj) {
+        if (!obj.getId().getTypeId().equals("mods")) {
+            return false;
+        }
+
+        final MCRMODSWrapper mods = new MCRMODSWrapper(obj);
+        final String uriPrefix = new MessageFormat(URI_SYNTAX, Locale.ROOT)
+            .format(new Object[] { PREFIX_SINGELTON.getPrefix(mods), "" });
+
+        return mods.getElements("mods:identifier[@type='uri']").stream()
+            .noneMatch(e -> e.getText().contains(uriPrefix));
+    }
+
+    /**
+     * Extracts the identifiers of the stored object with the given id and updates the object if some were found.
+     * Runs in a new session and transaction as system user.
+     *
+     * @param id the object id
+     */
+    private static void extractIdentifiers(MCRObjectID id) {
+        new MCRTransactionableRunnable(() -> {
+            MCRSessionMgr.getCurrentSession().setUserInformation(MCRSystemUserInformation.getJanitorInstance());
+
+            if (!MCRMetadataManager.exists(id)) {
+                return;
+            }
+
+            final MCRObject obj = MCRMetadataManager.retrieveMCRObject(id);
+            if (needsIdentifier(obj) && extractIdentifiers(obj)) {
+                try {
+                    MCRMetadataManager.update(obj);
+                } catch (MCRAccessException e) {
+                    LOGGER.error("Couldn't store extracted identifiers for object " + id, e);
+                }
+            }
+        }).run();
+    }
+
+    /**
+     * Returns the shared {@link OPCConnector}. It's created on first use, so a misconfiguration is reported for
+     * every extraction instead of breaking the event handler.
+     *
+     * @return the connector
+     * @throws MalformedURLException thrown if the configured catalog URL is invalid
+     */
+    private static OPCConnector getOPC() throws MalformedURLException {
+        OPCConnector opc = connector;
+        if (opc == null) {
+            synchronized (IdentifierExtractorEventHandler.class) {
+                opc = connector;
+                if (opc == null) {
+                    opc = new OPCConnector();
+                    opc.setMaxHits(50);
+                    opc.setRateLimiter(RateLimiter.create(MCRConfiguration2
+                        .getString(IdentifierExtractionQueue.CONFIG_PREFIX + "RequestsPerSecond")
+                        .map(Double::parseDouble).orElse(5d)));
+                    connector = opc;
+                }
+            }
+        }
+        return opc;
     }
 
-    private String buildQuery(final Element titleInfo) {
+    /**
+     * Searches the catalog for a record matching the titles and persons of the MODS object and adds its PPN and the
+     * GND identifiers of the persons to the object.
+     *
+     * @param obj the MODS object
+     * @return <code>true</code> if a PPN was added
+     */
+    static boolean extractIdentifiers(MCRObject obj) {
+        final MCRMODSWrapper mods = new MCRMODSWrapper(obj);
+        final String prefix = PREFIX_SINGELTON.getPrefix(mods);
+        final List<Element> persons = mods.getElements("mods:name[@type='personal']");
+
+        final OPCConnector opc;
+        try {
+            opc = getOPC();
+        } catch (Exception e) {
+            LOGGER.error("Error on extract identifiers for object " + obj.getId(), e);
+            return false;
+        }
+
+        for (final Element titleInfo : mods.getElements("mods:titleInfo")) {
+            try {
+                final String query = buildQuery(titleInfo);
+                final Result result = opc.search(query);
+
+                if (result.getRecords().isEmpty()) {
+                    LOGGER.info("Nothing was found for title " + query);
+                    continue;
+                }
+
+                final Optional<Record> match = opc
+                    .getRecords(result.getRecords().stream().map(Record::getPPN).collect(Collectors.toList()))
+                    .stream()
+                    .filter(Objects::nonNull)
+                    .filter(record -> Optional.ofNullable(record.getFieldByTag("002@"))
+                        .map(f -> f.getSubfieldByCode("0")).map(sf -> sf.getContent().startsWith("O"))
+                        .orElse(false) && matchTitle(titleInfo, record) && matchPersons(persons, record))
+                    .findFirst();
+
+                if (match.isPresent()) {
+                    final Record record = match.get();
+                    LOGGER.info("Found PPN " + record.getPPN());
+
+                    final Element mId = mods.addElement("identifier");
+                    mId.setAttribute("type", "uri");
+                    mId.addContent(new MessageFormat(URI_SYNTAX, Locale.ROOT)
+                        .format(new Object[] { prefix, record.getPPN() }));
+
+                    persons.stream()
+                        .filter(person -> buildXPath("mods:nameIdentifier[@type='gnd']").evaluateFirst(person) == null)
+                        .forEach(person -> {
+                            final String gnd = extractPersonIdentifier("gnd",
+                                buildXPath("mods:displayForm").evaluateFirst(person), record);
+                            if (gnd != null) {
+                                final Element mNId = new Element("nameIdentifier", MCRConstants.MODS_NAMESPACE);
+                                mNId.setAttribute("type", "gnd");
+                                mNId.addContent(gnd);
+                                person.addContent(mNId);
+                            }
+                        });
+
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug(new XMLOutputter(Format.getPrettyFormat()).outputString(obj.createXML()));
+                    }
+
+                    return true;
+                }
+            } catch (Exception e) {
+                LOGGER.error("Error on extract identifiers for object " + obj.getId(), e);
+            }
+        }
+
+        return false;
+    }
+
+    private static XPathExpression<Element> buildXPath(String xPath) {
+        return XPATH_CACHE.get().computeIfAbsent(xPath, x -> XPathFactory.instance().compile(x, Filters.element(),
+            null, MCRConstants.MODS_NAMESPACE, MCRConstants.XLINK_NAMESPACE));
+    }
+
+    private static String buildQuery(final Element titleInfo) {
         final StringBuffer sb = new StringBuffer();
 
         final Element title = buildXPath("mods:title").evaluateFirst(titleInfo);
         final Element subTitle = buildXPath("mods:subTitle").evaluateFirst(titleInfo);
 
         if (title != null && title.getTextNormalize().length() > 3) {
-            sb.append("tit " + title.getTextNormalize().replaceAll(QUERY_FILTER, ""));
+            sb.append("tit " + QUERY_FILTER.matcher(title.getTextNormalize()).replaceAll(""));
         }
         if (subTitle != null) {
             if (sb.length() > 0) {
                 sb.append(" or ");
             }
-            sb.append("tit " + subTitle.getTextNormalize().replaceAll(QUERY_FILTER, ""));
+            sb.append("tit " + QUERY_FILTER.matcher(subTitle.getTextNormalize()).replaceAll(""));
         }
 
         return sb.toString();
     }
 
-    private boolean matchTitle(final Element titleInfo, final Record record) {
+    private static boolean matchTitle(final Element titleInfo, final Record record) {
         if (titleInfo != null && record != null) {
             final List<PPField> titFields = record.getFieldsByTag("021A");
             if (!titFields.isEmpty()) {
@@ -209,10 +337,7 @@ public class IdentifierExtractorEventHandler extends MCREventHandlerBase {
                 }
 
                 for (final PPField titField : titFields) {
-                    int confidence = partsCompare(sb.toString(),
-                        Arrays.stream("a,d".split(",")).map(s -> titField.getSubfieldByCode(s))
-                            .filter(sc -> sc != null).map(sc -> sc.getContent())
-                            .collect(Collectors.joining(", ")));
+                    int confidence = partsCompare(sb.toString(), joinSubfields(titField, TITLE_SUBFIELDS));
                     if (confidence > 75) {
                         LOGGER.info(
                             "Title \"" + sb.toString() + "\" matches with a confidence of " + confidence + "%.");
@@ -225,16 +350,10 @@ public class IdentifierExtractorEventHandler extends MCREventHandlerBase {
         return false;
     }
 
-    private boolean matchPerson(final Element displayForm, final Record record,
-        final OPCConnector opc) {
+    private static boolean matchPerson(final Element displayForm, final Record record) {
         if (displayForm != null && record != null) {
-            List<PPField> nameFields = Arrays.stream("028A,028B,028C,028D,028E,028F,028G,028H,028L,028M".split(","))
-                .map(tag -> record.getFieldsByTag(tag)).flatMap(l -> l.stream()).collect(Collectors.toList());
-
-            for (final PPField f : nameFields) {
-                int confidence = partsCompare(displayForm.getTextTrim(),
-                    Arrays.stream("d,a,c".split(",")).map(s -> f.getSubfieldByCode(s)).filter(sc -> sc != null)
-                        .map(sc -> sc.getContent()).collect(Collectors.joining(", ")));
+            for (final PPField f : nameFields(record)) {
+                int confidence = partsCompare(displayForm.getTextTrim(), joinSubfields(f, NAME_SUBFIELDS));
 
                 if (confidence > 50) {
                     LOGGER.info("Person \"" + displayForm.getTextTrim() + "\" matches with a confidence of "
@@ -248,29 +367,23 @@ public class IdentifierExtractorEventHandler extends MCREventHandlerBase {
         return false;
     }
 
-    private boolean matchPersons(final List<Element> persons, final Record record,
-        final OPCConnector opc) {
-        long numMatching = persons.parallelStream().map(person -> matchPerson(
-            buildXPath("mods:displayForm").evaluateFirst(person), record, opc)).count();
+    private static boolean matchPersons(final List<Element> persons, final Record record) {
+        long numMatching = persons.stream().map(person -> matchPerson(
+            buildXPath("mods:displayForm").evaluateFirst(person), record)).count();
 
         return Math.round(100 / persons.size() * numMatching) > 75;
     }
 
-    private String extractPersonIdentifier(final String idType, final Element displayForm, final Record record,
-        final OPCConnector opc) {
+    private static String extractPersonIdentifier(final String idType, final Element displayForm,
+        final Record record) {
         if (displayForm != null && record != null) {
-            List<PPField> nameFields = Arrays.stream("028A,028B,028C,028D,028E,028F,028G,028H,028L,028M".split(","))
-                .map(tag -> record.getFieldsByTag(tag)).flatMap(l -> l.stream()).collect(Collectors.toList());
-
-            for (final PPField f : nameFields) {
-                int confidence = partsCompare(displayForm.getTextTrim(),
-                    Arrays.stream("d,a,c".split(",")).map(s -> f.getSubfieldByCode(s)).filter(sc -> sc != null)
-                        .map(sc -> sc.getContent()).collect(Collectors.joining(", ")));
+            for (final PPField f : nameFields(record)) {
+                int confidence = partsCompare(displayForm.getTextTrim(), joinSubfields(f, NAME_SUBFIELDS));
 
                 if (confidence > 50) {
                     final Optional<PPSubField> idn = Optional.ofNullable(f.getSubfieldByCode("9"));
                     if (idn.isPresent()) {
-                        final String id = getIdentifier(idType, opc, idn.get().getContent());
+                        final String id = getIdentifier(idType, idn.get().getContent());
                         if (id != null) {
                             LOGGER.info("Found " + idType + " " + id + " for person \"" + displayForm.getTextTrim()
                                 + "\".");
@@ -284,30 +397,39 @@ public class IdentifierExtractorEventHandler extends MCREventHandlerBase {
         return null;
     }
 
-    private String getIdentifier(final String idType, final OPCConnector opc, final String idn) {
+    private static String getIdentifier(final String idType, final String idn) {
         try {
-            final Record record = opc.getRecord(idn);
-            List<String> ids = Stream.of(record.getFieldsByTag("007K"), record.getFieldsByTag("007N"))
-                .flatMap(l -> l.stream())
-                .filter(f -> f.getSubfieldByCode("a").getContent().equalsIgnoreCase(idType))
-                .map(f -> f.getSubfieldByCode("0").getContent()).collect(Collectors.toList());
-
-            return ids.isEmpty() ? null : ids.get(0);
+            return IDENTIFIER_CACHE.get(idType + ":" + idn, () -> {
+                final Record record = getOPC().getRecord(idn);
+                return Stream.of(record.getFieldsByTag("007K"), record.getFieldsByTag("007N"))
+                    .flatMap(l -> l.stream())
+                    .filter(f -> f.getSubfieldByCode("a").getContent().equalsIgnoreCase(idType))
+                    .map(f -> f.getSubfieldByCode("0").getContent()).findFirst();
+            }).orElse(null);
         } catch (Exception e) {
             LOGGER.error("Couldn't read record for idn " + idn, e);
             return null;
         }
     }
 
+    private static List<PPField> nameFields(final Record record) {
+        return NAME_TAGS.stream().map(record::getFieldsByTag).flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    private static String joinSubfields(final PPField field, final List<String> codes) {
+        return codes.stream().map(field::getSubfieldByCode).filter(Objects::nonNull).map(PPSubField::getContent)
+            .collect(Collectors.joining(", "));
+    }
+
     private static String normalizeAccents(final String str) {
-        return Normalizer.normalize(str, Normalizer.Form.NFD).replaceAll("\\p{M}|´", "");
+        return ACCENTS.matcher(Normalizer.normalize(str, Normalizer.Form.NFD)).replaceAll("");
     }
 
     private static int partsCompare(final String n1, final String n2) {
-        List<String> n1Parts = Arrays.stream(n1.split("[,\\s:]")).filter(s -> !s.isEmpty())
+        List<String> n1Parts = PARTS_SEPARATOR.splitAsStream(n1).filter(s -> !s.isEmpty())
             .map(s -> s.toLowerCase(Locale.ROOT))
             .map(IdentifierExtractorEventHandler::normalizeAccents).collect(Collectors.toList());
-        List<String> n2Parts = Arrays.stream(n2.split("[,\\s:]")).filter(s -> !s.isEmpty())
+        List<String> n2Parts = PARTS_SEPARATOR.splitAsStream(n2).filter(s -> !s.isEmpty())
             .map(s -> s.toLowerCase(Locale.ROOT))
             .map(IdentifierExtractorEventHandler::normalizeAccents).collect(Collectors.toList());
 
@@ -70,8 +70,7 @@ public class MediaFilter implements Filter {
                 String derId = m.group(1);
                 String file = m.group(2);
 
-                String mediaId = MediaService.buildInternalId(derId + "_" + file);
-                if (MediaService.hasMediaFiles(mediaId)) {
+                if (MediaService.hasMediaFiles(derId, file)) {
                     ((HttpServletResponse) response).sendError(HttpServletResponse.SC_FORBIDDEN);
                     LOGGER.warn("Access to {} forbidden.", pathInfo);
                     return;
@@ -0,0 +1,345 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen
+ * Copyright (C) 2000-2017
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.media;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Caches the file listings of the directories below a storage path.
+ *
+ * Listings of existing directories are kept until the directory or one of its subdirectories changes, which is
+ * detected with a {@link WatchService}. Detected changes are passed to the change listener. The service is stopped
+ * with {@link #close()}. Missing directories are cached as well, but only for the given time to live, so that lookups
+ * of ids without media files don't hit the filesystem on every request.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ */
+public class MediaFileCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final String name;
+
+    private final Path root;
+
+    private final long negativeTTL;
+
+    private final Cache<String, Entry> cache;
+
+    private final Map<Path, WatchKey> watchedDirs = new ConcurrentHashMap<>();
+
+    private final Map<WatchKey, Path> watchKeys = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder negativeHits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private volatile Consumer<String> changeListener = id -> {
+    };
+
+    private WatchService watchService;
+
+    private boolean watcherFailed;
+
+    private boolean closed;
+
+    /**
+     * Creates a new cache for the given storage path.
+     *
+     * @param name the name of the cache
+     * @param root the storage path
+     * @param capacity the maximum number of cached listings
+     * @param negativeTTL the time to live of cached missing directories
+     */
+    public MediaFileCache(String name, Path root, long capacity, Duration negativeTTL) {
+        this.name = name;
+        this.root = root;
+        this.negativeTTL = negativeTTL.toNanos();
+        this.cache = CacheBuilder.newBuilder().maximumSize(capacity).removalListener(this::onRemoval).build();
+    }
+
+    /**
+     * Returns the files of the directory with the given id.
+     *
+     * @param id the id
+     * @return the files or <code>null</code> if the directory doesn't exist
+     */
+    public List<Path> get(String id) {
+        Entry entry = cache.getIfPresent(id);
+        if (entry != null && !entry.isExpired()) {
+            (entry.files != null ? hits : negativeHits).increment();
+            return entry.files;
+        }
+
+        misses.increment();
+
+        long current = version.get();
+        Path parent = root.resolve(id);
+
+        watchRoot();
+
+        List<Path> files;
+        try (Stream<Path> fs = Files.find(parent, Integer.MAX_VALUE, (f, attrs) -> {
+            if (attrs.isDirectory()) {
+                watch(f);
+            }
+            return true;
+        })) {
+            files = fs.filter(f -> !f.equals(parent)).collect(Collectors.toList());
+        } catch (IOException e) {
+            files = null;
+        }
+
+        // don't cache a listing if the filesystem was changed in between
+        if (version.get() == current) {
+            cache.put(id, new Entry(files, files != null ? Long.MAX_VALUE : System.nanoTime() + negativeTTL));
+        }
+
+        return files;
+    }
+
+    /**
+     * Removes the listing of the given id.
+     *
+     * @param id the id
+     */
+    public void remove(String id) {
+        version.incrementAndGet();
+        invalidations.increment();
+        cache.invalidate(id);
+    }
+
+    /**
+     * Removes all listings.
+     */
+    public void clear() {
+        version.incrementAndGet();
+        invalidations.increment();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Starts watching the storage path for created and removed directories. Changes within a directory are watched
+     * once its listing was requested.
+     */
+    public void startWatching() {
+        watchRoot();
+    }
+
+    /**
+     * Sets the listener for changes detected on the filesystem. It gets the id of the changed directory or
+     * <code>null</code> if events were lost and all listings were removed.
+     *
+     * @param listener the change listener
+     */
+    public void setChangeListener(Consumer<String> listener) {
+        changeListener = listener;
+    }
+
+    /**
+     * Stops watching the storage path. Listings are only updated explicitly afterwards.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOGGER.warn("Couldn't close watch service of {}.", name, e);
+            }
+        }
+        watchedDirs.clear();
+        watchKeys.clear();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getNegativeHits() {
+        return negativeHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public boolean isWatching() {
+        return watchService != null && !watcherFailed && !closed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: size=%d, hits=%d, negative hits=%d, misses=%d,"
+            + " invalidations=%d", name, size(), getHits(), getNegativeHits(), getMisses(), getInvalidations());
+    }
+
+    private void onRemoval(RemovalNotification<String, Entry> notification) {
+        if (notification.getCause() != RemovalCause.REPLACED) {
+            Path dir = root.resolve(notification.getKey());
+            watchedDirs.entrySet().removeIf(e -> {
+                if (e.getKey().startsWith(dir)) {
+                    watchKeys.remove(e.getValue());
+                    e.getValue().cancel();
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    private void watchRoot() {
+        if (!watchedDirs.containsKey(root) && Files.isDirectory(root)) {
+            register(root);
+        }
+    }
+
+    private void watch(Path dir) {
+        if (!watchedDirs.containsKey(dir)) {
+            register(dir);
+        }
+    }
+
+    private synchronized void register(Path dir) {
+        if (watcherFailed || closed || watchedDirs.containsKey(dir)) {
+            return;
+        }
+
+        try {
+            if (watchService == null) {
+                watchService = root.getFileSystem().newWatchService();
+                new ThreadFactoryBuilder().setNameFormat("MediaFileCache-" + name).setDaemon(true).build()
+                    .newThread(this::processEvents).start();
+            }
+
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirs.put(dir, key);
+            watchKeys.put(key, dir);
+        } catch (NoSuchFileException e) {
+            LOGGER.debug("{} was removed before it could be watched.", dir);
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.warn("Couldn't watch {}, cached listings of {} are only updated explicitly.", dir, name, e);
+            watcherFailed = true;
+        }
+    }
+
+    private void processEvents() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path dir = watchKeys.get(key);
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        LOGGER.debug("{}: lost filesystem events, clear cache.", name);
+                        clear();
+                        changed(null);
+                    } else if (root.equals(dir)) {
+                        changed(((Path) event.context()).toString());
+                    } else if (dir != null) {
+                        changed(root.relativize(dir).getName(0).toString());
+                    }
+                }
+
+                if (!key.reset() && watchKeys.remove(key) != null) {
+                    watchedDirs.remove(dir, key);
+                    if (!root.equals(dir)) {
+                        changed(root.relativize(dir).getName(0).toString());
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            LOGGER.debug("Stopped watching {}.", root);
+        }
+    }
+
+    private void changed(String id) {
+        if (id != null) {
+            remove(id);
+        }
+
+        try {
+            changeListener.accept(id);
+        } catch (RuntimeException e) {
+            LOGGER.warn("{}: change listener failed for {}.", name, id, e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<Path> files;
+
+        private final long expires;
+
+        Entry(List<Path> files, long expires) {
+            this.files = files;
+            this.expires = expires;
+        }
+
+        boolean isExpired() {
+            return expires != Long.MAX_VALUE && System.nanoTime() - expires > 0;
+        }
+    }
+}
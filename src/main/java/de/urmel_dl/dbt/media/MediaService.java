@@ -18,21 +18,14 @@
  */
 package de.urmel_dl.dbt.media;
 
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
-import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.math.BigInteger;
-import java.net.URI;
 import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -41,20 +34,24 @@ import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-
-import javax.imageio.ImageIO;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -62,7 +59,6 @@ import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.glassfish.jersey.media.multipart.file.FileDataBodyPart;
-import org.mycore.common.MCRCache;
 import org.mycore.common.MCRException;
 import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.common.events.MCRShutdownHandler;
@@ -73,6 +69,8 @@ import org.mycore.frontend.MCRFrontendUtil;
 import org.mycore.util.concurrent.processing.MCRProcessableExecutor;
 import org.mycore.util.concurrent.processing.MCRProcessableFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import de.urmel_dl.dbt.media.entity.ConverterJob;
@@ -114,11 +112,25 @@ public class MediaService {
 
     private static final MCRProcessableDefaultCollection TASK_COLLECTION;
 
-    private static final MCRCache<String, List<Path>> MEDIA_FILES_CACHE = new MCRCache<>(1000L, "MediaFileCache");
+    private static final MediaFileCache MEDIA_FILES_CACHE;
+
+    private static final MediaFileCache THUMB_FILES_CACHE;
+
+    private static final MediaFileCache SUBT_FILES_CACHE;
+
+    private static final ThumbRenditionCache THUMB_RENDITIONS;
+
+    private static final List<int[]> THUMB_EAGER_SIZES;
+
+    private static final Set<String> MEDIA_INDEX = ConcurrentHashMap.newKeySet();
+
+    private static final Cache<String, String> INTERNAL_IDS = CacheBuilder.newBuilder().maximumSize(10000).build();
+
+    private static volatile boolean mediaIndexBuilt;
 
-    private static final MCRCache<String, List<Path>> THUMB_FILES_CACHE = new MCRCache<>(1000L, "ThumbFileCache");
+    private static final LongAdder EXTRACTED_PACKAGES = new LongAdder();
 
-    private static final MCRCache<String, List<Path>> SUBT_FILES_CACHE = new MCRCache<>(1000L, "SubFileCache");
+    private static final LongAdder EXTRACTED_BYTES = new LongAdder();
 
     private static final List<String> CP_SUBT_FILE_EXT = Arrays.asList(".vtt", ".srt");
 
@@ -136,6 +148,7 @@ public class MediaService {
         @Override
         public void close() {
             waitForShutdown(TASK_EXECUTOR.getExecutor());
+            getFileCaches().forEach(MediaFileCache::close);
         }
 
         private void waitForShutdown(ExecutorService service) {
@@ -155,8 +168,6 @@ public class MediaService {
 
     private static final List<String> CP_THUMB_FILE_EXT = Arrays.asList(".jpg");
 
-    private static Path tempDirThumbs;
-
     static {
         MCRProcessableRegistry registry = MCRProcessableRegistry.getSingleInstance();
 
@@ -180,6 +191,25 @@ public class MediaService {
         THUMB_STORAGE_PATH = Paths.get(MCRConfiguration2.getStringOrThrow(CONFIG_PREFIX + "Thumb.StoragePath"));
         SUBT_STORAGE_PATH = Paths.get(MCRConfiguration2.getStringOrThrow(CONFIG_PREFIX + "Subtitle.StoragePath"));
         THUMB_FORMAT_SCALED = MCRConfiguration2.getString(CONFIG_PREFIX + "Thumb.FormatScaled").orElse("JPG");
+
+        Duration negativeTTL = Duration
+            .ofSeconds(MCRConfiguration2.getInt(CONFIG_PREFIX + "FileCache.NegativeTTL").orElse(60));
+        MEDIA_FILES_CACHE = new MediaFileCache("MediaFileCache", MEDIA_STORAGE_PATH, 1000L, negativeTTL);
+        THUMB_FILES_CACHE = new MediaFileCache("ThumbFileCache", THUMB_STORAGE_PATH, 1000L, negativeTTL);
+        SUBT_FILES_CACHE = new MediaFileCache("SubFileCache", SUBT_STORAGE_PATH, 1000L, negativeTTL);
+        MEDIA_FILES_CACHE.setChangeListener(MediaService::mediaStorageChanged);
+
+        THUMB_RENDITIONS = new ThumbRenditionCache(
+            MCRConfiguration2.getString(CONFIG_PREFIX + "Thumb.RenditionCache.Dir").map(Paths::get)
+                .orElseGet(() -> Paths.get(System.getProperty("java.io.tmpdir"), "thumbs")),
+            MCRConfiguration2.getLong(CONFIG_PREFIX + "Thumb.RenditionCache.MaxSize").orElse(268435456L),
+            THUMB_FORMAT_SCALED);
+        THUMB_EAGER_SIZES = MCRConfiguration2.getString(CONFIG_PREFIX + "Thumb.EagerSizes")
+            .map(MCRConfiguration2::splitValue).orElseGet(Stream::empty)
+            .map(size -> Arrays.stream(size.split(":", -1))
+                .mapToInt(v -> v.isEmpty() ? -1 : Integer.parseInt(v)).toArray())
+            .map(size -> new int[] { size[0], size.length > 1 ? size[1] : -1 })
+            .collect(Collectors.toList());
     }
 
     protected static MCRProcessableExecutor executor() {
@@ -210,10 +240,104 @@ public class MediaService {
             });
     }
 
+    /**
+     * Checks if encoded media files exist for the given internal id.
+     *
+     * The check is answered from an in-memory index of the media storage, that is built on first use and
+     * updated on completed jobs and deleted media files.
+     *
+     * @param id the internal id
+     * @return <code>true</code> if media files exist
+     */
     public static boolean hasMediaFiles(String id) {
-        return Optional.ofNullable(getMediaFiles(id)).map(fs -> fs.stream()
-            .map(f -> CP_MEDIA_FILE_EXT.stream().anyMatch(ext -> f.getFileName().toString().endsWith(ext))).findAny()
-            .isPresent()).orElse(false);
+        return mediaIndex().contains(id);
+    }
+
+    /**
+     * Checks if encoded media files exist for the given file of an owner, like a derivate.
+     *
+     * @param owner the owner of the file
+     * @param path the path of the file
+     * @return <code>true</code> if media files exist
+     * @see #hasMediaFiles(String)
+     */
+    public static boolean hasMediaFiles(String owner, String path) {
+        Set<String> index = mediaIndex();
+        return !index.isEmpty() && index.contains(buildInternalId(owner + "_" + path));
+    }
+
+    /**
+     * Rebuilds the index of internal ids with encoded media files from the media storage.
+     *
+     * The index is held per JVM. Afterwards the media storage is watched, so that ids added or removed on the
+     * filesystem, also by another process, are updated in the index of this JVM.
+     *
+     * @return the number of indexed ids
+     */
+    public static int rebuildMediaIndex() {
+        synchronized (MEDIA_INDEX) {
+            MEDIA_FILES_CACHE.startWatching();
+
+            Set<String> ids = new HashSet<>();
+            if (Files.isDirectory(MEDIA_STORAGE_PATH)) {
+                try (Stream<Path> dirs = Files.list(MEDIA_STORAGE_PATH)) {
+                    dirs.filter(MediaService::containsMediaFiles).map(dir -> dir.getFileName().toString())
+                        .forEach(ids::add);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            MEDIA_INDEX.retainAll(ids);
+            MEDIA_INDEX.addAll(ids);
+            mediaIndexBuilt = true;
+
+            LOGGER.info("Indexed {} media ids.", ids.size());
+            return ids.size();
+        }
+    }
+
+    private static Set<String> mediaIndex() {
+        if (!mediaIndexBuilt) {
+            synchronized (MEDIA_INDEX) {
+                if (!mediaIndexBuilt) {
+                    rebuildMediaIndex();
+                }
+            }
+        }
+        return MEDIA_INDEX;
+    }
+
+    private static void mediaStorageChanged(String id) {
+        if (id == null) {
+            mediaIndexBuilt = false;
+            return;
+        }
+
+        // list the directory to watch its content too
+        boolean hasMedia = MEDIA_FILES_CACHE.get(id) != null
+            && containsMediaFiles(MEDIA_STORAGE_PATH.resolve(id));
+        synchronized (MEDIA_INDEX) {
+            if (hasMedia) {
+                MEDIA_INDEX.add(id);
+            } else {
+                MEDIA_INDEX.remove(id);
+            }
+        }
+    }
+
+    private static boolean containsMediaFiles(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return false;
+        }
+
+        try (Stream<Path> fs = Files.list(dir)) {
+            return fs.anyMatch(
+                f -> CP_MEDIA_FILE_EXT.stream().anyMatch(ext -> f.getFileName().toString().endsWith(ext)));
+        } catch (IOException e) {
+            LOGGER.warn("Couldn't list {}.", dir, e);
+            return false;
+        }
     }
 
     public static boolean hasSMILFile(String id) {
@@ -234,21 +358,7 @@ public class MediaService {
     }
 
     public static List<Path> getMediaFiles(String id) {
-        List<Path> files = MEDIA_FILES_CACHE.get(id);
-
-        if (files == null) {
-            Path parent = MEDIA_STORAGE_PATH.resolve(id);
-
-            try (Stream<Path> fs = Files.walk(parent)) {
-                files = fs.filter(f -> !f.equals(parent))
-                    .collect(Collectors.toList());
-                MEDIA_FILES_CACHE.put(id, files);
-            } catch (IOException e) {
-                files = null;
-            }
-        }
-
-        return files;
+        return MEDIA_FILES_CACHE.get(id);
     }
 
     public static Path getThumbFile(String id, String fileName) {
@@ -260,90 +370,71 @@ public class MediaService {
             throw new IllegalArgumentException("At least one of width or height must be greater than 0.");
         }
 
-        return scaleThumb(THUMB_STORAGE_PATH.resolve(id).resolve(fileName), width, height);
-    }
-
-    private static Path scaleThumb(Path file, int width, int height) throws IOException {
-        if (tempDirThumbs == null) {
-            tempDirThumbs = Files.createTempDirectory("thumbs");
-            tempDirThumbs.toFile().deleteOnExit();
+        Path file = THUMB_STORAGE_PATH.resolve(id).resolve(fileName);
+        if (Files.notExists(file)) {
+            return file;
         }
 
-        Path scaled = tempDirThumbs.resolve(scaledFileName(file, width, height));
-        LOGGER.info("scaled: {}", scaled);
-        if (Files.notExists(scaled)) {
-            BufferedImage scaledImg = scale(ImageIO.read(file.toFile()), width, height);
-            ImageIO.write(scaledImg, THUMB_FORMAT_SCALED.toUpperCase(Locale.ROOT), scaled.toFile());
-        }
-
-        return scaled;
+        return THUMB_RENDITIONS.get(id, fileName, file, width, height);
     }
 
-    private static BufferedImage scale(BufferedImage img, int width, int height) {
-        double ratio = Double.max((double) width / (double) img.getWidth(), (double) height / (double) img.getHeight());
-
-        int finalh = (int) (img.getHeight() * ratio);
-        int finalw = (int) (img.getWidth() * ratio);
-
-        BufferedImage resizedImg = new BufferedImage(finalw, finalh, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2 = resizedImg.createGraphics();
-        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2.drawImage(img, 0, 0, finalw, finalh, null);
-        g2.dispose();
-
-        return resizedImg;
-    }
-
-    private static String scaledFileName(Path file, int width, int height) {
-        String fileName = file.getFileName().toString();
-        return Optional.of(fileName.lastIndexOf(".")).filter(o -> o != -1).map(o -> fileName.substring(0, o))
-            .orElse(fileName) + "-" + (width > 0 ? Integer.toString(width) + "w" : "")
-            + (height > 0 ? Integer.toString(height) + "h" : "") + "." + THUMB_FORMAT_SCALED.toLowerCase(Locale.ROOT);
+    /**
+     * Scales the thumbnails of the given id to the sizes configured by
+     * <code>DBT.MediaService.Thumb.EagerSizes</code>, so that the player doesn't wait for them.
+     *
+     * @param id the internal id
+     * @param fileNames the file names of the thumbnails
+     */
+    private static void scaleThumbs(String id, List<String> fileNames) {
+        THUMB_RENDITIONS.invalidate(id);
+        fileNames.forEach(fileName -> THUMB_EAGER_SIZES.forEach(size -> {
+            try {
+                getThumbFile(id, fileName, size[0], size[1]);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Couldn't scale thumb {} of {}.", fileName, id, e);
+            }
+        }));
     }
 
     public static List<Path> getThumbFiles(String id) {
-        List<Path> files = THUMB_FILES_CACHE.get(id);
-
-        if (files == null) {
-            Path parent = THUMB_STORAGE_PATH.resolve(id);
-            try (Stream<Path> fs = Files.walk(parent)) {
-                files = fs.filter(f -> !f.equals(parent))
-                    .collect(Collectors.toList());
-                THUMB_FILES_CACHE.put(id, files);
-            } catch (IOException e) {
-                files = null;
-            }
-        }
-
-        return files;
+        return THUMB_FILES_CACHE.get(id);
     }
 
     public static List<Path> getSubtitleFiles(String id) {
-        List<Path> files = SUBT_FILES_CACHE.get(id);
-
-        if (files == null) {
-            Path parent = SUBT_STORAGE_PATH.resolve(id);
-            try (Stream<Path> fs = Files.walk(parent)) {
-                files = fs.filter(f -> !f.equals(parent))
-                    .collect(Collectors.toList());
-                SUBT_FILES_CACHE.put(id, files);
-            } catch (IOException e) {
-                files = null;
-            }
-        }
-
-        return files;
+        return SUBT_FILES_CACHE.get(id);
     }
 
     public static Path getSubtitleFile(String id, String fileName) {
         return SUBT_STORAGE_PATH.resolve(id).resolve(fileName);
     }
 
+    /**
+     * Returns the caches of the media, thumb and subtitle file listings.
+     *
+     * @return the file caches
+     */
+    public static List<MediaFileCache> getFileCaches() {
+        return Arrays.asList(MEDIA_FILES_CACHE, THUMB_FILES_CACHE, SUBT_FILES_CACHE);
+    }
+
+    /**
+     * Returns the cache of scaled thumbnails.
+     *
+     * @return the rendition cache
+     */
+    public static ThumbRenditionCache getThumbRenditionCache() {
+        return THUMB_RENDITIONS;
+    }
+
     public static void deleteMediaFiles(String id) throws IOException {
+        synchronized (MEDIA_INDEX) {
+            MEDIA_INDEX.remove(id);
+        }
         deleteFiles(MEDIA_STORAGE_PATH.resolve(id));
         MEDIA_FILES_CACHE.remove(id);
         deleteFiles(THUMB_STORAGE_PATH.resolve(id));
         THUMB_FILES_CACHE.remove(id);
+        THUMB_RENDITIONS.invalidate(id);
         deleteFiles(SUBT_STORAGE_PATH.resolve(id));
         SUBT_FILES_CACHE.remove(id);
     }
@@ -359,6 +450,10 @@ public class MediaService {
     }
 
     public static String buildInternalId(String input) {
+        return INTERNAL_IDS.asMap().computeIfAbsent(input, MediaService::digestInternalId);
+    }
+
+    private static String digestInternalId(String input) {
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
             return String.format(Locale.ROOT, "%032X",
@@ -501,106 +596,118 @@ public class MediaService {
 
         @Override
         public void run() {
+            LOGGER.info("download media package for {}...", job.getId());
+
+            String internalId = buildInternalId(job.getId());
+            Path mediaStorePath = MEDIA_STORAGE_PATH.resolve(internalId);
+            Path thumbStorePath = THUMB_STORAGE_PATH.resolve(internalId);
+            Path subtStorePath = SUBT_STORAGE_PATH.resolve(internalId);
+
+            long start = System.nanoTime();
+            long bytes = 0;
+            int files = 0;
+            List<String> thumbs = new ArrayList<>();
+
             try {
-                LOGGER.info("download media package for {}...", job.getId());
+                Files.createDirectories(mediaStorePath);
+                Files.createDirectories(thumbStorePath);
+                Files.createDirectories(subtStorePath);
+
+                URL website = new URL(SERVER_ADDRESS + new MessageFormat(CONVERTER_DOWNLOAD_PATH, Locale.ROOT)
+                    .format(new Object[] { job.getId().replaceAll(" ", "%20") }));
+
+                try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(website.openStream()))) {
+                    ZipEntry entry;
+                    while ((entry = zis.getNextEntry()) != null) {
+                        if (entry.isDirectory()) {
+                            continue;
+                        }
 
-                Path tmpFile = Files.createTempDirectory("media").resolve(job.getId() + ".zip");
-                try {
-                    URL website = new URL(SERVER_ADDRESS + new MessageFormat(CONVERTER_DOWNLOAD_PATH, Locale.ROOT)
-                        .format(new Object[] { job.getId().replaceAll(" ", "%20") }));
-                    ReadableByteChannel rbc = Channels.newChannel(website.openStream());
+                        String fileName = entry.getName();
+                        Path storePath;
+                        if (CP_MEDIA_FILE_EXT.stream().anyMatch(fileName::endsWith)) {
+                            storePath = mediaStorePath;
+                        } else if (CP_THUMB_FILE_EXT.stream().anyMatch(fileName::endsWith)) {
+                            storePath = thumbStorePath;
+                        } else if (CP_SUBT_FILE_EXT.stream().anyMatch(fileName::endsWith)) {
+                            storePath = subtStorePath;
+                        } else {
+                            continue;
+                        }
 
-                    try (FileOutputStream fos = new FileOutputStream(tmpFile.toFile())) {
-                        fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
-                    }
+                        Path target = storePath.resolve(fileName.replaceFirst("^/+", "")).normalize();
+                        if (!target.startsWith(storePath)) {
+                            LOGGER.warn("skip entry {} outside of {}", fileName, storePath);
+                            continue;
+                        }
 
-                    String internalId = buildInternalId(job.getId());
-                    Path mediaStorePath = MEDIA_STORAGE_PATH.resolve(internalId);
-                    Path thumbStorePath = THUMB_STORAGE_PATH.resolve(internalId);
-                    Path subtStorePath = SUBT_STORAGE_PATH.resolve(internalId);
+                        LOGGER.info("extract {} to {}", fileName, target);
+                        bytes += extract(zis, target);
+                        files++;
 
-                    if (Files.notExists(mediaStorePath)) {
-                        Files.createDirectories(mediaStorePath);
+                        if (storePath == thumbStorePath) {
+                            thumbs.add(thumbStorePath.relativize(target).toString());
+                        }
                     }
+                }
+            } catch (IOException e) {
+                throw new MCRException(e);
+            }
 
-                    if (Files.notExists(thumbStorePath)) {
-                        Files.createDirectories(thumbStorePath);
-                    }
+            logThroughput(files, bytes, System.nanoTime() - start);
 
-                    if (Files.notExists(subtStorePath)) {
-                        Files.createDirectories(subtStorePath);
-                    }
+            if (containsMediaFiles(mediaStorePath)) {
+                synchronized (MEDIA_INDEX) {
+                    MEDIA_INDEX.add(internalId);
+                }
+            }
 
-                    Map<String, String> env = new HashMap<>();
-                    env.put("create", "false");
-
-                    URI zipUri = URI.create("jar:" + tmpFile.toFile().toURI());
-                    try (FileSystem fs = FileSystems.newFileSystem(zipUri, env)) {
-                        Path root = fs.getPath("/");
-                        try (Stream<Path> zfs = Files.walk(root)) {
-                            zfs.filter(p -> Optional.ofNullable(p.getFileName())
-                                    .map(fn -> CP_MEDIA_FILE_EXT.stream().anyMatch(ext -> fn.toString().endsWith(ext)))
-                                    .orElse(false))
-                                .forEach(p -> {
-                                    try {
-                                        LOGGER.info("copy media file {} to {}", p,
-                                            mediaStorePath.resolve(root.relativize(p).toString()));
-                                        Files.copy(p, mediaStorePath.resolve(root.relativize(p).toString()),
-                                            StandardCopyOption.REPLACE_EXISTING);
-                                    } catch (IOException e) {
-                                        throw new UncheckedIOException(e);
-                                    }
-                                });
-                        }
+            removeJob();
 
-                        try (Stream<Path> zfs = Files.walk(root)) {
-                            zfs.filter(p -> Optional.ofNullable(p.getFileName())
-                                    .map(fn -> CP_THUMB_FILE_EXT.stream().anyMatch(ext -> fn.toString().endsWith(ext)))
-                                    .orElse(false))
-                                .forEach(p -> {
-                                    try {
-                                        LOGGER.info("copy thumb {} to {}", p,
-                                            thumbStorePath.resolve(root.relativize(p).toString()));
-                                        Files.copy(p, thumbStorePath.resolve(root.relativize(p).toString()),
-                                            StandardCopyOption.REPLACE_EXISTING);
-                                    } catch (IOException e) {
-                                        throw new UncheckedIOException(e);
-                                    }
-                                });
-                        }
+            MediaService.MEDIA_FILES_CACHE.remove(internalId);
+            MediaService.THUMB_FILES_CACHE.remove(internalId);
+            MediaService.SUBT_FILES_CACHE.remove(internalId);
 
-                        try (Stream<Path> zfs = Files.walk(root)) {
-                            zfs.filter(p -> Optional.ofNullable(p.getFileName())
-                                    .map(fn -> CP_SUBT_FILE_EXT.stream().anyMatch(ext -> fn.toString().endsWith(ext)))
-                                    .orElse(false))
-                                .forEach(p -> {
-                                    try {
-                                        LOGGER.info("copy subtitle {} to {}", p,
-                                            subtStorePath.resolve(root.relativize(p).toString()));
-                                        Files.copy(p, subtStorePath.resolve(root.relativize(p).toString()),
-                                            StandardCopyOption.REPLACE_EXISTING);
-                                    } catch (IOException e) {
-                                        throw new UncheckedIOException(e);
-                                    }
-                                });
-                        }
-                    }
+            scaleThumbs(internalId, thumbs);
+        }
 
-                    removeJob();
+        /**
+         * Writes the current zip entry to a temporary file next to the target and renames it afterwards, so that
+         * a partly written file never becomes visible under the target name.
+         */
+        private static long extract(ZipInputStream zis, Path target) throws IOException {
+            Files.createDirectories(target.getParent());
 
-                    MediaService.MEDIA_FILES_CACHE.remove(internalId);
-                    MediaService.THUMB_FILES_CACHE.remove(internalId);
-                    MediaService.SUBT_FILES_CACHE.remove(internalId);
-                } catch (Exception e) {
-                    throw new MCRException(e);
-                } finally {
-                    Files.delete(tmpFile);
+            Path tmpFile = Files.createTempFile(target.getParent(), "." + target.getFileName().toString(), ".part");
+            try {
+                long size = Files.copy(zis, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+                try {
+                    Files.move(tmpFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING);
                 }
-            } catch (IOException e) {
-                throw new MCRException(e);
+                return size;
+            } finally {
+                Files.deleteIfExists(tmpFile);
             }
         }
 
+        private void logThroughput(int files, long bytes, long nanos) {
+            double seconds = Math.max(nanos, 1L) / 1e9;
+            double mbPerSecond = bytes / seconds / (1024 * 1024);
+
+            EXTRACTED_PACKAGES.increment();
+            EXTRACTED_BYTES.add(bytes);
+
+            TASK_COLLECTION.setProperty("extracted packages", EXTRACTED_PACKAGES.sum());
+            TASK_COLLECTION.setProperty("extracted bytes", EXTRACTED_BYTES.sum());
+            TASK_COLLECTION.setProperty("last package throughput (MB/s)",
+                String.format(Locale.ROOT, "%.2f", mbPerSecond));
+
+            LOGGER.info("extracted {} files ({} bytes) of {} in {} s ({} MB/s).", files, bytes, job.getId(),
+                String.format(Locale.ROOT, "%.1f", seconds), String.format(Locale.ROOT, "%.2f", mbPerSecond));
+        }
+
         private void removeJob() {
             Client client = ClientBuilder.newBuilder().build();
 
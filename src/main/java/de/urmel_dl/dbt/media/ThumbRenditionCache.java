@@ -0,0 +1,275 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen
+ * Copyright (C) 2000-2017
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.media;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * A disk backed cache of scaled thumbnails.
+ *
+ * Renditions are stored below the cache directory and evicted least recently used if the configured size is
+ * exceeded. Concurrent requests for the same rendition wait for a single scaling.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ */
+public class ThumbRenditionCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String PART_EXTENSION = ".part";
+
+    private final Path dir;
+
+    private final String format;
+
+    private final Cache<String, Path> cache;
+
+    /**
+     * Creates a new cache in the given directory. Left over renditions of a former cache in this directory are
+     * removed.
+     *
+     * @param dir the cache directory
+     * @param maxSize the max. size of all renditions in bytes
+     * @param format the image format of the renditions
+     */
+    public ThumbRenditionCache(Path dir, long maxSize, String format) {
+        this.dir = dir;
+        this.format = format;
+        final int maxWeight = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxSize / 1024));
+        // a single segment, otherwise the max. size is split up between segments, and the latest rendition always
+        // fits, so it isn't removed before it was delivered
+        this.cache = CacheBuilder.newBuilder()
+            .concurrencyLevel(1)
+            .maximumWeight(maxWeight)
+            .<String, Path>weigher((key, file) -> Math.min(maxWeight, weigh(file)))
+            .removalListener(this::onRemoval)
+            .recordStats()
+            .build();
+
+        cleanUp();
+    }
+
+    /**
+     * Returns the rendition of the thumbnail with the given size, the thumbnail is scaled if the rendition isn't
+     * cached.
+     *
+     * @param id the internal id
+     * @param fileName the file name of the thumbnail
+     * @param source the thumbnail
+     * @param width the width or <code>-1</code> to scale by height
+     * @param height the height or <code>-1</code> to scale by width
+     * @return the rendition
+     * @throws IOException thrown if the thumbnail couldn't scaled
+     */
+    public Path get(String id, String fileName, Path source, int width, int height) throws IOException {
+        final Path target = dir.resolve(id).resolve(fileName).resolveSibling(renditionName(fileName, width, height))
+            .normalize();
+        if (!target.startsWith(dir.resolve(id))) {
+            throw new IllegalArgumentException("Invalid file name " + fileName + ".");
+        }
+
+        try {
+            return cache.get(dir.relativize(target).toString(), () -> write(source, target, width, height));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Couldn't scale " + source + ".", e.getCause());
+        }
+    }
+
+    /**
+     * Removes all renditions of the given id.
+     *
+     * @param id the internal id
+     */
+    public void invalidate(String id) {
+        final String prefix = dir.relativize(dir.resolve(id)).toString() + dir.getFileSystem().getSeparator();
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Removes all renditions.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the number of cached renditions.
+     *
+     * @return the number of renditions
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return the statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Scales the image to the given size. Images are halved until they are less than twice the target size, so that
+     * bilinear interpolation takes all source pixels into account.
+     *
+     * @param img the image
+     * @param width the width or <code>-1</code> to scale by height
+     * @param height the height or <code>-1</code> to scale by width
+     * @return the scaled image
+     */
+    static BufferedImage scale(BufferedImage img, int width, int height) {
+        double ratio = Double.max((double) width / (double) img.getWidth(), (double) height / (double) img.getHeight());
+
+        final int finalh = Math.max(1, (int) (img.getHeight() * ratio));
+        final int finalw = Math.max(1, (int) (img.getWidth() * ratio));
+
+        BufferedImage current = img;
+        int w = img.getWidth();
+        int h = img.getHeight();
+        do {
+            w = w > finalw * 2 ? w / 2 : finalw;
+            h = h > finalh * 2 ? h / 2 : finalh;
+            current = draw(current, w, h);
+        } while (w != finalw || h != finalh);
+
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage img, int width, int height) {
+        BufferedImage resizedImg = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = resizedImg.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2.drawImage(img, 0, 0, width, height, null);
+        g2.dispose();
+
+        return resizedImg;
+    }
+
+    private Path write(Path source, Path target, int width, int height) throws IOException {
+        final BufferedImage img = ImageIO.read(source.toFile());
+        if (img == null) {
+            throw new IOException("Unsupported image " + source + ".");
+        }
+
+        Files.createDirectories(target.getParent());
+        Path part = Files.createTempFile(target.getParent(), "." + target.getFileName().toString(), PART_EXTENSION);
+        try {
+            if (!ImageIO.write(scale(img, width, height), format.toUpperCase(Locale.ROOT), part.toFile())) {
+                throw new IOException("Unsupported image format " + format + ".");
+            }
+
+            try {
+                Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            LOGGER.info("scaled: {}", target);
+            return target;
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    private String renditionName(String fileName, int width, int height) {
+        final String name = Optional.ofNullable(Path.of(fileName).getFileName()).map(Path::toString).orElse(fileName);
+        return Optional.of(name.lastIndexOf(".")).filter(o -> o != -1).map(o -> name.substring(0, o))
+            .orElse(name) + "-" + (width > 0 ? Integer.toString(width) + "w" : "")
+            + (height > 0 ? Integer.toString(height) + "h" : "") + "." + format.toLowerCase(Locale.ROOT);
+    }
+
+    private void onRemoval(RemovalNotification<String, Path> notification) {
+        try {
+            Files.deleteIfExists(notification.getValue());
+        } catch (IOException e) {
+            LOGGER.warn("Couldn't delete rendition {}.", notification.getValue(), e);
+        }
+    }
+
+    private void cleanUp() {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        final Pattern rendition = Pattern.compile(".+-(\\d+w)?(\\d+h)?\\."
+            + Pattern.quote(format.toLowerCase(Locale.ROOT)) + "|\\..+" + Pattern.quote(PART_EXTENSION));
+        try (Stream<Path> walk = Files.walk(dir, FileVisitOption.FOLLOW_LINKS)) {
+            walk.filter(p -> !p.equals(dir)).sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    if (Files.isDirectory(p)) {
+                        Files.delete(p);
+                    } else if (rendition.matcher(p.getFileName().toString()).matches()) {
+                        Files.delete(p);
+                    }
+                } catch (DirectoryNotEmptyException e) {
+                    // contains other files
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.warn("Couldn't clean up rendition cache directory {}.", dir, e);
+        }
+    }
+
+    private static int weigh(Path file) {
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, Files.size(file) / 1024 + 1);
+        } catch (IOException e) {
+            return 1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ThumbRenditionCache [dir=" + dir + ", size=" + cache.size() + ", stats=" + cache.stats() + "]";
+    }
+}
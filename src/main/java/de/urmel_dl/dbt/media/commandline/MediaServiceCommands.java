@@ -191,6 +191,22 @@ public class MediaServiceCommands extends MCRAbstractCommands {
         MediaService.encodeMediaFile(derivateRoot.getOwner() + "_" + fileName, mediaFile, 0, language);
     }
 
+    @MCRCommand(syntax = "show media file cache statistics",
+        help = "shows the hit and miss counters of the media, thumb and subtitle file caches and the thumb renditions",
+        order = 30)
+    public static void showFileCacheStatistics() {
+        MediaService.getFileCaches().forEach(c -> LOGGER.info("{} (watching filesystem: {})", c, c.isWatching()));
+        LOGGER.info("{}", MediaService.getThumbRenditionCache());
+    }
+
+    @MCRCommand(syntax = "rebuild media index",
+        help = "rebuilds the index of encoded media files from the media storage, only in the running JVM;"
+            + " run it through the web CLI to update the index of the web application",
+        order = 31)
+    public static void rebuildMediaIndex() {
+        LOGGER.info("Media index contains {} ids.", MediaService.rebuildMediaIndex());
+    }
+
     private static List<String> forAllDerivates(String batchCommandSyntax) {
         List<String> ids = MCRXMLMetadataManager.instance().listIDsOfType("derivate");
         List<String> cmds = new ArrayList<>(ids.size());
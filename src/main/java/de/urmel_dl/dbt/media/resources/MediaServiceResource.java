@@ -18,26 +18,27 @@
  */
 package de.urmel_dl.dbt.media.resources;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.io.RandomAccessFile;
-import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.Date;
-import java.util.Locale;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.mycore.common.MCRSession;
 import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.common.content.MCRContent;
 import org.mycore.common.content.MCRJDOMContent;
 import org.mycore.common.content.transformer.MCRXSLTransformer;
@@ -51,6 +52,7 @@ import de.urmel_dl.dbt.media.entity.Sources;
 import de.urmel_dl.dbt.utils.EntityFactory;
 import de.urmel_dl.dbt.utils.MimeType;
 import de.urmel_dl.dbt.utils.RangeStreamingOutput;
+import de.urmel_dl.dbt.utils.RangeStreamingOutput.Range;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
@@ -61,9 +63,12 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.ResponseBuilder;
 import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.xml.bind.JAXBException;
 
@@ -76,7 +81,8 @@ public class MediaServiceResource {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
-    private static final Pattern RANGE_PATTERN = Pattern.compile("([^=]+)=(\\d+)(?:-(\\d+)?)");
+    private static final int STREAM_CHUNK_SIZE = MCRConfiguration2
+        .getInt(MediaService.CONFIG_PREFIX + "StreamChunkSize").orElse(1024 * 1024);
 
     @POST
     @Path("completeCallback")
@@ -117,12 +123,12 @@ public class MediaServiceResource {
     @GET
     @Path("thumb/{id:.+}/{fileName:.+}")
     @Produces("*/*")
-    public Response thumb(@PathParam("id") String id,
+    public Response thumb(@Context Request request, @PathParam("id") String id,
         @PathParam("fileName") String fileName) throws Exception {
 
         java.nio.file.Path file = MediaService.getThumbFile(id, fileName);
         if (file != null) {
-            return buildStream(file, null);
+            return buildStream(request, file);
         } else {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
@@ -131,7 +137,7 @@ public class MediaServiceResource {
     @GET
     @Path("thumb/{id:.+}/{fileName:.+}/{width:[^:]+}{height:(:(.*)?)?}")
     @Produces("*/*")
-    public Response thumb(@PathParam("id") String id,
+    public Response thumb(@Context Request request, @PathParam("id") String id,
         @PathParam("fileName") String fileName, @PathParam("width") String width,
         @PathParam("height") String height) throws Exception {
         java.nio.file.Path file = MediaService.getThumbFile(id, fileName,
@@ -139,7 +145,7 @@ public class MediaServiceResource {
             Optional.ofNullable(height.replaceAll(":", "")).filter(s -> !s.isEmpty()).map(Integer::parseInt)
                 .orElse(-1));
         if (file != null) {
-            return buildStream(file, null);
+            return buildStream(request, file);
         } else {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
@@ -148,12 +154,12 @@ public class MediaServiceResource {
     @GET
     @Path("subtitle/{id:.+}/{fileName:.+}")
     @Produces("*/*")
-    public Response subtitle(@PathParam("id") String id,
+    public Response subtitle(@Context Request request, @PathParam("id") String id,
         @PathParam("fileName") String fileName) throws Exception {
         java.nio.file.Path file = MediaService.getSubtitleFile(id, fileName);
 
         if (file != null) {
-            return buildStream(file, null);
+            return buildStream(request, file);
         } else {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
@@ -161,11 +167,12 @@ public class MediaServiceResource {
 
     @HEAD
     @Path("progressiv/{id:.+}/{fileName:.+}")
-    public Response progressivDownloadHeader(@PathParam("id") String id, @PathParam("fileName") String fileName) {
+    public Response progressivDownloadHeader(@Context Request request, @HeaderParam("Range") String range,
+        @HeaderParam("If-Range") String ifRange, @PathParam("id") String id, @PathParam("fileName") String fileName)
+        throws Exception {
         java.nio.file.Path path = MediaService.getMediaFile(id, fileName);
         if (path != null) {
-            return Response.ok().status(Response.Status.PARTIAL_CONTENT)
-                .header(HttpHeaders.CONTENT_LENGTH, path.toFile().length()).build();
+            return buildStream(request, path, range, ifRange, true);
         } else {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
@@ -174,11 +181,12 @@ public class MediaServiceResource {
     @GET
     @Path("progressiv/{id:.+}/{fileName:.+}")
     @Produces("*/*")
-    public Response progressivDownload(@HeaderParam("Range") String range, @PathParam("id") String id,
-        @PathParam("fileName") String fileName) throws Exception {
+    public Response progressivDownload(@Context Request request, @HeaderParam("Range") String range,
+        @HeaderParam("If-Range") String ifRange, @PathParam("id") String id, @PathParam("fileName") String fileName)
+        throws Exception {
         java.nio.file.Path path = MediaService.getMediaFile(id, fileName);
         if (path != null) {
-            return buildStream(path, range);
+            return buildStream(request, path, range, ifRange, false);
         } else {
             LOGGER.error("download path was empty.");
             return Response.status(Response.Status.NOT_FOUND).build();
@@ -195,48 +203,78 @@ public class MediaServiceResource {
         return transformedResponse(media, "xsl/media/embed.xsl", Collections.emptyMap());
     }
 
-    private Response buildStream(final java.nio.file.Path asset, final String range) throws Exception {
+    private Response buildStream(final Request request, final java.nio.file.Path asset) throws IOException {
+        return buildStream(request, asset, null, null, false);
+    }
+
+    private Response buildStream(final Request request, final java.nio.file.Path asset, final String range,
+        final String ifRange, final boolean headOnly) throws IOException {
+        if (!Files.isRegularFile(asset)) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        final BasicFileAttributes attrs = Files.readAttributes(asset, BasicFileAttributes.class);
+        final long fileLength = attrs.size();
+        // HTTP dates have a precision of seconds
+        final Date lastModified = new Date(attrs.lastModifiedTime().to(TimeUnit.SECONDS) * 1000);
+        final EntityTag eTag = new EntityTag(Long.toHexString(attrs.lastModifiedTime().toMillis()) + "-"
+            + Long.toHexString(fileLength));
+
+        ResponseBuilder rb = request.evaluatePreconditions(lastModified, eTag);
+        if (rb != null) {
+            return rb.build();
+        }
+
         final String mimeType = MimeType.detect(asset);
+        final List<Range> ranges = isIfRangeMatching(ifRange, eTag, lastModified)
+            ? RangeStreamingOutput.parseRanges(range, fileLength) : null;
 
-        return Stream.of(RANGE_PATTERN.matcher(Optional.ofNullable(range).orElse("")))
-            .filter(rm -> rm.find()).findFirst()
-            .map(rm -> {
-                try {
-                    final File assetFile = asset.toFile();
-                    final long from = Long.parseLong(rm.group(2));
-                    final long to = Optional.ofNullable(rm.group(3)).map(Long::parseLong)
-                        .orElse(assetFile.length() - 1);
-
-                    final String responseRange = String.format(Locale.ROOT, "bytes %d-%d/%d", from, to,
-                        assetFile.length());
-                    final RandomAccessFile raf = new RandomAccessFile(assetFile, "r");
-                    raf.seek(from);
-
-                    final long len = to - from + 1;
-                    final RangeStreamingOutput streamer = new RangeStreamingOutput(len, raf);
-
-                    return Response.ok(streamer, mimeType)
-                        .status(Response.Status.PARTIAL_CONTENT)
-                        .header("Accept-Ranges", "bytes")
-                        .header("Content-Range", responseRange)
-                        .header(HttpHeaders.CONTENT_LENGTH, streamer.getLenth())
-                        .header(HttpHeaders.LAST_MODIFIED, new Date(assetFile.lastModified())).build();
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            }).orElseGet(() -> {
-                final StreamingOutput streamer = output -> {
-                    byte[] data = Files.readAllBytes(asset);
-                    output.write(data);
-                    output.flush();
-                };
-
-                return Response
-                    .ok(streamer, mimeType)
-                    .header("content-disposition",
-                        "inline; filename = \"" + asset.getFileName().toString() + "\"")
-                    .build();
-            });
+        final RangeStreamingOutput streamer;
+        if (ranges == null) {
+            streamer = new RangeStreamingOutput(asset, fileLength, mimeType, STREAM_CHUNK_SIZE);
+            rb = Response.ok().header("Content-Disposition",
+                "inline; filename = \"" + asset.getFileName().toString() + "\"");
+        } else if (ranges.isEmpty()) {
+            return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header("Content-Range", "bytes */" + fileLength).build();
+        } else {
+            streamer = new RangeStreamingOutput(asset, fileLength, ranges, mimeType, STREAM_CHUNK_SIZE);
+            rb = Response.status(Response.Status.PARTIAL_CONTENT);
+            if (ranges.size() == 1) {
+                rb.header("Content-Range", ranges.get(0).toContentRange(fileLength));
+            }
+        }
+
+        return rb.entity(headOnly ? null : streamer)
+            .type(streamer.getContentType())
+            .header("Accept-Ranges", "bytes")
+            .header(HttpHeaders.CONTENT_LENGTH, streamer.getLength())
+            .lastModified(lastModified)
+            .tag(eTag)
+            .build();
+    }
+
+    /**
+     * Checks the <code>If-Range</code> validator against the current entity. Only strong validators can match.
+     */
+    private static boolean isIfRangeMatching(final String ifRange, final EntityTag eTag, final Date lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+
+        final String validator = ifRange.trim();
+        if (validator.startsWith("\"")) {
+            return validator.equals("\"" + eTag.getValue() + "\"");
+        } else if (validator.startsWith("W/")) {
+            return false;
+        }
+
+        try {
+            return ZonedDateTime.parse(validator, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()
+                .equals(lastModified.toInstant());
+        } catch (DateTimeParseException e) {
+            return false;
+        }
     }
 
     private <T> Response transformedResponse(T entity, String stylesheet, Map<String, String> parameters) {
@@ -17,23 +17,44 @@
  */
 package de.urmel_dl.dbt.opc;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.ProtocolException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpResponse.BodySubscribers;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
@@ -46,9 +67,12 @@ import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
+import org.mycore.common.config.MCRConfiguration2;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import de.urmel_dl.dbt.opc.datamodel.IKT;
 import de.urmel_dl.dbt.opc.datamodel.IKTList;
@@ -57,6 +81,7 @@ import de.urmel_dl.dbt.opc.datamodel.pica.PPSubField;
 import de.urmel_dl.dbt.opc.datamodel.pica.Record;
 import de.urmel_dl.dbt.opc.datamodel.pica.Result;
 import de.urmel_dl.dbt.opc.utils.PicaCharDecoder;
+import de.urmel_dl.dbt.opc.utils.PicaPlusParser;
 
 /**
  * The PICA OPC Connector based on hidden XML interface and the plain PICA+ output.
@@ -76,8 +101,30 @@ public class OPCConnector {
 
     private static final int MAX_REDIRECTS = 100;
 
+    private static final int DEFAULT_MAX_PARALLEL_READS = MCRConfiguration2.getInt("DBT.OPC.MaxParallelReads")
+        .orElse(4);
+
+    private static final int DEFAULT_REQUEST_TIMEOUT = MCRConfiguration2.getInt("DBT.OPC.RequestTimeout")
+        .orElse(60000);
+
+    /**
+     * Shared HTTP clients for plain http, one per connection timeout, to reuse pooled keep-alive connections.
+     */
+    private static final Map<Integer, HttpClient> HTTP_CLIENTS = new ConcurrentHashMap<>();
+
+    /**
+     * Shared HTTP clients for https, which negotiate HTTP/2 if the server supports it.
+     */
+    private static final Map<Integer, HttpClient> HTTPS_CLIENTS = new ConcurrentHashMap<>();
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+        new ThreadFactoryBuilder().setNameFormat("OPCConnector-#%d").setDaemon(true).build());
+
+    private static final SSLContext SSL_CONTEXT;
+
     static {
         CACHE = CacheBuilder.newBuilder().maximumSize(10000).expireAfterWrite(10, TimeUnit.MINUTES).build();
+        SSL_CONTEXT = trustAllContext();
     }
 
     private String db;
@@ -90,6 +137,12 @@ public class OPCConnector {
 
     private int connectionTimeout = 10000;
 
+    private int requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+
+    private int maxParallelReads = DEFAULT_MAX_PARALLEL_READS;
+
+    private RateLimiter rateLimiter;
+
     /**
      * Creates a new OPC connection.
      *
@@ -225,6 +278,60 @@ public class OPCConnector {
         return connectionTimeout;
     }
 
+    /**
+     * Set the timeout of a single request until its response is received.
+     *
+     * @param requestTimeout the request timeout in milliseconds
+     */
+    public void setRequestTimeout(final int requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Return the set request timeout.
+     *
+     * @return the request timeout in milliseconds
+     */
+    public int getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Set the number of result pages or records that were read in parallel.
+     *
+     * @param maxParallelReads the number of parallel reads
+     */
+    public void setMaxParallelReads(final int maxParallelReads) {
+        this.maxParallelReads = Math.max(1, maxParallelReads);
+    }
+
+    /**
+     * Return the number of result pages or records that were read in parallel.
+     *
+     * @return the number of parallel reads
+     */
+    public int getMaxParallelReads() {
+        return maxParallelReads;
+    }
+
+    /**
+     * Set the rate limiter for requests to the OPC. Requests wait for a permit, cached results aren't limited.
+     *
+     * @param rateLimiter the rate limiter or <code>null</code> for unlimited requests
+     */
+    public void setRateLimiter(final RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Return the rate limiter for requests to the OPC.
+     *
+     * @return the rate limiter or <code>null</code> if requests are unlimited
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
     /**
      * Returns the list of IKTs for the OPC.
      *
@@ -356,12 +463,7 @@ public class OPCConnector {
 
             final Result result = new Result(this);
 
-            List<Element> titElements = entry.getChildren("SHORTTITLE");
-            for (Element titElement : titElements) {
-                if (titElement.getAttributeValue("PPN") != null) {
-                    result.addRecord(new Record(titElement.getAttributeValue("PPN")));
-                }
-            }
+            parseShortTitles(entry).forEach(result::addRecord);
 
             if (hits > this.maxread) {
                 final int nums = (int) Math.floor(hits / this.maxread + (double) (hits % this.maxread > 0 ? 1 : 0));
@@ -380,6 +482,10 @@ public class OPCConnector {
                 }
                 sessionpart = buf.toString();
 
+                // read the remaining parts of the session in parallel and add them in order
+                final Semaphore permits = new Semaphore(this.maxParallelReads);
+                final List<CompletableFuture<List<Record>>> parts = new ArrayList<>(nums - 1);
+
                 int pos = 1;
                 for (int rc = 1; rc < nums; ++rc) {
                     pos += this.maxread;
@@ -388,19 +494,15 @@ public class OPCConnector {
 
                     final URL pageURL = new URL(this.url + sessionpart + "/XML=1.0/NXT?FRST=" + pos + "&SHRTST="
                         + this.maxread + "&NORND=ON");
-                    final Document doc = new SAXBuilder().build(readContentFromUrl(pageURL));
-
-                    entries = doc.getRootElement().getChildren("SET");
-                    if (entries.size() == 1) {
-                        entry = entries.get(0);
-
-                        titElements = entry.getChildren("SHORTTITLE");
-                        for (Element titElement : titElements) {
-                            if (titElement.getAttributeValue("PPN") != null) {
-                                result.addRecord(new Record(titElement.getAttributeValue("PPN")));
-                            }
-                        }
-                    }
+
+                    acquire(permits);
+                    parts.add(sendAsync(toURI(pageURL), BodyHandlers.ofByteArray())
+                        .thenApply(response -> parsePage(response.body()))
+                        .whenComplete((records, e) -> permits.release()));
+                }
+
+                for (CompletableFuture<List<Record>> part : parts) {
+                    join(part).forEach(result::addRecord);
                 }
             } else {
                 LOGGER.info(" ...found " + hits + " entries");
@@ -412,16 +514,26 @@ public class OPCConnector {
         return new Result(this);
     }
 
-    private String getPicaPlus(final String PPN) throws ExecutionException {
-        final URL url = this.url;
-        final String db = this.db;
-
-        String ppraw = (String) CACHE.get(generateCacheKey("raw_" + PPN),
-            () -> readWebPageFromUrl(url + "/DB=" + db + "/PPN?PLAIN=ON&PPN=" + PPN));
-
-        LOGGER.debug("\n" + PicaCharDecoder.asHexString(ppraw));
+    private static List<Record> parsePage(final byte[] page) {
+        try {
+            final List<Element> entries = new SAXBuilder().build(new ByteArrayInputStream(page)).getRootElement()
+                .getChildren("SET");
+            return entries.size() == 1 ? parseShortTitles(entries.get(0)) : new ArrayList<>();
+        } catch (JDOMException e) {
+            throw new CompletionException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        return ppraw;
+    private static List<Record> parseShortTitles(final Element entry) {
+        final List<Record> records = new ArrayList<>();
+        for (Element titElement : entry.getChildren("SHORTTITLE")) {
+            if (titElement.getAttributeValue("PPN") != null) {
+                records.add(new Record(titElement.getAttributeValue("PPN")));
+            }
+        }
+        return records;
     }
 
     /**
@@ -432,46 +544,33 @@ public class OPCConnector {
      * @throws ExecutionException if cache couldn't generated
      */
     public List<PPField> getPPFields(final String PPN) throws ExecutionException {
-        final String ppraw = getPicaPlus(PPN);
-
-        if (ppraw != null) {
-            final String[] pp = ppraw.split("\036");
-
-            if (pp.length > 1) {
-                final List<PPField> fields = new ArrayList<>();
-
-                for (int c = 0; c < pp.length; ++c) {
-                    final String[] line = pp[c].split(" ", 2);
-
-                    if (line.length == 2) {
-                        final PPField ppField = new PPField();
-
-                        final String[] field = line[0].split("/", 2);
-                        if (field.length == 2) {
-                            ppField.setTag(field[0]);
-                            ppField.setOccurrence(field[1]);
-                        } else {
-                            ppField.setTag(field[0]);
-                        }
-
-                        final Pattern p = Pattern.compile("\037([a-zA-Z0-9])([^\037]+)");
-                        final Matcher matcher = p.matcher(line[1]);
-                        while (matcher.find()) {
-                            final PPSubField ppSubfield = new PPSubField();
-                            ppSubfield.setCode(matcher.group(1));
-                            ppSubfield.setContent(PicaCharDecoder.decode(matcher.group(2)));
-                            ppField.addSubfield(ppSubfield);
-                        }
-
-                        fields.add(ppField);
-                    }
-                }
+        final URL url = this.url;
+        final String db = this.db;
 
-                return fields;
-            }
+        @SuppressWarnings("unchecked")
+        final Optional<List<PPField>> fields = (Optional<List<PPField>>) CACHE.get(generateCacheKey("pp_" + PPN),
+            () -> Optional.ofNullable(readPicaPlusFromUrl(url + "/DB=" + db + "/PPN?PLAIN=ON&PPN=" + PPN)));
+
+        // the cached list is shared, so return a copy of it
+        return fields.map(ArrayList::new).orElse(null);
+    }
+
+    /**
+     * Parses the raw PICA+ record into a list of {@link PPField}.
+     *
+     * @param ppraw the raw PICA+ record
+     * @return a list of PICA+ fields or <code>null</code> if record was empty
+     */
+    static List<PPField> parsePPFields(final String ppraw) {
+        if (ppraw == null) {
+            return null;
         }
 
-        return null;
+        try {
+            return new PicaPlusParser(new StringReader(ppraw)).parse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
@@ -492,6 +591,67 @@ public class OPCConnector {
         return record;
     }
 
+    /**
+     * Return a list of {@link Record#Record()} in the order of the given PPNs. Records that are already cached are
+     * taken from the cache, the others are read in parallel (see {@link #setMaxParallelReads(int)}).
+     *
+     * @param PPNs the PPNs
+     * @return a list of records, with <code>null</code> for a PPN that couldn't be found or read
+     * @throws ExecutionException if interrupted while waiting for the records
+     */
+    public List<Record> getRecords(final Collection<String> PPNs) throws ExecutionException {
+        final Map<String, CompletableFuture<List<PPField>>> lookups = new HashMap<>();
+        final Semaphore permits = new Semaphore(this.maxParallelReads);
+
+        try {
+            for (String PPN : PPNs) {
+                if (lookups.containsKey(PPN)) {
+                    continue;
+                }
+
+                final Object cached = CACHE.getIfPresent(generateCacheKey("pp_" + PPN));
+                if (cached != null) {
+                    lookups.put(PPN, CompletableFuture.completedFuture(getPPFields(PPN)));
+                    continue;
+                }
+
+                acquire(permits);
+                lookups.put(PPN, CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return getPPFields(PPN);
+                    } catch (ExecutionException e) {
+                        throw new CompletionException(e.getCause());
+                    }
+                }, EXECUTOR).whenComplete((fields, e) -> permits.release()));
+            }
+
+            final List<Record> records = new ArrayList<>(PPNs.size());
+            for (String PPN : PPNs) {
+                List<PPField> fields = null;
+                try {
+                    fields = join(lookups.get(PPN));
+                } catch (InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    LOGGER.warn("Couldn't read record for PPN " + PPN + ".", e);
+                }
+
+                if (fields == null || fields.isEmpty()) {
+                    records.add(null);
+                } else {
+                    final Record record = new Record(this, PPN);
+                    record.setFields(new ArrayList<>(fields));
+                    records.add(record);
+                }
+            }
+
+            return records;
+        } catch (IOException e) {
+            lookups.values().forEach(lookup -> lookup.cancel(true));
+            throw new ExecutionException(e);
+        }
+    }
+
     /**
      * Returns the PPN from given barcode.
      *
@@ -645,83 +805,149 @@ public class OPCConnector {
         return null;
     }
 
-    private HttpURLConnection buildConnection(final URL url) throws IOException {
-        return buildConnection(url, null);
+    private HttpClient httpClient(final URI uri) {
+        // HTTP/2 only over TLS, where it is negotiated with ALPN instead of a h2c upgrade
+        if ("https".equalsIgnoreCase(uri.getScheme())) {
+            return HTTPS_CLIENTS.computeIfAbsent(this.connectionTimeout,
+                timeout -> buildHttpClient(HttpClient.Version.HTTP_2, timeout));
+        }
+        return HTTP_CLIENTS.computeIfAbsent(this.connectionTimeout,
+            timeout -> buildHttpClient(HttpClient.Version.HTTP_1_1, timeout));
     }
 
-    private HttpURLConnection buildConnection(final URL url, final String cookies) throws IOException {
-        return buildConnection(url, cookies, 0);
+    private static HttpClient buildHttpClient(final HttpClient.Version version, final int connectionTimeout) {
+        final HttpClient.Builder builder = HttpClient.newBuilder()
+            .version(version)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofMillis(connectionTimeout));
+        if (SSL_CONTEXT != null) {
+            builder.sslContext(SSL_CONTEXT);
+        }
+        return builder.build();
     }
 
-    private HttpURLConnection buildConnection(final URL url, final String cookies, int numRedirects)
-        throws IOException {
-        LOGGER.debug("Open URL: " + url.toExternalForm());
-
-        HttpURLConnection urlConn = (HttpURLConnection) url.openConnection();
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(final URI uri, final BodyHandler<T> bodyHandler) {
+        if (rateLimiter != null) {
+            rateLimiter.acquire();
+        }
+        return sendAsync(uri, bodyHandler, null, 0);
+    }
 
-        urlConn.setConnectTimeout(this.connectionTimeout);
-        urlConn.setInstanceFollowRedirects(false);
-        urlConn.setDoInput(true);
-        urlConn.setUseCaches(false);
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(final URI uri, final BodyHandler<T> bodyHandler,
+        final String cookies, final int numRedirects) {
+        LOGGER.debug("Open URL: " + uri);
 
+        final HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET()
+            .timeout(Duration.ofMillis(this.requestTimeout));
         if (cookies != null) {
-            urlConn.setRequestProperty("Cookie", cookies);
+            request.header("Cookie", cookies);
         }
 
-        boolean redirect = false;
+        // the body of redirects and errors is discarded
+        final BodyHandler<T> handler = info -> isRedirect(info.statusCode())
+            || info.statusCode() >= HttpURLConnection.HTTP_BAD_REQUEST ? BodySubscribers.replacing(null)
+                : bodyHandler.apply(info);
+
+        return httpClient(uri).sendAsync(request.build(), handler).thenCompose(response -> {
+            final int status = response.statusCode();
+
+            if (isRedirect(status)) {
+                if (numRedirects > MAX_REDIRECTS) {
+                    return CompletableFuture.failedFuture(
+                        new ProtocolException("Too many (" + numRedirects + ") redirects."));
+                }
+
+                final URI newUri = uri.resolve(response.headers().firstValue("Location").orElse(""));
+                LOGGER.debug("Redirect to URL : {} ({})", newUri, numRedirects + 1);
+                return sendAsync(newUri, bodyHandler, response.headers().firstValue("Set-Cookie").orElse(null),
+                    numRedirects + 1);
+            }
+
+            if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                return CompletableFuture.failedFuture(
+                    new IOException("Server returned HTTP response code: " + status + " for URL: " + uri));
+            }
+
+            return CompletableFuture.completedFuture(response);
+        });
+    }
 
-        int status = urlConn.getResponseCode();
-        if (status != HttpURLConnection.HTTP_OK && (status == HttpURLConnection.HTTP_MOVED_TEMP
+    private <T> HttpResponse<T> send(final URL url, final BodyHandler<T> bodyHandler) throws IOException {
+        return join(sendAsync(toURI(url), bodyHandler));
+    }
+
+    private static boolean isRedirect(final int status) {
+        return status == HttpURLConnection.HTTP_MOVED_TEMP
             || status == HttpURLConnection.HTTP_MOVED_PERM
-            || status == HttpURLConnection.HTTP_SEE_OTHER)) {
-            redirect = true;
+            || status == HttpURLConnection.HTTP_SEE_OTHER;
+    }
+
+    private static URI toURI(final URL url) throws IOException {
+        try {
+            return url.toURI();
+        } catch (URISyntaxException e) {
+            throw new MalformedURLException(e.getMessage());
         }
+    }
 
-        if (redirect) {
-            if (numRedirects <= MAX_REDIRECTS) {
-                URL newUrl = new URL(urlConn.getHeaderField("Location"));
+    private static void acquire(final Semaphore permits) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection.");
+        }
+    }
 
-                LOGGER.debug("Redirect to URL : {} ({})", newUrl.toExternalForm(), numRedirects + 1);
-                urlConn = buildConnection(newUrl, urlConn.getHeaderField("Set-Cookie"), numRedirects + 1);
-            } else {
-                throw new ProtocolException("Too many (" + numRedirects + ") redirects.");
+    private static <T> T join(final CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response.");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
             }
+            throw new IOException(cause);
         }
-
-        return urlConn;
     }
 
     private InputStream readContentFromUrl(final URL url) throws IOException {
-        return buildConnection(url).getInputStream();
+        return send(url, BodyHandlers.ofInputStream()).body();
     }
 
-    private String readWebPageFromUrl(final String urlString) throws IOException {
-        String content = "";
-
-        HttpURLConnection urlConn = buildConnection(new URL(urlString));
+    private List<PPField> readPicaPlusFromUrl(final String urlString) throws IOException {
+        final HttpResponse<InputStream> response = send(new URL(urlString), BodyHandlers.ofInputStream());
 
-        final String encoding = (urlConn.getContentEncoding() != null ? urlConn.getContentEncoding()
-            : "ISO-8859-1");
+        final String encoding = response.headers().firstValue("Content-Encoding").orElse("ISO-8859-1");
         LOGGER.debug("Encoding set to: " + encoding);
 
-        final BufferedReader dis = new BufferedReader(new InputStreamReader(urlConn.getInputStream(), encoding));
+        // the raw record is only kept for debugging
+        final StringBuilder raw = LOGGER.isDebugEnabled() ? new StringBuilder() : null;
 
-        final StringBuffer buf = new StringBuffer();
-        String s;
-        while ((s = dis.readLine()) != null) {
-            buf.append(s);
-        }
-        dis.close();
-        content = buf.toString();
+        try (Reader reader = new InputStreamReader(response.body(), encoding)) {
+            final List<PPField> fields = new PicaPlusParser(reader, raw).parse();
+
+            if (raw != null) {
+                LOGGER.debug("\n" + PicaCharDecoder.asHexString(raw.toString()));
+            }
 
-        return content;
+            return fields;
+        }
     }
 
     private String generateCacheKey(final String key) {
         return this.url.getHost() + "_" + this.db + "-" + key;
     }
 
-    static {
+    private static SSLContext trustAllContext() {
         final TrustManager[] trustAllCerts = { new X509TrustManager() {
             @Override
             public X509Certificate[] getAcceptedIssuers() {
@@ -740,8 +966,10 @@ public class OPCConnector {
             final SSLContext sc = SSLContext.getInstance("SSL");
             sc.init(null, trustAllCerts, new SecureRandom());
             HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
+            return sc;
         } catch (final Exception e) {
             e.printStackTrace();
+            return null;
         }
     }
 }
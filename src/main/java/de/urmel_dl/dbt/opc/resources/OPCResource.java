@@ -20,20 +20,27 @@ package de.urmel_dl.dbt.opc.resources;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.StreamingOutput;
 
 import org.mycore.common.MCRSession;
 import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.common.content.MCRContent;
 import org.mycore.common.content.MCRJDOMContent;
 import org.mycore.common.content.transformer.MCRXSLTransformer;
@@ -64,6 +71,10 @@ public class OPCResource {
 
     private static final String MODS_PARAM_PREFIX = "RecordIdPrefix";
 
+    private static final Pattern PPN_PATTERN = Pattern.compile("[0-9X]+");
+
+    private static final String CONFIG_MAX_RECORDS = "DBT.OPC.Records.MaxPPNs";
+
     /**
      * Returns a list of {@link Catalogues}.
      *
@@ -222,6 +233,38 @@ public class OPCResource {
         return record(opc(catalog), ppn);
     }
 
+    /**
+     * Returns the {@link Record}s for given PPNs in the order of the PPNs. A PPN without record is returned as
+     * record without fields. At most <code>DBT.OPC.Records.MaxPPNs</code> PPNs are accepted.
+     *
+     * @param ppns the ppns, as repeated or comma separated parameter
+     * @return the result
+     * @throws Exception the exception
+     */
+    @GET
+    @Path("records")
+    @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+    public Result records(@QueryParam("ppn") List<String> ppns) throws Exception {
+        return records(opc(null), ppns);
+    }
+
+    /**
+     * Returns the {@link Record}s for given catalog and PPNs in the order of the PPNs. A PPN without record is
+     * returned as record without fields. At most <code>DBT.OPC.Records.MaxPPNs</code> PPNs are accepted.
+     *
+     * @param catalog the catalog
+     * @param ppns the ppns, as repeated or comma separated parameter
+     * @return the result
+     * @throws Exception the exception
+     */
+    @GET
+    @Path("records/{catalog:.*}")
+    @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+    public Result records(@PathParam("catalog") String catalog, @QueryParam("ppn") List<String> ppns)
+        throws Exception {
+        return records(opc(catalog), ppns);
+    }
+
     /**
      * Returns a MODS XML for given PPN.
      *
@@ -298,6 +341,26 @@ public class OPCResource {
         return opc.getRecord(ppn);
     }
 
+    private Result records(OPCConnector opc, List<String> ppns) throws Exception {
+        final List<String> ppnList = ppns.stream()
+            .flatMap(ppn -> Arrays.stream(ppn.split(",")))
+            .map(String::trim)
+            .filter(ppn -> !ppn.isEmpty())
+            .collect(Collectors.toList());
+
+        if (ppnList.size() > MCRConfiguration2.getInt(CONFIG_MAX_RECORDS).orElse(100)
+            || ppnList.stream().anyMatch(ppn -> !PPN_PATTERN.matcher(ppn).matches())) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+
+        final Result result = new Result(opc);
+        final List<Record> records = opc.getRecords(ppnList);
+        for (int i = 0; i < ppnList.size(); i++) {
+            result.addRecord(Optional.ofNullable(records.get(i)).orElse(new Record(ppnList.get(i))));
+        }
+        return result;
+    }
+
     private <T> Response transformedResponse(T entity, String stylesheet, Map<String, String> parameters) {
         if (entity == null) {
             return Response.status(Response.Status.NO_CONTENT).build();
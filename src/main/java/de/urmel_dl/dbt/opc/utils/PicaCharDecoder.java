@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 import org.apache.commons.text.StringEscapeUtils;
 
@@ -36,7 +37,7 @@ public class PicaCharDecoder {
     private static final int UTF_8 = 0x1001;
 
     @SuppressWarnings("serial")
-    private static final Map<String, Map<Integer, String>> PICA_CHARS = new HashMap<>() {
+    static final Map<String, Map<Integer, String>> PICA_CHARS = new HashMap<>() {
         {
             put("&auml;", new HashMap<>() {
                 {
@@ -947,6 +948,11 @@ public class PicaCharDecoder {
         }
     };
 
+    /**
+     * Trie of the encoded Pica chars for each encoding, built from {@link #PICA_CHARS}.
+     */
+    private static final Map<Integer, Node> DECODERS = buildDecoders();
+
     /**
      * Decode Pica encode {@link String}.
      *
@@ -965,18 +971,48 @@ public class PicaCharDecoder {
      * @return the string
      */
     public static String decode(final String plain, final int encoding) {
-        String ppDecoded = plain;
+        final Node root = Objects.requireNonNull(DECODERS.get(encoding), "Unsupported encoding " + encoding + ".");
+        final int length = plain.length();
 
-        for (Map.Entry<String, Map<Integer, String>> picaChar : PICA_CHARS.entrySet()) {
-            final String htmlChar = picaChar.getKey();
-            final Map<Integer, String> encCharsMap = picaChar.getValue();
-            final String encChars = encCharsMap.get(encoding);
+        StringBuilder sb = null;
+        int copied = 0;
+        int pos = 0;
+
+        while (pos < length) {
+            Node node = root.next(plain.charAt(pos));
+            Node match = null;
+            int matchLength = 0;
+
+            // on overlapping encoded chars the entry iterated first in PICA_CHARS wins
+            for (int len = 1; node != null; len++) {
+                if (node.decoded != null && (match == null || node.priority < match.priority)) {
+                    match = node;
+                    matchLength = len;
+                }
+                node = pos + len < length ? node.next(plain.charAt(pos + len)) : null;
+            }
+
+            if (match == null) {
+                pos++;
+                continue;
+            }
+
+            if (sb == null) {
+                sb = new StringBuilder(length);
+            }
+            appendUnescaped(sb, plain, copied, pos);
+            sb.append(match.decoded);
 
-            // replace pica chars with htmlenities from given encoding
-            ppDecoded = ppDecoded.replaceAll(encChars, htmlChar);
+            pos += matchLength;
+            copied = pos;
         }
 
-        return StringEscapeUtils.unescapeHtml4(ppDecoded);
+        if (sb == null) {
+            return plain.indexOf('&') == -1 ? plain : StringEscapeUtils.unescapeHtml4(plain);
+        }
+
+        appendUnescaped(sb, plain, copied, length);
+        return sb.toString();
     }
 
     public static String asHexString(final String plain) {
@@ -1003,4 +1039,75 @@ public class PicaCharDecoder {
         }
     }
 
+    private static void appendUnescaped(final StringBuilder sb, final String plain, final int start, final int end) {
+        if (start == end) {
+            return;
+        }
+
+        final int amp = plain.indexOf('&', start);
+        if (amp == -1 || amp >= end) {
+            sb.append(plain, start, end);
+        } else {
+            sb.append(StringEscapeUtils.UNESCAPE_HTML4.translate(plain.subSequence(start, end)));
+        }
+    }
+
+    private static Map<Integer, Node> buildDecoders() {
+        final Map<Integer, Node> decoders = new HashMap<>();
+
+        int priority = 0;
+        for (Map.Entry<String, Map<Integer, String>> picaChar : PICA_CHARS.entrySet()) {
+            final String decoded = StringEscapeUtils.unescapeHtml4(picaChar.getKey());
+
+            for (Map.Entry<Integer, String> encChars : picaChar.getValue().entrySet()) {
+                Node node = decoders.computeIfAbsent(encChars.getKey(), e -> new Node());
+                for (char c : encChars.getValue().toCharArray()) {
+                    node = node.add(c);
+                }
+
+                // an earlier entry with the same encoded chars has precedence
+                if (node.decoded == null) {
+                    node.decoded = decoded;
+                    node.priority = priority;
+                }
+            }
+
+            priority++;
+        }
+
+        return decoders;
+    }
+
+    /**
+     * A node of the encoded Pica chars trie. Encoded chars are read as ISO-8859-1, so each node can address its
+     * children directly by char.
+     */
+    private static final class Node {
+
+        private static final int MAX_CHAR = 0xFF;
+
+        private Node[] children;
+
+        private String decoded;
+
+        private int priority;
+
+        Node next(final char c) {
+            return children != null && c <= MAX_CHAR ? children[c] : null;
+        }
+
+        Node add(final char c) {
+            if (c > MAX_CHAR) {
+                throw new IllegalArgumentException("Encoded Pica char " + Integer.toHexString(c) + " out of range.");
+            }
+            if (children == null) {
+                children = new Node[MAX_CHAR + 1];
+            }
+            if (children[c] == null) {
+                children[c] = new Node();
+            }
+            return children[c];
+        }
+    }
+
 }
@@ -0,0 +1,212 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2017
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.opc.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import de.urmel_dl.dbt.opc.datamodel.pica.PPField;
+import de.urmel_dl.dbt.opc.datamodel.pica.PPSubField;
+
+/**
+ * Streaming parser of the plain PICA+ output. Fields are separated by {@link #FIELD_SEPARATOR}, the tag (with
+ * optional occurrence) is separated by a blank from the subfields, each starting with {@link #SUBFIELD_SEPARATOR}
+ * and the subfield code. Line breaks are ignored.
+ *
+ * @author René Adler (eagle)
+ */
+public class PicaPlusParser {
+
+    public static final char FIELD_SEPARATOR = '\036';
+
+    public static final char SUBFIELD_SEPARATOR = '\037';
+
+    private static final char TAG_SEPARATOR = ' ';
+
+    private static final char OCCURRENCE_SEPARATOR = '/';
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private enum State {
+        TAG, FIELD, CODE, CONTENT
+    }
+
+    private final Reader reader;
+
+    private final StringBuilder raw;
+
+    private final StringBuilder tag = new StringBuilder(8);
+
+    private final StringBuilder content = new StringBuilder(256);
+
+    private State state = State.TAG;
+
+    private PPField field;
+
+    private char code;
+
+    private boolean separated;
+
+    private boolean record;
+
+    /**
+     * Creates a new parser for given {@link Reader}.
+     *
+     * @param reader the reader
+     */
+    public PicaPlusParser(final Reader reader) {
+        this(reader, null);
+    }
+
+    /**
+     * Creates a new parser for given {@link Reader}, that also collects the raw record.
+     *
+     * @param reader the reader
+     * @param raw the raw record is appended to, or <code>null</code>
+     */
+    public PicaPlusParser(final Reader reader, final StringBuilder raw) {
+        this.reader = reader;
+        this.raw = raw;
+    }
+
+    /**
+     * Parses the record and returns the list of {@link PPField}.
+     *
+     * @return the fields or <code>null</code> if the input isn't a record
+     * @throws IOException thrown on read errors
+     */
+    public List<PPField> parse() throws IOException {
+        final List<PPField> fields = new ArrayList<>();
+        return parse(fields::add) ? fields : null;
+    }
+
+    /**
+     * Parses the record and passes each {@link PPField} to the consumer as soon as it is complete.
+     *
+     * @param consumer the field consumer
+     * @return <code>true</code> if the input was a record, that means more than one field separated part
+     * @throws IOException thrown on read errors
+     */
+    public boolean parse(final Consumer<PPField> consumer) throws IOException {
+        final char[] buf = new char[BUFFER_SIZE];
+
+        int len;
+        while ((len = reader.read(buf)) != -1) {
+            for (int i = 0; i < len; i++) {
+                final char c = buf[i];
+                if (c == '\n' || c == '\r') {
+                    continue;
+                }
+                if (raw != null) {
+                    raw.append(c);
+                }
+                next(c, consumer);
+            }
+        }
+        endField(consumer);
+
+        return record;
+    }
+
+    private void next(final char c, final Consumer<PPField> consumer) {
+        if (c == FIELD_SEPARATOR) {
+            endField(consumer);
+            separated = true;
+            return;
+        }
+
+        record |= separated;
+
+        switch (state) {
+            case TAG:
+                if (c == TAG_SEPARATOR) {
+                    startField();
+                } else {
+                    tag.append(c);
+                }
+                break;
+            case FIELD:
+                if (c == SUBFIELD_SEPARATOR) {
+                    state = State.CODE;
+                }
+                break;
+            case CODE:
+                if (isCode(c)) {
+                    code = c;
+                    content.setLength(0);
+                    state = State.CONTENT;
+                } else if (c != SUBFIELD_SEPARATOR) {
+                    state = State.FIELD;
+                }
+                break;
+            case CONTENT:
+                if (c == SUBFIELD_SEPARATOR) {
+                    endSubfield();
+                    state = State.CODE;
+                } else {
+                    content.append(c);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void startField() {
+        field = new PPField();
+
+        final int occ = tag.indexOf(String.valueOf(OCCURRENCE_SEPARATOR));
+        if (occ != -1) {
+            field.setTag(tag.substring(0, occ));
+            field.setOccurrence(tag.substring(occ + 1));
+        } else {
+            field.setTag(tag.toString());
+        }
+
+        state = State.FIELD;
+    }
+
+    private void endSubfield() {
+        if (content.length() > 0) {
+            final PPSubField subfield = new PPSubField();
+            subfield.setCode(String.valueOf(code));
+            subfield.setContent(PicaCharDecoder.decode(content.toString()));
+            field.addSubfield(subfield);
+        }
+    }
+
+    private void endField(final Consumer<PPField> consumer) {
+        if (state == State.CONTENT) {
+            endSubfield();
+        }
+        if (field != null) {
+            consumer.accept(field);
+            field = null;
+        }
+
+        tag.setLength(0);
+        state = State.TAG;
+    }
+
+    private static boolean isCode(final char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+}
@@ -49,6 +49,7 @@ import org.mycore.common.events.MCREvent;
 import org.mycore.common.events.MCREventManager;
 import org.mycore.common.xml.MCRXMLParserFactory;
 import org.mycore.datamodel.common.MCRActiveLinkException;
+import org.mycore.datamodel.ifs2.MCRFileCollection;
 import org.mycore.frontend.cli.MCRAbstractCommands;
 import org.mycore.frontend.cli.annotation.MCRCommand;
 import org.mycore.frontend.cli.annotation.MCRCommandGroup;
@@ -110,6 +111,7 @@ public class RCCommands extends MCRAbstractCommands {
             LOGGER.info("Slot " + slotId + " saved to " + xmlOutput.getCanonicalPath() + ".");
 
             if (slot.getEntries() != null) {
+                final MCRFileCollection col = FileEntryManager.getFileCollection(slot);
                 for (SlotEntry<?> entry : slot.getEntries()) {
                     if (entry.getEntry() instanceof FileEntry) {
                         SlotEntry<FileEntry> slotEntry = (SlotEntry<FileEntry>) entry;
@@ -117,14 +119,10 @@ public class RCCommands extends MCRAbstractCommands {
                         File fileDir = new File(dir, slotEntry.getId());
                         if (fileDir.isDirectory() || fileDir.mkdirs()) {
                             try {
-                                FileEntryManager.retrieve(slot, slotEntry);
+                                FileEntryManager.retrieve(col, slotEntry);
                                 Path f = Paths.get(fileDir.getAbsolutePath(), slotEntry.getEntry().getName());
-                                Path ef = slotEntry.getEntry().getExportablePath(entry.getId());
-                                Files.copy(ef, f,
-                                    StandardCopyOption.REPLACE_EXISTING);
-
-                                if (FileEntry.isTempFile(ef)) {
-                                    Files.deleteIfExists(ef);
+                                try (InputStream is = slotEntry.getEntry().getExportableContent(entry.getId())) {
+                                    Files.copy(is, f, StandardCopyOption.REPLACE_EXISTING);
                                 }
 
                                 LOGGER.info("File \"" + slotEntry.getEntry().getName() + "\" saved to "
@@ -201,6 +199,7 @@ public class RCCommands extends MCRAbstractCommands {
         }
 
         if (slot.getEntries() != null) {
+            final MCRFileCollection col = update ? FileEntryManager.getFileCollection(slot) : null;
             for (SlotEntry<?> entry : slot.getEntries()) {
                 if (entry.getEntry() instanceof FileEntry) {
                     final SlotEntry<FileEntry> slotEntry = (SlotEntry<FileEntry>) entry;
@@ -229,7 +228,7 @@ public class RCCommands extends MCRAbstractCommands {
                         if (update) {
                             LOGGER.info(
                                 "Update File \"" + fileEntry.getName() + "\" from " + f.getCanonicalPath() + ".");
-                            FileEntryManager.update(slot, slotEntry);
+                            FileEntryManager.update(slot, col, slotEntry);
                         }
                     } else {
                         LOGGER.error("Couldn't find file for file entry.");
@@ -649,7 +648,7 @@ public class RCCommands extends MCRAbstractCommands {
                 throw new MCRException("File entry " + entryId + " not found!");
             }
 
-            encodeMediaFile(slot, fileEntry, force);
+            encodeMediaFile(FileEntryManager.getFileCollection(slot), fileEntry, force);
         }
     }
 
@@ -660,10 +659,11 @@ public class RCCommands extends MCRAbstractCommands {
 
         final Slot slot = slotList.getSlotById(slotId);
         if (slot != null) {
+            final MCRFileCollection col = FileEntryManager.getFileCollection(slot);
             slot.getEntries().stream().filter(e -> e.getEntry() instanceof FileEntry)
                 .forEach(e -> {
                     try {
-                        encodeMediaFile(slot, (SlotEntry<FileEntry>) e, force);
+                        encodeMediaFile(col, (SlotEntry<FileEntry>) e, force);
                     } catch (MCRPersistenceException | IOException ex) {
                         throw new MCRException(ex.getMessage(), ex.getCause());
                     }
@@ -671,13 +671,13 @@ public class RCCommands extends MCRAbstractCommands {
         }
     }
 
-    private static void encodeMediaFile(Slot slot, SlotEntry<FileEntry> fileEntry, boolean force)
+    private static void encodeMediaFile(MCRFileCollection col, SlotEntry<FileEntry> fileEntry, boolean force)
         throws MCRPersistenceException, IOException {
-        if (!FileEntryManager.exists(slot, fileEntry)) {
+        if (!FileEntryManager.exists(col, fileEntry)) {
             throw new MCRException("File entry " + fileEntry.getId() + " does not exist!");
         }
 
-        Path mediaFile = FileEntryManager.getLocalPath(slot, fileEntry);
+        Path mediaFile = FileEntryManager.getLocalPath(col, fileEntry);
 
         if (mediaFile == null || !MediaService.isMediaSupported(mediaFile)) {
             LOGGER.info("Skipping encoding of " + fileEntry.getEntry().getName() + ", because isn't supported.");
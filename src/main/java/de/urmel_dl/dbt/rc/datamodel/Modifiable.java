@@ -0,0 +1,55 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the 
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or 
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc.datamodel;
+
+import java.io.Serializable;
+
+import jakarta.xml.bind.annotation.XmlTransient;
+
+/**
+ * A mutable part of a slot, which reports its modifications to the owning slot or entry.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ */
+@XmlTransient
+public abstract class Modifiable implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient volatile Runnable listener;
+
+    /**
+     * Sets the listener, which is called on every modification. A part has only one owner, so a previous listener
+     * is replaced.
+     *
+     * @param listener the listener or <code>null</code>
+     */
+    public void onModified(final Runnable listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Notifies the listener about a modification.
+     */
+    protected void modified() {
+        final Runnable l = listener;
+        if (l != null) {
+            l.run();
+        }
+    }
+}
@@ -27,7 +27,7 @@ import jakarta.xml.bind.annotation.XmlRootElement;
  *
  */
 @XmlRootElement(name = "person")
-public abstract class Person implements Serializable {
+public abstract class Person extends Modifiable implements Serializable {
 
     private static final long serialVersionUID = 2679715988354312760L;
 
@@ -50,6 +50,7 @@ public abstract class Person implements Serializable {
      */
     public void setName(final String name) {
         this.name = name;
+        modified();
     }
 
     /**
@@ -65,6 +66,7 @@ public abstract class Person implements Serializable {
      */
     public void setEmail(final String email) {
         this.email = email;
+        modified();
     }
 
     /**
@@ -80,6 +82,7 @@ public abstract class Person implements Serializable {
      */
     public void setOrigin(final String origin) {
         this.origin = origin;
+        modified();
     }
 
     /* (non-Javadoc)
@@ -39,7 +39,7 @@ import jakarta.xml.bind.annotation.XmlValue;
 @XmlRootElement(name = "date")
 @XmlAccessorType(XmlAccessType.NONE)
 @XmlType(name = "date", propOrder = { "type", "format", "formatedDate" })
-public class TypedDate implements Serializable {
+public class TypedDate extends Modifiable implements Serializable {
 
     private static final long serialVersionUID = -8422581526966266251L;
 
@@ -115,6 +115,7 @@ public class TypedDate implements Serializable {
      */
     public void setType(final Type type) {
         this.type = type;
+        modified();
     }
 
     /**
@@ -132,6 +133,7 @@ public class TypedDate implements Serializable {
             return;
         }
         this.date = new Date(date.getTime());
+        modified();
     }
 
     /**
@@ -170,6 +172,7 @@ public class TypedDate implements Serializable {
             df = new SimpleDateFormat(format, Locale.ROOT);
             this.date = df.parse(date);
         }
+        modified();
     }
 
     /**
@@ -185,6 +188,7 @@ public class TypedDate implements Serializable {
      */
     public void setFormat(final String format) {
         this.format = format;
+        modified();
     }
 
     /* (non-Javadoc)
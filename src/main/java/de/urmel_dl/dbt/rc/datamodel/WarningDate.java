@@ -37,7 +37,7 @@ import org.jdom2.DataConversionException;
  *
  */
 @XmlRootElement(name = "warning")
-public class WarningDate implements Serializable, Comparable<WarningDate> {
+public class WarningDate extends Modifiable implements Serializable, Comparable<WarningDate> {
 
     /**
      * Default warning date format.
@@ -84,6 +84,7 @@ public class WarningDate implements Serializable, Comparable<WarningDate> {
      */
     public void setWarningDate(final Date warningDate) {
         this.warningDate = new Date(warningDate.getTime());
+        modified();
     }
 
     /**
@@ -99,6 +100,7 @@ public class WarningDate implements Serializable, Comparable<WarningDate> {
         } catch (final ParseException e) {
             throw new DataConversionException("warningDate", "java.util.Date");
         }
+        modified();
     }
 
     /**
@@ -121,6 +123,7 @@ public class WarningDate implements Serializable, Comparable<WarningDate> {
      */
     public void setFormat(final String format) {
         this.format = format;
+        modified();
     }
 
     @Override
@@ -0,0 +1,111 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc.datamodel.slot;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import de.urmel_dl.dbt.rc.datamodel.Modifiable;
+
+/**
+ * A list of parts of a {@link Slot}, like lecturers or warning dates. Every change of the list and of its
+ * {@link Modifiable} elements increments the {@link Slot#getVersion() version} of the slot.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ *
+ * @param <E> the element type
+ */
+final class ModifiableList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<E> elements;
+
+    private transient Runnable listener;
+
+    ModifiableList(final Runnable listener) {
+        this.elements = new ArrayList<>();
+        this.listener = listener;
+    }
+
+    ModifiableList(final Runnable listener, final Collection<? extends E> elements) {
+        this.elements = new ArrayList<>(elements);
+        this.listener = listener;
+        this.elements.forEach(this::attach);
+    }
+
+    @Override
+    public E get(final int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public E set(final int index, final E element) {
+        final E old = elements.set(index, element);
+        attach(element);
+        modified();
+        return old;
+    }
+
+    @Override
+    public void add(final int index, final E element) {
+        elements.add(index, element);
+        attach(element);
+        modCount++;
+        modified();
+    }
+
+    @Override
+    public E remove(final int index) {
+        final E old = elements.remove(index);
+        modCount++;
+        modified();
+        return old;
+    }
+
+    /**
+     * Sorts the elements without marking the slot as modified, the order is only normalized.
+     */
+    @Override
+    public void sort(final Comparator<? super E> c) {
+        elements.sort(c);
+        modCount++;
+    }
+
+    private void attach(final E element) {
+        if (element instanceof Modifiable) {
+            ((Modifiable) element).onModified(listener);
+        }
+    }
+
+    private void modified() {
+        if (listener != null) {
+            listener.run();
+        }
+    }
+}
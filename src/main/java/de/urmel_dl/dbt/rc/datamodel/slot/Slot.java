@@ -17,11 +17,13 @@
  */
 package de.urmel_dl.dbt.rc.datamodel.slot;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -29,6 +31,10 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Supplier;
 
 import jakarta.xml.bind.annotation.XmlAccessType;
 import jakarta.xml.bind.annotation.XmlAccessorType;
@@ -75,6 +81,12 @@ public class Slot implements Serializable {
 
     private static final String DEFAULT_DATE_FORMAT = "dd.MM.yyyy";
 
+    private static final AtomicLongFieldUpdater<Slot> VERSION = AtomicLongFieldUpdater.newUpdater(Slot.class,
+        "version");
+
+    private static final AtomicReferenceFieldUpdater<Slot, AtomicLong> LIST_VERSION = AtomicReferenceFieldUpdater
+        .newUpdater(Slot.class, AtomicLong.class, "listVersion");
+
     private int id;
 
     private MCRObjectID objId;
@@ -93,7 +105,7 @@ public class Slot implements Serializable {
 
     private String title;
 
-    private List<Lecturer> lecturers = new ArrayList<>();
+    private List<Lecturer> lecturers = new ModifiableList<>(this::modified);
 
     private Contact contact;
 
@@ -103,7 +115,17 @@ public class Slot implements Serializable {
 
     private String comment;
 
-    private List<SlotEntry<?>> entries;
+    private SlotEntries entries;
+
+    private transient volatile Supplier<List<SlotEntry<?>>> entriesLoader;
+
+    private transient volatile long version;
+
+    private transient volatile AtomicLong listVersion;
+
+    private transient volatile Projection basicCopy;
+
+    private transient volatile Projection exportableCopy;
 
     /**
      * Creates a new {@link Slot}.
@@ -148,6 +170,7 @@ public class Slot implements Serializable {
      */
     public void setId(final int id) {
         this.id = id;
+        modified();
     }
 
     /**
@@ -174,6 +197,8 @@ public class Slot implements Serializable {
             this.id = Integer.parseInt(id);
             this.location = new MCRCategoryID(CLASSIF_ROOT_LOCATION, loc);
         }
+
+        modified();
     }
 
     /**
@@ -188,6 +213,7 @@ public class Slot implements Serializable {
      */
     public void setMCRObjectID(final MCRObjectID objId) {
         this.objId = objId;
+        modified();
     }
 
     /**
@@ -203,6 +229,7 @@ public class Slot implements Serializable {
      */
     public void setLocation(final MCRCategoryID location) {
         this.location = location;
+        modified();
     }
 
     /**
@@ -231,6 +258,7 @@ public class Slot implements Serializable {
         }
 
         this.status = status;
+        modified();
     }
 
     /**
@@ -250,6 +278,8 @@ public class Slot implements Serializable {
         } else {
             this.pendingStatus = pendingStatus;
         }
+
+        modified();
     }
 
     /**
@@ -265,6 +295,7 @@ public class Slot implements Serializable {
      */
     public void setOnlineOnly(final boolean onlineOnly) {
         this.onlineOnly = onlineOnly;
+        modified();
     }
 
     /**
@@ -279,6 +310,7 @@ public class Slot implements Serializable {
      */
     public void setReadKey(String readKey) {
         this.readKey = readKey;
+        modified();
     }
 
     /**
@@ -293,6 +325,7 @@ public class Slot implements Serializable {
      */
     public void setWriteKey(String writeKey) {
         this.writeKey = writeKey;
+        modified();
     }
 
     @XmlElement(name = "accesskeys")
@@ -303,6 +336,7 @@ public class Slot implements Serializable {
     protected void setAccessKeys(final AccessKeys accKeys) {
         readKey = accKeys.readKey;
         writeKey = accKeys.writeKey;
+        modified();
     }
 
     /**
@@ -318,6 +352,7 @@ public class Slot implements Serializable {
      */
     public void setTitle(final String title) {
         this.title = title;
+        modified();
     }
 
     /**
@@ -333,7 +368,8 @@ public class Slot implements Serializable {
      * @param lecturers the lecturers to set
      */
     public void setLecturers(final List<Lecturer> lecturers) {
-        this.lecturers = lecturers;
+        this.lecturers = lecturers != null ? new ModifiableList<>(this::modified, lecturers) : null;
+        modified();
     }
 
     /**
@@ -356,6 +392,10 @@ public class Slot implements Serializable {
      */
     public void setContact(Contact contact) {
         this.contact = contact;
+        if (contact != null) {
+            contact.onModified(this::modified);
+        }
+        modified();
     }
 
     /**
@@ -374,7 +414,8 @@ public class Slot implements Serializable {
      * @param warningDates the warningDates to set
      */
     public void setWarningDates(final List<WarningDate> warningDates) {
-        this.warningDates = warningDates;
+        this.warningDates = warningDates != null ? new ModifiableList<>(this::modified, warningDates) : null;
+        modified();
     }
 
     /**
@@ -410,7 +451,7 @@ public class Slot implements Serializable {
      */
     public void addWarningDate(final Date warningDate) {
         if (warningDates == null) {
-            warningDates = new ArrayList<>();
+            warningDates = new ModifiableList<>(this::modified);
         }
 
         warningDates.add(new WarningDate(warningDate));
@@ -421,7 +462,7 @@ public class Slot implements Serializable {
      */
     public void addWarningDate(final WarningDate warningDate) {
         if (warningDates == null) {
-            warningDates = new ArrayList<>();
+            warningDates = new ModifiableList<>(this::modified);
         }
 
         warningDates.add(warningDate);
@@ -457,6 +498,8 @@ public class Slot implements Serializable {
         } catch (ParseException e) {
             this.validTo = null;
         }
+
+        modified();
     }
 
     /**
@@ -464,6 +507,7 @@ public class Slot implements Serializable {
      */
     public void setValidTo(final Date validTo) {
         this.validTo = validTo;
+        modified();
     }
 
     /**
@@ -479,6 +523,7 @@ public class Slot implements Serializable {
      */
     public void setComment(final String comment) {
         this.comment = comment;
+        modified();
     }
 
     /**
@@ -487,15 +532,45 @@ public class Slot implements Serializable {
     @XmlElementWrapper(name = "entries")
     @XmlElement(name = "entry")
     public List<SlotEntry<?>> getEntries() {
-        return entries;
+        return entries();
     }
 
     /**
      * @param entries the entries to set
      */
     public void setEntries(final List<SlotEntry<?>> entries) {
-        this.entries = entries;
-        Optional.ofNullable(this.entries).ifPresent(el -> el.forEach(e -> e.setSlot(this)));
+        entriesLoader = null;
+        if (entries == null) {
+            this.entries = null;
+        } else if (entries == this.entries) {
+            entries.forEach(e -> e.setSlot(this));
+        } else {
+            this.entries = new SlotEntries(this, entries);
+        }
+        modified();
+    }
+
+    /**
+     * Sets a loader for the entries of a restored {@link Slot}. The loader is called on first access of the entries,
+     * loading them doesn't modify the slot.
+     *
+     * @param loader returns the entries
+     */
+    public void setEntriesLoader(final Supplier<List<SlotEntry<?>>> loader) {
+        entriesLoader = loader;
+    }
+
+    private SlotEntries entries() {
+        if (entriesLoader != null) {
+            synchronized (this) {
+                final Supplier<List<SlotEntry<?>>> loader = entriesLoader;
+                if (loader != null) {
+                    entries = SlotEntries.restore(this, loader.get());
+                    entriesLoader = null;
+                }
+            }
+        }
+        return entries;
     }
 
     /**
@@ -503,9 +578,7 @@ public class Slot implements Serializable {
      * @return a SlotEntry or <code>null</code> if nothing was found
      */
     public SlotEntry<?> getEntryById(final String id) {
-        return Optional.ofNullable(entries)
-            .map(el -> el.stream().filter(entry -> id.equals(entry.getId())).findFirst().orElse(null))
-            .orElse(null);
+        return Optional.ofNullable(entries()).map(el -> el.get(id)).orElse(null);
     }
 
     /**
@@ -513,11 +586,10 @@ public class Slot implements Serializable {
      * @return <code>true</code> (as specified by {@link Collection#add})
      */
     public boolean addEntry(final SlotEntry<?> entry) {
-        if (entries == null) {
-            entries = new ArrayList<>();
+        if (entries() == null) {
+            entries = new SlotEntries(this);
         }
 
-        entry.setSlot(this);
         return entries.add(entry);
     }
 
@@ -527,38 +599,33 @@ public class Slot implements Serializable {
      * @return <code>true</code> (as specified by {@link Collection#add})
      */
     public boolean addEntry(final SlotEntry<?> entry, final String afterId) {
-        if (entries == null) {
-            entries = new ArrayList<>();
+        if (entries() == null) {
+            entries = new SlotEntries(this);
         }
 
-        entry.setSlot(this);
-
-        if (afterId != null && afterId.length() > 0) {
-            for (int i = 0; i < entries.size(); i++) {
-                if (afterId.equals(entries.get(i).getId())) {
-                    entry.setSlot(this);
-                    entries.add(i + 1, entry);
-                    return true;
-                }
-            }
-        }
+        entries.addAfter(entry, afterId);
+        return true;
+    }
 
-        return entries.add(entry);
+    /**
+     * Moves the entry with given id after the entry with <code>afterId</code>.
+     *
+     * @param id the id of the entry to move
+     * @param afterId the id from the new previous entry or <code>null</code> to move the entry to the start
+     * @return <code>true</code> if the entry was moved
+     */
+    public boolean moveEntry(final String id, final String afterId) {
+        return entries() != null && entries.move(id, afterId != null && afterId.length() > 0 ? afterId : null);
     }
 
     /**
      * @param entry the entry to set
      */
     public void setEntry(final SlotEntry<?> entry) {
-        if (entries != null) {
-            for (int c = 0; c < entries.size(); c++) {
-                if (entry.getId().equals(entries.get(c).getId())) {
-                    entry.setSlot(this);
-                    entry.setModified(new Date());
-                    entries.set(c, entry);
-                    return;
-                }
-            }
+        if (entries() != null && entries.get(entry.getId()) != null) {
+            entry.setModified(new Date());
+            entries.replace(entry);
+            return;
         }
 
         throw new IllegalArgumentException("Couldn't find SlotEntry with id \"" + entry.getId() + "\"!");
@@ -569,15 +636,110 @@ public class Slot implements Serializable {
      * @return <code>true</code> (as specified by {@link Collection#remove})
      */
     public boolean removeEntry(final SlotEntry<?> entry) {
-        return entries.remove(entry);
+        return entries() != null && entries.remove(entry);
+    }
+
+    /**
+     * Updates the entry index after the id of an entry was changed.
+     *
+     * @param entry the entry
+     * @param oldId the former id
+     */
+    void entryIdChanged(final SlotEntry<?> entry, final String oldId) {
+        if (entries() != null) {
+            entries.reindex(entry, oldId);
+        }
+    }
+
+    /**
+     * Returns the version of this {@link Slot}, which is incremented on every modification.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Marks this {@link Slot} as modified. Also called by its entries, lecturers, contact and warning dates.
+     */
+    void modified() {
+        VERSION.incrementAndGet(this);
+
+        final AtomicLong counter = listVersion;
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+    }
+
+    /**
+     * Attaches this {@link Slot} to the modification counter of a {@link SlotList}. A slot is attached to the
+     * first list that holds it, until it is removed from that list.
+     *
+     * @param counter the counter of the list
+     * @return <code>true</code> if the slot is now attached to given counter
+     */
+    boolean attach(final AtomicLong counter) {
+        return LIST_VERSION.compareAndSet(this, null, counter) || listVersion == counter;
+    }
+
+    /**
+     * Detaches this {@link Slot} from the modification counter of a {@link SlotList}.
+     *
+     * @param counter the counter of the list
+     * @return <code>true</code> if the slot was attached to given counter
+     */
+    boolean detach(final AtomicLong counter) {
+        return LIST_VERSION.compareAndSet(this, counter, null);
+    }
+
+    /**
+     * Checks if this {@link Slot} is attached to given modification counter.
+     *
+     * @param counter the counter of the list
+     * @return <code>true</code> if attached
+     */
+    boolean isAttached(final AtomicLong counter) {
+        return listVersion == counter;
     }
 
     /**
      * Returns a exportable copy of current {@link Slot}.
+     * The copy is built once per {@link #getVersion() version} and shared, so it must not be modified.
      *
      * @return a exportable copy of current slot
      */
     public Slot getExportableCopy() {
+        final long v = version;
+        final Projection p = exportableCopy;
+        if (p != null && p.version == v) {
+            return p.slot;
+        }
+
+        final Slot copy = buildExportableCopy();
+        exportableCopy = new Projection(v, copy);
+        return copy;
+    }
+
+    /**
+     * Returns a copy of current {@link Slot} without entries.
+     * The copy is built once per {@link #getVersion() version} and shared, so it must not be modified.
+     *
+     * @return a basic copy of current slot
+     */
+    public Slot getBasicCopy() {
+        final long v = version;
+        final Projection p = basicCopy;
+        if (p != null && p.version == v) {
+            return p.slot;
+        }
+
+        final Slot copy = buildBasicCopy();
+        basicCopy = new Projection(v, copy);
+        return copy;
+    }
+
+    private Slot buildExportableCopy() {
         final Slot copy = new Slot();
 
         copy.id = this.id;
@@ -592,17 +754,12 @@ public class Slot implements Serializable {
         copy.warningDates = this.warningDates;
         copy.validTo = this.validTo;
         copy.comment = this.comment;
-        copy.entries = this.entries;
+        copy.entries = entries();
 
         return copy;
     }
 
-    /**
-     * Returns a copy of current {@link Slot} without entries.
-     *
-     * @return a basic copy of current slot
-     */
-    public Slot getBasicCopy() {
+    private Slot buildBasicCopy() {
         final Slot copy = new Slot();
 
         copy.id = this.id;
@@ -621,6 +778,22 @@ public class Slot implements Serializable {
         return copy;
     }
 
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // the listeners aren't serialized
+        lecturers = lecturers != null ? new ModifiableList<>(this::modified, lecturers) : null;
+        warningDates = warningDates != null ? new ModifiableList<>(this::modified, warningDates) : null;
+        if (contact != null) {
+            contact.onModified(this::modified);
+        }
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        // entries of a restored slot may not be loaded yet
+        entries();
+        out.defaultWriteObject();
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#toString()
      */
@@ -761,4 +934,16 @@ public class Slot implements Serializable {
             return accKeys;
         }
     }
+
+    private static final class Projection {
+
+        private final long version;
+
+        private final Slot slot;
+
+        Projection(final long version, final Slot slot) {
+            this.version = version;
+            this.slot = slot;
+        }
+    }
 }
@@ -0,0 +1,420 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc.datamodel.slot;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSequentialList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The ordered entries of a {@link Slot}.
+ * <p>
+ * The entries are kept in a doubly linked list with an index from entry id to list node, so lookup, insert after,
+ * move, contains and remove run in constant time. Entry ids are expected to be unique. As a {@link java.util.List} it behaves like a
+ * {@link java.util.LinkedList}, every added entry is attached to the owning slot and every modification increments
+ * the {@link Slot#getVersion() version} of the slot.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ *
+ */
+final class SlotEntries extends AbstractSequentialList<SlotEntry<?>> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Slot slot;
+
+    private transient Map<String, Node> index = new HashMap<>();
+
+    private transient Node head;
+
+    private transient Node tail;
+
+    private transient int size;
+
+    private transient boolean restoring;
+
+    SlotEntries(final Slot slot) {
+        this.slot = slot;
+    }
+
+    SlotEntries(final Slot slot, final Collection<? extends SlotEntry<?>> entries) {
+        this(slot);
+        addAll(entries);
+    }
+
+    /**
+     * Returns the restored entries of given slot without modifying the slot.
+     *
+     * @param slot the slot
+     * @param entries the entries or <code>null</code>
+     * @return the entries or <code>null</code>
+     */
+    static SlotEntries restore(final Slot slot, final Collection<? extends SlotEntry<?>> entries) {
+        if (entries == null) {
+            return null;
+        }
+
+        final SlotEntries restored = new SlotEntries(slot);
+        restored.restoring = true;
+        restored.addAll(entries);
+        restored.restoring = false;
+        return restored;
+    }
+
+    /**
+     * Returns the entry with given id.
+     *
+     * @param id the entry id
+     * @return the entry or <code>null</code>
+     */
+    SlotEntry<?> get(final String id) {
+        final Node node = id != null ? index.get(id) : null;
+        return node != null ? node.value : null;
+    }
+
+    /**
+     * Inserts the entry after the entry with given id or appends it if there is no such entry.
+     *
+     * @param entry the entry
+     * @param afterId the id of the previous entry
+     */
+    void addAfter(final SlotEntry<?> entry, final String afterId) {
+        final Node after = afterId != null ? index.get(afterId) : null;
+        if (after == null || after == tail) {
+            linkBefore(entry, null);
+        } else {
+            linkBefore(entry, after.next);
+        }
+    }
+
+    /**
+     * Moves the entry with given id after the entry with <code>afterId</code>, or to the start if
+     * <code>afterId</code> is <code>null</code>.
+     *
+     * @param id the entry id
+     * @param afterId the id of the new previous entry
+     * @return <code>true</code> if the entry was moved
+     */
+    boolean move(final String id, final String afterId) {
+        final Node node = id != null ? index.get(id) : null;
+        final Node after = afterId != null ? index.get(afterId) : null;
+
+        if (node == null || node == after || afterId != null && after == null) {
+            return false;
+        }
+
+        final SlotEntry<?> entry = node.value;
+        unlink(node);
+        linkBefore(entry, after != null ? after.next : head);
+        return true;
+    }
+
+    /**
+     * Updates the index after the id of an entry was changed.
+     *
+     * @param entry the entry
+     * @param oldId the former id
+     */
+    void reindex(final SlotEntry<?> entry, final String oldId) {
+        final Node node = oldId != null ? index.get(oldId) : null;
+        if (node != null && node.value == entry) {
+            index.remove(oldId);
+            index.put(entry.getId(), node);
+        }
+    }
+
+    /**
+     * Replaces the entry with the same id.
+     *
+     * @param entry the new entry
+     * @return <code>true</code> if the entry was replaced
+     */
+    boolean replace(final SlotEntry<?> entry) {
+        final Node node = index.get(entry.getId());
+        if (node == null) {
+            return false;
+        }
+
+        setValue(node, entry);
+        return true;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return nodeOf(o) != null;
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        final Node node = nodeOf(o);
+        if (node == null) {
+            return false;
+        }
+
+        unlink(node);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        index.clear();
+        head = tail = null;
+        size = 0;
+        modCount++;
+        modified();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public ListIterator<SlotEntry<?>> listIterator(final int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new Itr(index);
+    }
+
+    private Node nodeOf(final Object o) {
+        if (o instanceof SlotEntry<?>) {
+            final Node node = index.get(((SlotEntry<?>) o).getId());
+            if (node != null && node.value.equals(o)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private Node node(final int index) {
+        Node node;
+        if (index < size / 2) {
+            node = head;
+            for (int i = 0; i < index; i++) {
+                node = node.next;
+            }
+        } else {
+            node = tail;
+            for (int i = size - 1; i > index; i--) {
+                node = node.prev;
+            }
+        }
+        return node;
+    }
+
+    private void linkBefore(final SlotEntry<?> entry, final Node succ) {
+        final Node pred = succ != null ? succ.prev : tail;
+        final Node node = new Node(pred, succ);
+        setValue(node, entry);
+
+        if (pred == null) {
+            head = node;
+        } else {
+            pred.next = node;
+        }
+        if (succ == null) {
+            tail = node;
+        } else {
+            succ.prev = node;
+        }
+
+        size++;
+        modCount++;
+    }
+
+    private void unlink(final Node node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+
+        index.remove(node.value.getId(), node);
+        node.prev = node.next = null;
+
+        size--;
+        modCount++;
+        modified();
+    }
+
+    private void setValue(final Node node, final SlotEntry<?> entry) {
+        if (node.value != null) {
+            index.remove(node.value.getId(), node);
+        }
+        entry.setSlot(slot);
+        node.value = entry;
+        index.put(entry.getId(), node);
+        modified();
+    }
+
+    private void modified() {
+        if (!restoring) {
+            slot.modified();
+        }
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (Node node = head; node != null; node = node.next) {
+            out.writeObject(node.value);
+        }
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        index = new HashMap<>();
+        final int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            linkBefore((SlotEntry<?>) in.readObject(), null);
+        }
+    }
+
+    private static final class Node {
+
+        private SlotEntry<?> value;
+
+        private Node prev;
+
+        private Node next;
+
+        Node(final Node prev, final Node next) {
+            this.prev = prev;
+            this.next = next;
+        }
+    }
+
+    private final class Itr implements ListIterator<SlotEntry<?>> {
+
+        private Node next;
+
+        private Node lastReturned;
+
+        private int nextIndex;
+
+        private int expectedModCount = modCount;
+
+        Itr(final int index) {
+            next = index == size ? null : node(index);
+            nextIndex = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size;
+        }
+
+        @Override
+        public SlotEntry<?> next() {
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            lastReturned = next;
+            next = next.next;
+            nextIndex++;
+            return lastReturned.value;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return nextIndex > 0;
+        }
+
+        @Override
+        public SlotEntry<?> previous() {
+            checkForComodification();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+
+            lastReturned = next = next == null ? tail : next.prev;
+            nextIndex--;
+            return lastReturned.value;
+        }
+
+        @Override
+        public int nextIndex() {
+            return nextIndex;
+        }
+
+        @Override
+        public int previousIndex() {
+            return nextIndex - 1;
+        }
+
+        @Override
+        public void remove() {
+            checkForComodification();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+
+            final Node lastNext = lastReturned.next;
+            unlink(lastReturned);
+            if (next == lastReturned) {
+                next = lastNext;
+            } else {
+                nextIndex--;
+            }
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void set(final SlotEntry<?> entry) {
+            checkForComodification();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+
+            setValue(lastReturned, entry);
+        }
+
+        @Override
+        public void add(final SlotEntry<?> entry) {
+            checkForComodification();
+
+            lastReturned = null;
+            linkBefore(entry, next);
+            nextIndex++;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -17,8 +17,11 @@
  */
 package de.urmel_dl.dbt.rc.datamodel.slot;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import jakarta.xml.bind.annotation.XmlAccessType;
 import jakarta.xml.bind.annotation.XmlAccessorType;
@@ -27,6 +30,7 @@ import jakarta.xml.bind.annotation.XmlAttribute;
 import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlRootElement;
 
+import de.urmel_dl.dbt.rc.datamodel.Modifiable;
 import de.urmel_dl.dbt.rc.datamodel.TypedDate;
 import de.urmel_dl.dbt.rc.rest.v2.annotation.RCAccessCheck;
 
@@ -44,6 +48,10 @@ public class SlotEntry<V> implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<SlotEntry> VERSION = AtomicLongFieldUpdater
+        .newUpdater(SlotEntry.class, "version");
+
     private static String lastID = null;
 
     private String id;
@@ -56,6 +64,16 @@ public class SlotEntry<V> implements Serializable {
 
     private V entry;
 
+    private transient volatile long version;
+
+    /**
+     * Creates a new {@link SlotEntry}.
+     */
+    public SlotEntry() {
+        created.onModified(this::modified);
+        modified.onModified(this::modified);
+    }
+
     private static synchronized String findNewID() {
         String newID = null;
         while ((newID = buildNewID()).equals(lastID)) {
@@ -89,7 +107,12 @@ public class SlotEntry<V> implements Serializable {
      * @param id the id to set
      */
     public void setId(final String id) {
+        final String oldId = this.id;
         this.id = id;
+        if (slot != null) {
+            slot.entryIdChanged(this, oldId);
+        }
+        modified();
     }
 
     /**
@@ -107,6 +130,7 @@ public class SlotEntry<V> implements Serializable {
     }
 
     private void setDate(final TypedDate entryDate) {
+        entryDate.onModified(this::modified);
         switch (entryDate.getType()) {
             case CREATED:
                 created = entryDate;
@@ -117,6 +141,7 @@ public class SlotEntry<V> implements Serializable {
             default:
                 break;
         }
+        modified();
     }
 
     /**
@@ -139,6 +164,8 @@ public class SlotEntry<V> implements Serializable {
     public void setCreated(final Date created) {
         if (created != null) {
             this.created = new TypedDate(TypedDate.Type.CREATED, new Date(created.getTime()));
+            this.created.onModified(this::modified);
+            modified();
         }
     }
 
@@ -184,6 +211,8 @@ public class SlotEntry<V> implements Serializable {
     public void setModified(final Date modified) {
         if (modified != null) {
             this.modified = new TypedDate(TypedDate.Type.MODIFIED, new Date(modified.getTime()));
+            this.modified.onModified(this::modified);
+            modified();
         }
     }
 
@@ -226,6 +255,43 @@ public class SlotEntry<V> implements Serializable {
      */
     public void setEntry(final V entry) {
         this.entry = entry;
+        if (entry instanceof Modifiable) {
+            ((Modifiable) entry).onModified(this::modified);
+        }
+        modified();
+    }
+
+    /**
+     * Returns the version of this {@link SlotEntry}, which is incremented on every modification.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Marks this entry and the owning {@link Slot} as modified, also called by the nested {@link Modifiable}s.
+     */
+    private void modified() {
+        VERSION.incrementAndGet(this);
+        if (slot != null) {
+            slot.modified();
+        }
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // the listeners aren't serialized
+        if (created != null) {
+            created.onModified(this::modified);
+        }
+        if (modified != null) {
+            modified.onModified(this::modified);
+        }
+        if (entry instanceof Modifiable) {
+            ((Modifiable) entry).onModified(this::modified);
+        }
     }
 
     private static int noop() {
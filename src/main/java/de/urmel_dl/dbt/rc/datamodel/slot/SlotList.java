@@ -18,13 +18,24 @@
 package de.urmel_dl.dbt.rc.datamodel.slot;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Function;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import jakarta.xml.bind.annotation.XmlAccessType;
 import jakarta.xml.bind.annotation.XmlAccessorType;
@@ -33,6 +44,8 @@ import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlRootElement;
 
 import org.mycore.common.MCRException;
+import org.mycore.datamodel.classifications2.MCRCategoryID;
+import org.mycore.datamodel.metadata.MCRObjectID;
 
 import de.urmel_dl.dbt.rc.rest.v2.annotation.RCAccessCheck;
 
@@ -46,30 +59,32 @@ public class SlotList implements Serializable {
 
     private static final long serialVersionUID = 8484254848235412462L;
 
-    private List<Slot> slots;
+    private final IndexedSlots slots = new IndexedSlots();
 
     private Long total;
 
+    private transient volatile Projection basicSlots;
+
+    private transient volatile Projection activeSlots;
+
+    private transient boolean readOnly;
+
     public SlotList() {
         this(null);
     }
 
     public SlotList(List<Slot> slots) {
-        Optional.ofNullable(slots).ifPresentOrElse(this::setSlots,
-            () -> setSlots(Collections.synchronizedList(new ArrayList<Slot>())));
-    }
-
-    private <T> T syncronizedSlots(List<Slot> slots, Function<List<Slot>, T> func) {
-        synchronized (slots) {
-            return func.apply(slots);
-        }
+        setSlots(slots);
     }
 
     /**
+     * Returns a live view of the slots. All modifications through the view are reflected by the indexes.
+     * The view of a shared projection like {@link #getBasicSlots()} is unmodifiable.
+     *
      * @return the slots
      */
     public List<Slot> getSlots() {
-        return slots;
+        return readOnly ? Collections.unmodifiableList(slots) : slots;
     }
 
     /**
@@ -77,45 +92,58 @@ public class SlotList implements Serializable {
      */
     @XmlElement(name = "slot")
     public void setSlots(final List<Slot> slots) {
-        this.slots = Optional.ofNullable(slots).orElse(Collections.synchronizedList(new ArrayList<Slot>()));
+        checkModifiable();
+        if (slots != this.slots) {
+            this.slots.reset(Optional.ofNullable(slots).orElse(Collections.emptyList()));
+        }
     }
 
     /**
      * @param slot the slot to add
      */
     public void addSlot(final Slot slot) {
-        if (slot.getSlotId() != null && getSlotById(slot.getSlotId()) != null) {
-            throw new MCRException("Slot with id " + slot.getSlotId() + " already exists!");
-        }
-
-        syncronizedSlots(slots, (sl) -> sl.add(slot));
+        checkModifiable();
+        slots.add(slot);
     }
 
     /**
      * @param slot the slot to set
      */
     public void setSlot(final Slot slot) {
-        IntStream.range(0, slots.size())
-            .filter(c -> slot.getSlotId().equals(syncronizedSlots(slots, (sl) -> sl.get(c).getSlotId()))).findFirst()
-            .ifPresentOrElse(c -> slots.set(c, slot),
-                () -> new IllegalArgumentException("Couldn't find Slot with id \"" + slot.getSlotId() + "\"!"));
+        checkModifiable();
+        slots.replace(slot);
     }
 
     public void removeSlot(final Slot slot) {
+        checkModifiable();
         slots.remove(slot);
     }
 
     @XmlAttribute(name = "total")
     public long getTotal() {
-        return total != null ? total : (long) syncronizedSlots(slots, (sl) -> sl.size());
+        return total != null ? total : (long) slots.size();
     }
 
     public void setTotal(final Long total) {
+        checkModifiable();
         this.total = total;
+        basicSlots = null;
     }
 
     protected void setTotal(long total) {
+        checkModifiable();
         this.total = total;
+        basicSlots = null;
+    }
+
+    /**
+     * Returns the version of this list, which is incremented on every add, remove, replace or reorder of slots.
+     * Modifications of the slots itself are tracked by {@link Slot#getVersion()}.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return slots.version.get();
     }
 
     /**
@@ -125,30 +153,360 @@ public class SlotList implements Serializable {
      * @return the slot
      */
     public Slot getSlotById(final String slotId) {
-        return syncronizedSlots(slots,
-            (sl) -> sl.stream().filter(slot -> slotId.equals(slot.getSlotId())).findFirst().orElse(null));
+        return slotId != null ? slots.bySlotId.get(slotId) : null;
+    }
+
+    /**
+     * Returns a slot by given {@link MCRObjectID}.
+     *
+     * @param objId the {@link MCRObjectID}
+     * @return the slot or <code>null</code> if nothing was found
+     */
+    public Slot getSlotByMCRObjectID(final MCRObjectID objId) {
+        return objId != null ? slots.byObjectId.get(objId) : null;
+    }
+
+    /**
+     * Returns all slots for given reserve collection location.
+     *
+     * @param location the reserve collection location
+     * @return an unmodifiable collection of slots
+     */
+    public Collection<Slot> getSlotsByLocation(final MCRCategoryID location) {
+        return Optional.ofNullable(location).map(slots.byLocation::get).map(Map::values)
+            .map(Collections::unmodifiableCollection).orElse(Collections.emptyList());
+    }
+
+    /**
+     * Returns the next free id for given reserve collection location without reserving it.
+     *
+     * @param location the reserve collection location
+     * @return the next id
+     */
+    public int getNextFreeId(final MCRCategoryID location) {
+        return Optional.ofNullable(slots.highWater.get(location)).map(AtomicInteger::get).orElse(0) + 1;
     }
 
     /**
-     * Returns a {@link SlotList}.
+     * Reserves and returns the next free id for given reserve collection location.
+     * Reserved ids are never handed out twice, even if no slot was added with it,
+     * until the list is cleared.
+     *
+     * @param location the reserve collection location
+     * @return the reserved id
+     */
+    public int allocateId(final MCRCategoryID location) {
+        return slots.highWater.computeIfAbsent(location, l -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * Returns a {@link SlotList} with the {@link Slot#getBasicCopy() basic copies} of all slots.
+     * The list is reused until a slot is added, removed or modified and is unmodifiable.
      *
      * @return the {@link SlotList}
      */
     public SlotList getBasicSlots() {
-        SlotList l = syncronizedSlots(slots,
-            (sl) -> new SlotList(sl.stream().map(Slot::getBasicCopy).distinct().collect(Collectors.toList())));
+        final long version = getVersion();
+        final long slotsVersion = slots.slotsVersion.get();
+        final Projection p = basicSlots;
+        if (p != null && p.isValid(version, slotsVersion) && slots.isTracked()) {
+            return p.slotList;
+        }
+
+        final SlotList l = new SlotList(slots.stream().map(Slot::getBasicCopy).collect(Collectors.toList()));
         l.total = total;
+        l.readOnly = true;
+        basicSlots = new Projection(version, slotsVersion, l);
         return l;
     }
 
     /**
-     * Returns a {@link SlotList} with only active {@link Slot}s.
+     * Returns a {@link SlotList} with the {@link Slot#getBasicCopy() basic copies} of only active {@link Slot}s.
+     * The list is reused until a slot is added, removed or modified and is unmodifiable.
      *
      * @return the {@link SlotList}
      */
     public SlotList getActiveSlots() {
-        return syncronizedSlots(slots, (sl) -> new SlotList(
-            sl.stream().filter(Slot::isActive).map(Slot::getBasicCopy).distinct().collect(Collectors.toList())));
+        final long version = getVersion();
+        final long slotsVersion = slots.slotsVersion.get();
+        final Projection p = activeSlots;
+        if (p != null && p.isValid(version, slotsVersion) && slots.isTracked()) {
+            return p.slotList;
+        }
+
+        final SlotList l = new SlotList(
+            slots.stream().filter(Slot::isActive).map(Slot::getBasicCopy).collect(Collectors.toList()));
+        l.readOnly = true;
+        activeSlots = new Projection(version, slotsVersion, l);
+        return l;
+    }
+
+    private void checkModifiable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("A shared projection of a slot list can't be modified.");
+        }
+    }
+
+    private static final class Projection {
+
+        private final long version;
+
+        private final long slotsVersion;
+
+        private final SlotList slotList;
+
+        Projection(final long version, final long slotsVersion, final SlotList slotList) {
+            this.version = version;
+            this.slotsVersion = slotsVersion;
+            this.slotList = slotList;
+        }
+
+        boolean isValid(final long version, final long slotsVersion) {
+            return this.version == version && this.slotsVersion == slotsVersion;
+        }
+    }
+
+    /**
+     * An ordered {@link List} of slots with concurrent indexes by slot id, {@link MCRObjectID} and location.
+     * Writers are serialized on the list itself. Readers of the order get an immutable snapshot, which is only
+     * copied on the first read after a modification, so bulk adds stay linear.
+     * <p>
+     * Every slot is attached to the modification counter of the first list holding it, so modifications of the
+     * slots increment {@link #slotsVersion}. Slots attached to another list are counted as foreign, while any
+     * exist the counter doesn't track all slots.
+     */
+    private static final class IndexedSlots extends AbstractList<Slot> implements RandomAccess, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Slot> ordered = new ArrayList<>();
+
+        private transient volatile List<Slot> snapshot = Collections.emptyList();
+
+        private final Map<String, Slot> bySlotId = new ConcurrentHashMap<>();
+
+        private final Map<MCRObjectID, Slot> byObjectId = new ConcurrentHashMap<>();
+
+        private final Map<MCRCategoryID, Map<String, Slot>> byLocation = new ConcurrentHashMap<>();
+
+        private final Map<MCRCategoryID, AtomicInteger> highWater = new ConcurrentHashMap<>();
+
+        private final AtomicLong version = new AtomicLong();
+
+        private final AtomicLong slotsVersion = new AtomicLong();
+
+        private volatile int foreign;
+
+        @Override
+        public Slot get(int index) {
+            return view().get(index);
+        }
+
+        @Override
+        public int size() {
+            return view().size();
+        }
+
+        @Override
+        public Iterator<Slot> iterator() {
+            return view().iterator();
+        }
+
+        @Override
+        public ListIterator<Slot> listIterator(int index) {
+            return view().listIterator(index);
+        }
+
+        @Override
+        public Spliterator<Slot> spliterator() {
+            return view().spliterator();
+        }
+
+        @Override
+        public synchronized boolean add(Slot slot) {
+            checkFree(slot);
+            ordered.add(slot);
+            index(slot);
+            modified();
+            return true;
+        }
+
+        @Override
+        public synchronized void add(int index, Slot slot) {
+            checkFree(slot);
+            ordered.add(index, slot);
+            index(slot);
+            modified();
+        }
+
+        @Override
+        public synchronized Slot set(int index, Slot slot) {
+            final Slot old = ordered.get(index);
+            if (!Objects.equals(slotId(old), slotId(slot))) {
+                checkFree(slot);
+            }
+            ordered.set(index, slot);
+            unindex(old);
+            index(slot);
+            modified();
+            return old;
+        }
+
+        @Override
+        public synchronized Slot remove(int index) {
+            final Slot old = ordered.remove(index);
+            unindex(old);
+            modified();
+            return old;
+        }
+
+        @Override
+        public synchronized boolean remove(Object o) {
+            if (!(o instanceof Slot)) {
+                return false;
+            }
+
+            int index = indexOfInstance((Slot) o);
+            if (index == -1) {
+                // another instance of an indexed slot
+                final Slot old = Optional.ofNullable(slotId((Slot) o)).map(bySlotId::get).orElse(null);
+                index = old != null ? indexOfInstance(old) : -1;
+            }
+
+            if (index != -1) {
+                remove(index);
+                return true;
+            }
+
+            return false;
+        }
+
+        @Override
+        public synchronized boolean removeIf(Predicate<? super Slot> filter) {
+            final List<Slot> removed = ordered.stream().filter(filter).collect(Collectors.toList());
+            removed.forEach(slot -> {
+                ordered.remove(indexOfInstance(slot));
+                unindex(slot);
+            });
+            if (!removed.isEmpty()) {
+                modified();
+            }
+            return !removed.isEmpty();
+        }
+
+        @Override
+        public synchronized void sort(Comparator<? super Slot> c) {
+            ordered.sort(c);
+            modified();
+        }
+
+        @Override
+        public synchronized void clear() {
+            ordered.forEach(slot -> slot.detach(slotsVersion));
+            foreign = 0;
+            ordered.clear();
+            bySlotId.clear();
+            byObjectId.clear();
+            byLocation.clear();
+            highWater.clear();
+            modified();
+        }
+
+        synchronized void replace(Slot slot) {
+            final Slot old = Optional.ofNullable(slotId(slot)).map(bySlotId::get).orElse(null);
+            final int index = old != null ? indexOfInstance(old) : -1;
+
+            if (index != -1) {
+                ordered.set(index, slot);
+                unindex(old);
+                index(slot);
+                modified();
+            }
+        }
+
+        synchronized void reset(List<Slot> slots) {
+            clear();
+            slots.forEach(this::add);
+        }
+
+        boolean isTracked() {
+            return foreign == 0;
+        }
+
+        private List<Slot> view() {
+            List<Slot> view = snapshot;
+            if (view == null) {
+                synchronized (this) {
+                    view = snapshot;
+                    if (view == null) {
+                        view = Collections.unmodifiableList(new ArrayList<>(ordered));
+                        snapshot = view;
+                    }
+                }
+            }
+            return view;
+        }
+
+        private void modified() {
+            snapshot = null;
+            version.incrementAndGet();
+        }
+
+        private int indexOfInstance(Slot slot) {
+            for (int i = 0; i < ordered.size(); i++) {
+                if (ordered.get(i) == slot) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void checkFree(Slot slot) {
+            Objects.requireNonNull(slot, "Slot must not be null.");
+            if (slot.isAttached(slotsVersion)) {
+                throw new MCRException("Slot " + slot + " is already in the list!");
+            }
+            final String slotId = slotId(slot);
+            if (slotId != null && bySlotId.containsKey(slotId)) {
+                throw new MCRException("Slot with id " + slotId + " already exists!");
+            }
+        }
+
+        // slots without location have no slot id and are only hold in order
+        private static String slotId(Slot slot) {
+            return slot.getLocation() != null ? slot.getSlotId() : null;
+        }
+
+        private void index(Slot slot) {
+            if (!slot.attach(slotsVersion)) {
+                foreign++;
+            }
+            Optional.ofNullable(slot.getMCRObjectID()).ifPresent(id -> byObjectId.put(id, slot));
+
+            final String slotId = slotId(slot);
+            if (slotId != null) {
+                bySlotId.put(slotId, slot);
+                byLocation.computeIfAbsent(slot.getLocation(), l -> new ConcurrentHashMap<>()).put(slotId, slot);
+                highWater.computeIfAbsent(slot.getLocation(), l -> new AtomicInteger())
+                    .accumulateAndGet(slot.getId(), Math::max);
+            }
+        }
+
+        private void unindex(Slot slot) {
+            if (!slot.detach(slotsVersion)) {
+                foreign--;
+            }
+            Optional.ofNullable(slot.getMCRObjectID()).ifPresent(id -> byObjectId.remove(id, slot));
+
+            final String slotId = slotId(slot);
+            if (slotId != null) {
+                bySlotId.remove(slotId, slot);
+                byLocation.computeIfPresent(slot.getLocation(), (l, m) -> {
+                    m.remove(slotId, slot);
+                    return m.isEmpty() ? null : m;
+                });
+            }
+        }
     }
 
 }
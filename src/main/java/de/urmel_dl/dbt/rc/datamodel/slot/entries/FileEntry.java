@@ -17,7 +17,7 @@
  */
 package de.urmel_dl.dbt.rc.datamodel.slot.entries;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -26,14 +26,14 @@ import java.io.UncheckedIOException;
 import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.function.BiConsumer;
-import java.util.function.Function;
 
 import jakarta.xml.bind.annotation.XmlAccessType;
 import jakarta.xml.bind.annotation.XmlAccessorType;
@@ -43,12 +43,13 @@ import jakarta.xml.bind.annotation.XmlValue;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.pdfbox.cos.COSDocument;
-import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
 import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
+import org.mycore.common.config.MCRConfiguration2;
 
+import de.urmel_dl.dbt.rc.datamodel.Modifiable;
 import de.urmel_dl.dbt.rc.rest.v2.annotation.RCAccessCheck;
 
 /**
@@ -59,7 +60,7 @@ import de.urmel_dl.dbt.rc.rest.v2.annotation.RCAccessCheck;
 @RCAccessCheck
 @XmlRootElement(name = "file")
 @XmlAccessorType(XmlAccessType.NONE)
-public class FileEntry implements Serializable {
+public class FileEntry extends Modifiable implements Serializable {
 
     /** The Constant DEFAULT_HASH_TYPE. */
     public static final String DEFAULT_HASH_TYPE = "SHA-1";
@@ -79,6 +80,11 @@ public class FileEntry implements Serializable {
 
     private static final String TEMP_FILE_EXTENSION = ".rctmp";
 
+    private static final String CONFIG_PREFIX = "DBT.RC.FileEntry.";
+
+    // max. number of pages of a copyrighted PDF document
+    private static final int MAX_PAGES = 50;
+
     private String name;
 
     private boolean copyrighted;
@@ -116,17 +122,12 @@ public class FileEntry implements Serializable {
         fileEntry.setComment(comment);
         fileEntry.setCopyrighted(isCopyrighted);
 
-        createTempFileEntry(fileEntry, is);
+        fileEntry.writeTempFile(is);
 
         if (isCopyrighted) {
             processContent(entryId, fileEntry);
         }
 
-        Optional.ofNullable(fileEntry.getPath()).ifPresent((p) -> {
-            fileEntry.setSize(p.toFile().length());
-            fileEntry.setHash(buildHash(p));
-        });
-
         return fileEntry;
     }
 
@@ -136,180 +137,148 @@ public class FileEntry implements Serializable {
 
     private static void processContent(final String entryId, final FileEntry fileEntry)
         throws FileEntryProcessingException, IOException {
+        final String fileName = fileEntry.getName();
+        final Path source = fileEntry.getPath();
 
-        if (entryAsInputStream(fileEntry, is -> FileEntry.isPDF(is))) {
-            final String fileName = fileEntry.getName();
+        final PDDocument doc;
+        try {
+            doc = PDDocument.load(source.toFile(), pdfMemoryUsageSetting());
+        } catch (IOException e) {
+            LOGGER.debug("\"{}\" isn't a supported PDF, keep it unchanged.", fileName);
+            return;
+        }
 
-            Path pdfCopy = null;
+        Path encrypted = null;
+        try (doc) {
+            int numPages = doc.getNumberOfPages();
 
-            try {
-                int numPages = entryAsInputStream(fileEntry, is -> getNumPagesFromPDF(is));
+            LOGGER.info("Check num pages for \"" + fileName + "\": " + numPages);
+            if (numPages > MAX_PAGES) {
+                throw new FileEntryProcessingException("page limit exceede", ERROR_PAGE_LIMIT_EXCEEDED);
+            }
 
-                LOGGER.info("Check num pages for \"" + fileName + "\": " + numPages);
-                if (numPages == -1 || numPages > 50) {
-                    throw new FileEntryProcessingException("page limit exceede", ERROR_PAGE_LIMIT_EXCEEDED);
-                }
+            if (doc.isEncrypted()) {
+                LOGGER.info("\"" + fileName + "\" is already encrypted.");
+                return;
+            }
 
-                LOGGER.info("Make an supported copy for \"" + fileName + "\".");
-                pdfCopy = entryInputStreamToPathConsumer(fileEntry, FileEntry::copyPDF);
+            LOGGER.info("Encrypt \"" + fileName + "\".");
+            protectPDF(entryId, doc);
 
-                LOGGER.info("Encrypt \"" + fileName + "\".");
-                fileEntry.setPath(entryInputStreamToPathConsumer(fileEntry, (is, os) -> encryptPDF(entryId, is, os)));
-            } catch (IOException e) {
-                throw new FileEntryProcessingException(e.getMessage(), ERROR_NOT_SUPPORTED);
-            } finally {
-                if (pdfCopy != null) {
-                    Files.deleteIfExists(pdfCopy);
-                }
+            encrypted = createTempFile(fileName);
+            final MessageDigest md = newMessageDigest();
+            try (OutputStream os = new DigestOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(encrypted)), md)) {
+                doc.save(os);
             }
-        }
-    }
-
-    private static <T> T entryAsInputStream(FileEntry entry, Function<InputStream, T> func) throws IOException {
-        try (InputStream is = Files.newInputStream(entry.getPath())) {
-            return func.apply(is);
-        }
-    }
 
-    private static Path entryInputStreamToPathConsumer(FileEntry entry,
-        BiConsumer<InputStream, OutputStream> consumer) throws IOException {
-        Path tmpFile = Files.createTempFile(entry.getName(), ".pdf");
-        OutputStream os = Files.newOutputStream(tmpFile);
-        try (InputStream is = Files.newInputStream(entry.getPath())) {
-            consumer.accept(is, os);
+            fileEntry.setPath(encrypted);
+            fileEntry.setSize(Files.size(encrypted));
+            fileEntry.setHash(toHex(md));
+        } catch (IOException e) {
+            if (encrypted != null) {
+                Files.deleteIfExists(encrypted);
+            }
+            throw new FileEntryProcessingException(e.getMessage(), ERROR_NOT_SUPPORTED);
         }
-        return tmpFile;
-    }
 
-    private static void createTempFileEntry(final FileEntry fileEntry, final InputStream is) throws IOException {
-        Path tmpFile = Files.createTempFile(fileEntry.getName(), TEMP_FILE_EXTENSION);
-        Files.copy(is, tmpFile, StandardCopyOption.REPLACE_EXISTING);
-        fileEntry.setPath(tmpFile);
-    }
-
-    private static boolean isPDF(final InputStream is) {
-        try {
-            try (is; PDDocument doc = PDDocument.load(is)) {
-                return doc != null;
-            }
-        } catch (IOException e) {
-            return false;
+        if (isTempFile(source)) {
+            Files.deleteIfExists(source);
         }
     }
 
     /**
-     * Returns the number of pages from given PDF {@link InputStream}.
+     * Returns the memory settings used to load PDF documents. Only a part of the document is hold in memory,
+     * the remainder is buffered in scratch files up to a limit, 256 MB by default.
      *
-     * @param pdfInput the {@link InputStream}
-     * @return the number of pages
-     * @throws UncheckedIOException thrown if file not found or other
+     * @return the memory settings
      */
-    private static int getNumPagesFromPDF(final InputStream pdfInput) {
-        try (pdfInput; PDDocument doc = PDDocument.load(pdfInput)) {
-            return doc.getNumberOfPages();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+    private static MemoryUsageSetting pdfMemoryUsageSetting() {
+        return MemoryUsageSetting.setupMixed(
+            MCRConfiguration2.getLong(CONFIG_PREFIX + "PDF.MaxMainMemory").orElse(16L * 1024 * 1024),
+            MCRConfiguration2.getLong(CONFIG_PREFIX + "PDF.MaxScratchStorage").orElse(256L * 1024 * 1024));
     }
 
     /**
-     * Makes an save copy of given PDF {@link InputStream} to an new {@link OutputStram}.
-     *
-     * @param pdfInput the PDF {@link InputStream}
-     * @param pdfOutput the PDF {@link OutputStram}
-     * @throws UncheckedIOException  hrown if file not found or other
+     * Creates a temporary file in the directory configured by <code>DBT.RC.FileEntry.TempDir</code>, or the
+     * default temporary directory if none is set. A temporary file on the same filesystem as the store can be moved
+     * instead of copied.
      */
-    private static void copyPDF(final InputStream pdfInput, final OutputStream pdfOutput) {
-        COSWriter writer = null;
-        try {
-            try (pdfInput) {
-                try (PDDocument document = PDDocument.load(pdfInput)) {
-                    try (COSDocument doc = document.getDocument()) {
-                        writer = new COSWriter(pdfOutput);
-                        writer.write(doc);
-                    }
-                }
-            } finally {
-                if (writer != null) {
-                    writer.close();
-                }
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    private static Path createTempFile(final String prefix) throws IOException {
+        Optional<Path> tempDir = MCRConfiguration2.getString(CONFIG_PREFIX + "TempDir").map(Paths::get);
+        if (tempDir.isPresent()) {
+            return Files.createTempFile(Files.createDirectories(tempDir.get()), prefix, TEMP_FILE_EXTENSION);
         }
+        return Files.createTempFile(prefix, TEMP_FILE_EXTENSION);
     }
 
     /**
      * Secures the PDF document and set the password.
      *
      * @param password the password
-     * @param pdfInput the PDF {@link InputStream}
-     * @param pdfOutput the PDF {@link OutputStram}
-     * @throws UncheckedIOException thrown if file not found or other
+     * @param doc the PDF document
+     * @throws IOException thrown if the document couldn't secured
      */
-    private static void encryptPDF(final String password, final InputStream pdfInput, final OutputStream pdfOutput) {
-        try (pdfInput; PDDocument doc = PDDocument.load(pdfInput)) {
-
-            AccessPermission ap = new AccessPermission();
-
-            ap.setCanAssembleDocument(false);
-            ap.setCanExtractContent(false);
-            ap.setCanExtractForAccessibility(false);
-            ap.setCanFillInForm(false);
-            ap.setCanModify(false);
-            ap.setCanModifyAnnotations(false);
-            ap.setCanPrint(false);
-            ap.setCanPrintDegraded(false);
-            ap.setReadOnly();
-
-            if (!doc.isEncrypted()) {
-                StandardProtectionPolicy spp = new StandardProtectionPolicy(password, null, ap);
-                doc.protect(spp);
+    private static void protectPDF(final String password, final PDDocument doc) throws IOException {
+        AccessPermission ap = new AccessPermission();
+
+        ap.setCanAssembleDocument(false);
+        ap.setCanExtractContent(false);
+        ap.setCanExtractForAccessibility(false);
+        ap.setCanFillInForm(false);
+        ap.setCanModify(false);
+        ap.setCanModifyAnnotations(false);
+        ap.setCanPrint(false);
+        ap.setCanPrintDegraded(false);
+        ap.setReadOnly();
+
+        StandardProtectionPolicy spp = new StandardProtectionPolicy(password, null, ap);
+        doc.protect(spp);
+    }
 
-                doc.save(pdfOutput);
-            }
+    /**
+     * Writes a decrypted copy of the PDF document to the target file.
+     *
+     * @param password the password
+     * @param pdf the encrypted PDF document
+     * @param target the target file
+     * @return <code>false</code> if the file isn't an encrypted PDF document and nothing was written
+     * @throws IOException thrown if the document couldn't decrypted
+     */
+    private static boolean decryptPDF(final String password, final Path pdf, final Path target) throws IOException {
+        final PDDocument doc;
+        try {
+            doc = PDDocument.load(pdf.toFile(), password, pdfMemoryUsageSetting());
         } catch (IOException e) {
-            throw new UncheckedIOException(e);
+            LOGGER.debug("\"" + pdf.getFileName() + "\" isn't a readable PDF document.", e);
+            return false;
         }
-    }
 
-    private static void decryptPDF(final String password, final InputStream pdfInput, final OutputStream pdfOutput)
-        throws IOException {
-        try (pdfInput; PDDocument doc = PDDocument.load(pdfInput, password)) {
+        try (doc) {
+            if (!doc.isEncrypted()) {
+                return false;
+            }
 
-            if (doc.isEncrypted()) {
-                doc.setAllSecurityToBeRemoved(true);
-                doc.save(pdfOutput);
+            doc.setAllSecurityToBeRemoved(true);
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(target))) {
+                doc.save(os);
             }
+            return true;
         }
     }
 
-    private static String buildHash(Path file) {
+    private static MessageDigest newMessageDigest() {
         try {
-            byte[] buffer = new byte[8192];
-            MessageDigest md = MessageDigest.getInstance(DEFAULT_HASH_TYPE);
-            try (InputStream is = Files.newInputStream(file);
-                DigestInputStream dis = new DigestInputStream(is, md)) {
-                long start = System.currentTimeMillis();
-                int numRead;
-
-                do {
-                    numRead = dis.read(buffer);
-                    if (numRead > 0) {
-                        md.update(buffer, 0, numRead);
-                    }
-                } while (numRead != -1);
-
-                LOGGER.info("generate hash for {} in {}ms", file.getFileName(),
-                    (System.currentTimeMillis() - start));
-                return String.format(Locale.ROOT, "%032X", new BigInteger(1, md.digest()));
-            }
-        } catch (NoSuchAlgorithmException | IOException e) {
-            LOGGER.error(e);
-            return null;
+            return MessageDigest.getInstance(DEFAULT_HASH_TYPE);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
+    private static String toHex(MessageDigest md) {
+        return String.format(Locale.ROOT, "%032X", new BigInteger(1, md.digest()));
+    }
+
     /**
      * Gets the name.
      *
@@ -327,6 +296,7 @@ public class FileEntry implements Serializable {
      */
     public void setName(final String name) {
         this.name = name;
+        modified();
     }
 
     /**
@@ -346,6 +316,7 @@ public class FileEntry implements Serializable {
      */
     public void setCopyrighted(boolean copyrighted) {
         this.copyrighted = copyrighted;
+        modified();
     }
 
     /**
@@ -363,6 +334,7 @@ public class FileEntry implements Serializable {
      */
     protected void setHash(String hash) {
         this.hash = hash;
+        modified();
     }
 
     /**
@@ -380,36 +352,36 @@ public class FileEntry implements Serializable {
      */
     protected void setSize(long size) {
         this.size = size;
+        modified();
     }
 
     /**
-     * Gets the exportable content.
+     * Opens the exportable content. Copyrighted PDF documents are decrypted once and the copy is kept in the
+     * {@link FileEntryExportCache}.
      *
      * @param entryId the entry id
-     * @return the exportable path
+     * @return the exportable content, the caller has to close the stream
+     * @throws IOException thrown if the content couldn't opened
      */
-    public Path getExportablePath(final String entryId) {
+    public InputStream getExportableContent(final String entryId) throws IOException {
         if (this.copyrighted) {
-            try {
-                if (isPDF(Files.newInputStream(getPath()))) {
-                    ByteArrayOutputStream pdf = new ByteArrayOutputStream();
-
-                    decryptPDF(entryId, Files.newInputStream(getPath()), pdf);
-
-                    Path tmpFile = Files.createTempFile(entryId, TEMP_FILE_EXTENSION);
+            final Optional<InputStream> exportable = FileEntryExportCache.instance()
+                .open(exportKey(entryId), target -> decryptPDF(entryId, getPath(), target));
+            if (exportable.isPresent()) {
+                return exportable.get();
+            }
+        }
 
-                    try (OutputStream fos = Files.newOutputStream(tmpFile)) {
-                        pdf.writeTo(fos);
-                    }
+        return Files.newInputStream(getPath());
+    }
 
-                    return tmpFile;
-                }
-            } catch (IOException e) {
-                LOGGER.error(e);
-            }
+    private String exportKey(final String entryId) throws IOException {
+        if (hash != null) {
+            return entryId + "_" + hash;
         }
 
-        return getPath();
+        return entryId + "_" + Long.toHexString(Files.getLastModifiedTime(getPath()).toMillis()) + "-"
+            + Long.toHexString(Files.size(getPath()));
     }
 
     /**
@@ -420,14 +392,32 @@ public class FileEntry implements Serializable {
      */
     public void setContent(final InputStream is) throws IOException {
         try {
-            Path tmpFile = Files.createTempFile(name, TEMP_FILE_EXTENSION);
-            Files.copy(is, tmpFile, StandardCopyOption.REPLACE_EXISTING);
-            setPath(tmpFile);
+            writeTempFile(is);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * Writes the content to a new temporary file. Size and hash are computed while writing, so the file doesn't
+     * need to be read again.
+     *
+     * @param is the InputStream
+     * @throws IOException thrown if couldn't write the temporary file
+     */
+    private void writeTempFile(final InputStream is) throws IOException {
+        final Path tmpFile = createTempFile(name);
+        final MessageDigest md = newMessageDigest();
+        try {
+            setSize(Files.copy(new DigestInputStream(is, md), tmpFile, StandardCopyOption.REPLACE_EXISTING));
+        } catch (IOException e) {
+            Files.deleteIfExists(tmpFile);
+            throw e;
+        }
+        setPath(tmpFile);
+        setHash(toHex(md));
+    }
+
     /**
      * Gets the comment.
      *
@@ -445,6 +435,7 @@ public class FileEntry implements Serializable {
      */
     public void setComment(final String comment) {
         this.comment = comment;
+        modified();
     }
 
     /**
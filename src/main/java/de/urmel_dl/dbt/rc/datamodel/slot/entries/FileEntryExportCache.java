@@ -0,0 +1,270 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2017
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc.datamodel.slot.entries;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.config.MCRConfiguration2;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * A disk backed cache of exportable copies of {@link FileEntry}s, like decrypted copyrighted PDF documents.
+ *
+ * Copies are stored in a cache directory and evicted least recently used if the configured size is exceeded. The key
+ * contains the hash of the stored file, so a changed entry never returns an outdated copy. Entries without an
+ * exportable copy are remembered as well and don't occupy any space.
+ *
+ * Copies are handed out as opened streams, so an evicted copy can still be read until the stream is closed. Every
+ * copy is written to a file of its own, so evicting an outdated copy never removes a newer one.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ */
+public class FileEntryExportCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CONFIG_PREFIX = "DBT.RC.FileEntry.ExportCache.";
+
+    private static final String EXPORT_EXTENSION = ".export";
+
+    private static final String PART_EXTENSION = ".part";
+
+    private static final int OPEN_ATTEMPTS = 3;
+
+    private final Path dir;
+
+    private final Cache<String, Optional<Path>> cache;
+
+    /**
+     * Creates a new cache in the given directory. Left over copies of a former cache in this directory are removed.
+     *
+     * @param dir the cache directory
+     * @param maxSize the max. size of all cached copies in bytes
+     */
+    public FileEntryExportCache(Path dir, long maxSize) {
+        this.dir = dir;
+        final int maxWeight = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxSize / 1024));
+        // a single segment, otherwise the max. size is split up between segments, and the latest copy always fits,
+        // so a copy larger than the max. size isn't removed before it was opened
+        this.cache = CacheBuilder.newBuilder()
+            .concurrencyLevel(1)
+            .maximumWeight(maxWeight)
+            .<String, Optional<Path>>weigher(
+                (key, value) -> value.map(file -> Math.min(maxWeight, weigh(file))).orElse(0))
+            .removalListener(this::onRemoval)
+            .recordStats()
+            .build();
+
+        cleanUp();
+    }
+
+    /**
+     * Returns the shared instance configured by <code>DBT.RC.FileEntry.ExportCache.Dir</code> and
+     * <code>DBT.RC.FileEntry.ExportCache.MaxSize</code>.
+     *
+     * @return the instance
+     */
+    public static FileEntryExportCache instance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Opens the exportable copy for given key. If the copy isn't cached, the writer is called once to create it,
+     * concurrent requests for the same key wait for it. The copy stays readable until the returned stream is
+     * closed, even if it's evicted in the meantime.
+     *
+     * @param key the key, should contain the entry id and hash
+     * @param writer the writer of the exportable copy
+     * @return the opened exportable copy or {@link Optional#empty()} if the writer doesn't create one
+     * @throws IOException thrown if the copy couldn't created or opened
+     */
+    public Optional<InputStream> open(String key, ExportWriter writer) throws IOException {
+        for (int i = 1;; i++) {
+            final Optional<Path> file = get(key, writer);
+            if (file.isEmpty()) {
+                return Optional.empty();
+            }
+
+            try {
+                return Optional.of(Files.newInputStream(file.get()));
+            } catch (NoSuchFileException e) {
+                // evicted between lookup and open
+                cache.asMap().remove(key, file);
+                if (i == OPEN_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Optional<Path> get(String key, ExportWriter writer) throws IOException {
+        try {
+            return cache.get(key, () -> write(key, writer));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Couldn't create exportable copy for " + key + ".", e.getCause());
+        }
+    }
+
+    /**
+     * Removes the exportable copy for given key.
+     *
+     * @param key the key
+     */
+    public void remove(String key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * Removes all exportable copies.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return the number of cached entries
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return the statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private Optional<Path> write(String key, ExportWriter writer) throws IOException {
+        Files.createDirectories(dir);
+
+        Path part = Files.createTempFile(dir, key, PART_EXTENSION);
+        try {
+            if (!writer.write(part)) {
+                return Optional.empty();
+            }
+
+            String partName = part.getFileName().toString();
+            Path target = dir.resolve(partName.substring(0, partName.length() - PART_EXTENSION.length())
+                + EXPORT_EXTENSION);
+
+            try {
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            LOGGER.info("Cached exportable copy {} ({} bytes).", key, Files.size(target));
+            return Optional.of(target);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    private void onRemoval(RemovalNotification<String, Optional<Path>> notification) {
+        notification.getValue().ifPresent(file -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOGGER.warn("Couldn't delete exportable copy {}.", file, e);
+            }
+        });
+    }
+
+    private void cleanUp() {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(Files::isRegularFile).filter(file -> {
+                String fileName = file.getFileName().toString();
+                return fileName.endsWith(EXPORT_EXTENSION) || fileName.endsWith(PART_EXTENSION);
+            }).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.warn("Couldn't clean up export cache directory {}.", dir, e);
+        }
+    }
+
+    private static int weigh(Path file) {
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, Files.size(file) / 1024 + 1);
+        } catch (IOException e) {
+            return 1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileEntryExportCache [dir=" + dir + ", size=" + cache.size() + ", stats=" + cache.stats() + "]";
+    }
+
+    /**
+     * Writes an exportable copy of a {@link FileEntry}.
+     */
+    @FunctionalInterface
+    public interface ExportWriter {
+
+        /**
+         * Writes the exportable copy to given target.
+         *
+         * @param target the target file
+         * @return <code>false</code> if there is no exportable copy and the stored file should be used
+         * @throws IOException thrown if the copy couldn't written
+         */
+        boolean write(Path target) throws IOException;
+    }
+
+    private static final class InstanceHolder {
+
+        private static final FileEntryExportCache INSTANCE = new FileEntryExportCache(
+            Paths.get(MCRConfiguration2.getStringOrThrow(CONFIG_PREFIX + "Dir")),
+            MCRConfiguration2.getLong(CONFIG_PREFIX + "MaxSize").orElse(1073741824L));
+    }
+}
@@ -24,13 +24,15 @@ import jakarta.xml.bind.annotation.XmlAccessorType;
 import jakarta.xml.bind.annotation.XmlRootElement;
 import jakarta.xml.bind.annotation.XmlValue;
 
+import de.urmel_dl.dbt.rc.datamodel.Modifiable;
+
 /**
  * @author Ren\u00E9 Adler (eagle)
  *
  */
 @XmlRootElement(name = "headline")
 @XmlAccessorType(XmlAccessType.NONE)
-public class HeadlineEntry implements Serializable {
+public class HeadlineEntry extends Modifiable implements Serializable {
 
     private static final long serialVersionUID = -1237153354592936902L;
 
@@ -49,6 +51,7 @@ public class HeadlineEntry implements Serializable {
      */
     public void setText(final String text) {
         this.text = text;
+        modified();
     }
 
     /* (non-Javadoc)
@@ -25,13 +25,15 @@ import jakarta.xml.bind.annotation.XmlAttribute;
 import jakarta.xml.bind.annotation.XmlRootElement;
 import jakarta.xml.bind.annotation.XmlValue;
 
+import de.urmel_dl.dbt.rc.datamodel.Modifiable;
+
 /**
  * @author Ren\u00E9 Adler (eagle)
  *
  */
 @XmlRootElement(name = "mcrobject")
 @XmlAccessorType(XmlAccessType.NONE)
-public class MCRObjectEntry implements Serializable {
+public class MCRObjectEntry extends Modifiable implements Serializable {
 
     private static final long serialVersionUID = 1935028969878161974L;
 
@@ -52,6 +54,7 @@ public class MCRObjectEntry implements Serializable {
      */
     public void setId(final String id) {
         this.id = id;
+        modified();
     }
 
     /**
@@ -67,6 +70,7 @@ public class MCRObjectEntry implements Serializable {
      */
     public void setComment(final String comment) {
         this.comment = comment;
+        modified();
     }
 
     /* (non-Javadoc)
@@ -26,6 +26,7 @@ import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlRootElement;
 
 import de.urmel_dl.dbt.opc.datamodel.pica.Record;
+import de.urmel_dl.dbt.rc.datamodel.Modifiable;
 
 /**
  * @author Ren\u00E9 Adler (eagle)
@@ -33,7 +34,7 @@ import de.urmel_dl.dbt.opc.datamodel.pica.Record;
  */
 @XmlRootElement(name = "opcrecord")
 @XmlAccessorType(XmlAccessType.NONE)
-public class OPCRecordEntry implements Serializable {
+public class OPCRecordEntry extends Modifiable implements Serializable {
 
     private static final long serialVersionUID = -4540182175442477505L;
 
@@ -58,6 +59,7 @@ public class OPCRecordEntry implements Serializable {
      */
     public void setEPN(String epn) {
         this.epn = epn;
+        modified();
     }
 
     /**
@@ -73,6 +75,7 @@ public class OPCRecordEntry implements Serializable {
      */
     public void setDeletionMark(Boolean deletionMark) {
         this.deletionMark = deletionMark;
+        modified();
     }
 
     /**
@@ -88,6 +91,7 @@ public class OPCRecordEntry implements Serializable {
      */
     public void setRecord(Record record) {
         this.record = record;
+        modified();
     }
 
     /**
@@ -103,6 +107,7 @@ public class OPCRecordEntry implements Serializable {
      */
     public void setComment(String comment) {
         this.comment = comment;
+        modified();
     }
 
     /* (non-Javadoc)
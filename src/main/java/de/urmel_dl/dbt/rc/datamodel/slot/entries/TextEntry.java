@@ -28,6 +28,8 @@ import jakarta.xml.bind.annotation.XmlRootElement;
 import jakarta.xml.bind.annotation.XmlType;
 import jakarta.xml.bind.annotation.XmlValue;
 
+import de.urmel_dl.dbt.rc.datamodel.Modifiable;
+
 /**
  * The Class TextEntry.
  *
@@ -35,7 +37,7 @@ import jakarta.xml.bind.annotation.XmlValue;
  */
 @XmlRootElement(name = "text")
 @XmlAccessorType(XmlAccessType.NONE)
-public class TextEntry implements Serializable {
+public class TextEntry extends Modifiable implements Serializable {
 
     private static final long serialVersionUID = 933967545791166846L;
 
@@ -60,6 +62,7 @@ public class TextEntry implements Serializable {
      */
     public void setFormat(final Format type) {
         this.format = type;
+        modified();
     }
 
     /**
@@ -79,6 +82,7 @@ public class TextEntry implements Serializable {
      */
     public void setText(final String text) {
         this.text = text;
+        modified();
     }
 
     /* (non-Javadoc)
@@ -25,13 +25,15 @@ import jakarta.xml.bind.annotation.XmlAttribute;
 import jakarta.xml.bind.annotation.XmlRootElement;
 import jakarta.xml.bind.annotation.XmlValue;
 
+import de.urmel_dl.dbt.rc.datamodel.Modifiable;
+
 /**
  * @author Ren\u00E9 Adler (eagle)
  *
  */
 @XmlRootElement(name = "webLink")
 @XmlAccessorType(XmlAccessType.NONE)
-public class WebLinkEntry implements Serializable {
+public class WebLinkEntry extends Modifiable implements Serializable {
 
     private static final long serialVersionUID = 5327721430875614905L;
 
@@ -52,6 +54,7 @@ public class WebLinkEntry implements Serializable {
      */
     public void setURL(final String url) {
         this.url = url;
+        modified();
     }
 
     /**
@@ -67,6 +70,7 @@ public class WebLinkEntry implements Serializable {
      */
     public void setLabel(final String label) {
         this.label = label;
+        modified();
     }
 
     /* (non-Javadoc)
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Collection;
 import java.util.Optional;
 
 import org.mycore.common.MCRException;
@@ -66,6 +67,33 @@ public final class FileEntryManager {
         return store;
     }
 
+    /**
+     * Returns the file collection of the given {@link Slot}. Callers working on several {@link FileEntry}s of one
+     * {@link Slot} should resolve it once and use the collection-scoped methods.
+     *
+     * @param slot the {@link Slot}
+     * @return the {@link MCRFileCollection} or <code>null</code> if nothing was stored yet
+     * @throws MCRPersistenceException thrown if the file collection couldn't retrieved
+     */
+    public static MCRFileCollection getFileCollection(final Slot slot) throws MCRPersistenceException {
+        final int id = slot.getMCRObjectID().getNumberAsInteger();
+
+        try {
+            return getStore().retrieve(id);
+        } catch (MCRException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new MCRPersistenceException("Exception while retrieving fileEntries of slot " + slot.getSlotId(),
+                ex);
+        }
+    }
+
+    private static MCRStoredNode getEntryDir(final MCRFileCollection col, final SlotEntry<FileEntry> slotEntry)
+        throws IOException {
+        final MCRNode dir = col != null ? col.getNodeByPath(slotEntry.getId()) : null;
+        return dir != null && dir.isDirectory() ? (MCRStoredNode) dir : null;
+    }
+
     /**
      * Checks if {@link FileEntry} exists.
      *
@@ -75,24 +103,24 @@ public final class FileEntryManager {
      * @throws MCRPersistenceException thrown if {@link FileEntry} not found
      */
     public static boolean exists(final Slot slot, final SlotEntry<FileEntry> slotEntry) throws MCRPersistenceException {
-        final int id = slot.getMCRObjectID().getNumberAsInteger();
-        final FileEntry fileEntry = slotEntry.getEntry();
+        return exists(getFileCollection(slot), slotEntry);
+    }
 
+    /**
+     * Checks if {@link FileEntry} exists in given file collection.
+     *
+     * @param col the {@link MCRFileCollection} of the {@link Slot}, may be <code>null</code>
+     * @param slotEntry the {@link SlotEntry} of type {@link FileEntry}
+     * @return <code>true</code> if exists or <code>false</code>
+     * @throws MCRPersistenceException thrown if {@link FileEntry} not found
+     */
+    public static boolean exists(final MCRFileCollection col, final SlotEntry<FileEntry> slotEntry)
+        throws MCRPersistenceException {
         try {
-            final MCRFileStore store = getStore();
-            if (!store.exists(id)) {
-                return false;
-            }
-
-            MCRFileCollection col = store.retrieve(id);
-            MCRNode dir = col.getNodeByPath(slotEntry.getId());
-
-            return dir != null && dir.isDirectory();
-        } catch (MCRException ex) {
-            throw ex;
+            return getEntryDir(col, slotEntry) != null;
         } catch (Exception ex) {
             final String msg = "Exception while checking existence of fileEntry " + slotEntry.getId()
-                + " with filename " + fileEntry.getName();
+                + " with filename " + slotEntry.getEntry().getName();
             throw new MCRPersistenceException(msg, ex);
         }
     }
@@ -116,14 +144,7 @@ public final class FileEntryManager {
                 col = store.create(id);
             }
 
-            MCRDirectory dir = col.createDir(slotEntry.getId());
-            MCRFile file = dir.createFile(fileEntry.getName());
-
-            Files.copy(fileEntry.getPath(), file.getLocalPath(), StandardCopyOption.REPLACE_EXISTING);
-
-            if (fileEntry.deleteIsTmpFile()) {
-                fileEntry.setPath(file.getLocalPath());
-            }
+            store(col, slotEntry);
         } catch (Exception ex) {
             if (ex instanceof MCRException) {
                 throw (MCRException) ex;
@@ -134,6 +155,55 @@ public final class FileEntryManager {
         }
     }
 
+    /**
+     * Creates the given {@link FileEntry}s if they aren't stored yet and deletes the stored {@link FileEntry}s with
+     * given ids. The file collection of the {@link Slot} is resolved only once.
+     *
+     * @param slot the {@link Slot}
+     * @param created the {@link SlotEntry}s of type {@link FileEntry} to create
+     * @param deleted the ids of the {@link SlotEntry}s to delete
+     * @throws MCRPersistenceException thrown if a {@link FileEntry} couldn't stored or deleted
+     */
+    public static void sync(final Slot slot, final Collection<SlotEntry<FileEntry>> created,
+        final Collection<String> deleted) throws MCRPersistenceException {
+        if (created.isEmpty() && deleted.isEmpty()) {
+            return;
+        }
+
+        final int id = slot.getMCRObjectID().getNumberAsInteger();
+
+        try {
+            final MCRFileStore store = getStore();
+
+            MCRFileCollection col = store.retrieve(id);
+
+            if (col != null) {
+                for (String entryId : deleted) {
+                    MCRNode dir = col.getNodeByPath(entryId);
+                    if (dir != null && dir.isDirectory()) {
+                        ((MCRStoredNode) dir).delete();
+                    }
+                }
+            }
+
+            for (SlotEntry<FileEntry> slotEntry : created) {
+                if (col == null) {
+                    col = store.create(id);
+                }
+
+                MCRNode dir = col.getNodeByPath(slotEntry.getId());
+                if (dir == null || !dir.isDirectory()) {
+                    store(col, slotEntry);
+                }
+            }
+        } catch (MCRException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            final String msg = "Exception while storing fileEntries of slot " + slot.getSlotId();
+            throw new MCRPersistenceException(msg, ex);
+        }
+    }
+
     /**
      * Updates an {@link FileEntry} on filesystem and save old entry with Revision, if not <code>null</code>.
      *
@@ -142,24 +212,33 @@ public final class FileEntryManager {
      * @throws MCRPersistenceException thrown if {@link FileEntry} coudln't stored
      */
     public static void update(final Slot slot, final SlotEntry<FileEntry> slotEntry) throws MCRPersistenceException {
-        if (!exists(slot, slotEntry)) {
+        update(slot, getFileCollection(slot), slotEntry);
+    }
+
+    /**
+     * Updates an {@link FileEntry} in given file collection.
+     *
+     * @param slot the {@link Slot}
+     * @param col the {@link MCRFileCollection} of the {@link Slot}, may be <code>null</code>
+     * @param slotEntry the {@link SlotEntry} of type {@link FileEntry}
+     * @throws MCRPersistenceException thrown if {@link FileEntry} coudln't stored
+     */
+    public static void update(final Slot slot, final MCRFileCollection col, final SlotEntry<FileEntry> slotEntry)
+        throws MCRPersistenceException {
+        if (col == null) {
             create(slot, slotEntry);
             return;
         }
 
-        final int id = slot.getMCRObjectID().getNumberAsInteger();
         final FileEntry fileEntry = slotEntry.getEntry();
 
         try {
-            final MCRFileStore store = getStore();
-
-            MCRFileCollection col = store.retrieve(id);
-            MCRStoredNode dir = (MCRStoredNode) col.getNodeByPath(slotEntry.getId());
-
-            if (dir != null && dir.isDirectory()) {
+            MCRStoredNode dir = getEntryDir(col, slotEntry);
+            if (dir != null) {
                 dir.delete();
-                create(slot, slotEntry);
             }
+
+            store(col, slotEntry);
         } catch (MCRException ex) {
             throw ex;
         } catch (Exception ex) {
@@ -177,42 +256,56 @@ public final class FileEntryManager {
      * @throws MCRPersistenceException thrown if {@link FileEntry} couldn't deleted
      */
     public static void delete(final Slot slot, final SlotEntry<FileEntry> slotEntry) throws MCRPersistenceException {
-        if (!exists(slot, slotEntry)) {
-            throw new MCRPersistenceException("Couldn't delete non existence fileEntry.");
-        }
+        delete(getFileCollection(slot), slotEntry);
+    }
 
-        final int id = slot.getMCRObjectID().getNumberAsInteger();
+    /**
+     * Deletes an {@link FileEntry} from given file collection.
+     *
+     * @param col the {@link MCRFileCollection} of the {@link Slot}, may be <code>null</code>
+     * @param slotEntry the {@link SlotEntry} of type {@link FileEntry}
+     * @throws MCRPersistenceException thrown if {@link FileEntry} couldn't deleted
+     */
+    public static void delete(final MCRFileCollection col, final SlotEntry<FileEntry> slotEntry)
+        throws MCRPersistenceException {
         final FileEntry fileEntry = slotEntry.getEntry();
 
         try {
-            final MCRFileStore store = getStore();
-
-            MCRFileCollection col = store.retrieve(id);
-            MCRStoredNode dir = (MCRStoredNode) col.getNodeByPath(slotEntry.getId());
-
-            if (dir != null && dir.isDirectory()) {
-                dir.delete();
+            MCRStoredNode dir = getEntryDir(col, slotEntry);
+            if (dir == null) {
+                throw new MCRPersistenceException("Couldn't delete non existence fileEntry.");
             }
+
+            dir.delete();
+        } catch (MCRException ex) {
+            throw ex;
         } catch (Exception ex) {
-            if (ex instanceof MCRException) {
-                throw (MCRException) ex;
-            }
             final String msg = "Exception while deleting of fileEntry " + slotEntry.getId() + " with filename "
                 + fileEntry.getName();
             throw new MCRPersistenceException(msg, ex);
         }
     }
 
-    private static MCRStoredNode getStoreNode(final Slot slot, final SlotEntry<FileEntry> slotEntry)
-        throws MCRPersistenceException, IOException {
-        final int id = slot.getMCRObjectID().getNumberAsInteger();
+    private static void store(final MCRFileCollection col, final SlotEntry<FileEntry> slotEntry)
+        throws IOException {
         final FileEntry fileEntry = slotEntry.getEntry();
 
-        final MCRFileStore store = getStore();
+        MCRDirectory dir = col.createDir(slotEntry.getId());
+        MCRFile file = dir.createFile(fileEntry.getName());
+
+        if (FileEntry.isTempFile(fileEntry.getPath())) {
+            // a temporary file on the same filesystem is just renamed, otherwise copied and deleted
+            Files.move(fileEntry.getPath(), file.getLocalPath(), StandardCopyOption.REPLACE_EXISTING);
+            fileEntry.setPath(file.getLocalPath());
+        } else {
+            Files.copy(fileEntry.getPath(), file.getLocalPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
 
-        MCRFileCollection col = store.retrieve(id);
-        MCRStoredNode dir = (MCRStoredNode) col.getNodeByPath(slotEntry.getId());
-        return dir != null ? (MCRStoredNode) dir.getNodeByPath(fileEntry.getName()) : null;
+    private static MCRStoredNode getStoreNode(final MCRFileCollection col, final SlotEntry<FileEntry> slotEntry)
+        throws IOException {
+        MCRStoredNode dir = getEntryDir(col, slotEntry);
+        return dir != null ? (MCRStoredNode) dir.getNodeByPath(slotEntry.getEntry().getName()) : null;
     }
 
     /**
@@ -223,19 +316,30 @@ public final class FileEntryManager {
      * @throws MCRPersistenceException thrown if {@link FileEntry} couldn't retrieved
      */
     public static void retrieve(final Slot slot, final SlotEntry<FileEntry> slotEntry) throws MCRPersistenceException {
-        if (!exists(slot, slotEntry)) {
-            throw new MCRPersistenceException("Couldn't retrieve non existence fileEntry.");
-        }
+        retrieve(getFileCollection(slot), slotEntry);
+    }
 
+    /**
+     * Retries an {@link FileEntry} from given file collection.
+     * 
+     * @param col the {@link MCRFileCollection} of the {@link Slot}, may be <code>null</code>
+     * @param slotEntry the {@link SlotEntry} of type {@link FileEntry}
+     * @throws MCRPersistenceException thrown if {@link FileEntry} couldn't retrieved
+     */
+    public static void retrieve(final MCRFileCollection col, final SlotEntry<FileEntry> slotEntry)
+        throws MCRPersistenceException {
         final FileEntry fileEntry = slotEntry.getEntry();
 
         try {
-            MCRStoredNode fileNode = getStoreNode(slot, slotEntry);
+            MCRStoredNode fileNode = getStoreNode(col, slotEntry);
+            if (fileNode == null) {
+                throw new MCRPersistenceException("Couldn't retrieve non existence fileEntry.");
+            }
+
             fileEntry.setPath(fileNode.getLocalPath());
+        } catch (MCRException ex) {
+            throw ex;
         } catch (Exception ex) {
-            if (ex instanceof MCRException) {
-                throw (MCRException) ex;
-            }
             final String msg = "Exception while retrieving of fileEntry " + slotEntry.getId() + " with filename "
                 + fileEntry.getName();
             throw new MCRPersistenceException(msg, ex);
@@ -253,8 +357,20 @@ public final class FileEntryManager {
      */
     public static Path getLocalPath(final Slot slot, final SlotEntry<FileEntry> slotEntry)
         throws MCRPersistenceException, IOException {
-        MCRStoredNode sn = getStoreNode(slot, slotEntry);
-        return Optional.ofNullable(sn).map(MCRStoredNode::getLocalPath).orElse(null);
+        return getLocalPath(getFileCollection(slot), slotEntry);
+    }
+
+    /**
+     * Returns the {@link Path} for an {@link FileEntry} of given file collection.
+     * 
+     * @param col the {@link MCRFileCollection} of the {@link Slot}, may be <code>null</code>
+     * @param slotEntry the {@link SlotEntry} of type {@link FileEntry}
+     * @return the {@link Path}, or null if no {@link MCRStoredNode} was found
+     * @throws IOException
+     */
+    public static Path getLocalPath(final MCRFileCollection col, final SlotEntry<FileEntry> slotEntry)
+        throws IOException {
+        return Optional.ofNullable(getStoreNode(col, slotEntry)).map(MCRStoredNode::getLocalPath).orElse(null);
     }
 
 }
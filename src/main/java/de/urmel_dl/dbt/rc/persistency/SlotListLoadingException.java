@@ -0,0 +1,51 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc.persistency;
+
+import org.mycore.common.MCRException;
+
+/**
+ * Thrown if the {@link de.urmel_dl.dbt.rc.datamodel.slot.SlotList} is requested while it is still loading.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ */
+public class SlotListLoadingException extends MCRException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfter;
+
+    /**
+     * Instantiates a new slot list loading exception.
+     *
+     * @param retryAfter the estimated seconds until the slot list is loaded
+     */
+    public SlotListLoadingException(final long retryAfter) {
+        super("Slot list is loading, retry after " + retryAfter + " seconds.");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets the estimated seconds until the slot list is loaded.
+     *
+     * @return the seconds to retry after
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
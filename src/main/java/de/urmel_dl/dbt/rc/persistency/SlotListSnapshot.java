@@ -0,0 +1,448 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc.persistency;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+import de.urmel_dl.dbt.rc.datamodel.Contact;
+import de.urmel_dl.dbt.rc.datamodel.Lecturer;
+import de.urmel_dl.dbt.rc.datamodel.PendingStatus;
+import de.urmel_dl.dbt.rc.datamodel.Person;
+import de.urmel_dl.dbt.rc.datamodel.Status;
+import de.urmel_dl.dbt.rc.datamodel.WarningDate;
+import de.urmel_dl.dbt.rc.datamodel.slot.Slot;
+import de.urmel_dl.dbt.rc.datamodel.slot.SlotEntry;
+import de.urmel_dl.dbt.utils.EntityFactory;
+
+/**
+ * A compact, gzipped binary snapshot of the in-memory {@link Slot}s.
+ * Every entry holds the {@link MCRObjectID}, the revision of the stored metadata and the binary encoded slot, so
+ * only slots with a changed revision must be read from the metadata store.
+ * <p>
+ * The slot fields are encoded one by one, only the {@link SlotEntry}s are kept as XML and unmarshalled on first
+ * access of the entries. The encoding of a restored or written slot is reused on the next write as long as the slot
+ * isn't modified.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ */
+public final class SlotListSnapshot {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final int MAGIC = 0x52435353;
+
+    private static final int VERSION = 2;
+
+    private static final int MARSHAL_ATTEMPTS = 5;
+
+    private final Path file;
+
+    private final Map<String, Encoded> encoded = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@link SlotListSnapshot} for given file.
+     *
+     * @param file the snapshot file
+     */
+    public SlotListSnapshot(final Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the snapshot file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Reads all entries of the snapshot.
+     *
+     * @return the entries mapped by {@link MCRObjectID} string, or an empty map if there is no readable snapshot
+     */
+    public Map<String, Entry> read() {
+        if (!Files.isRegularFile(file)) {
+            return Collections.emptyMap();
+        }
+
+        try (DataInputStream in = new DataInputStream(
+            new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOGGER.warn("Ignore slot snapshot {} with unknown format.", file);
+                return Collections.emptyMap();
+            }
+
+            final int count = in.readInt();
+            final Map<String, Entry> entries = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                final String objId = in.readUTF();
+                final long revision = in.readLong();
+                final byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+
+                entries.put(objId, new Entry(objId, revision, data));
+            }
+
+            return entries;
+        } catch (IOException e) {
+            LOGGER.warn("Couldn't read slot snapshot " + file + ".", e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Writes the given {@link Slot}s with known revision to the snapshot.
+     * The file is replaced atomically. The slots are encoded without lock, a slot that was modified
+     * while encoding is encoded again and omitted if it doesn't stay unchanged.
+     *
+     * @param slots the slots
+     * @param revisions the revisions of stored slots
+     * @return the number of written entries
+     * @throws IOException thrown on write error
+     */
+    public int write(final Collection<Slot> slots, final Map<MCRObjectID, Long> revisions) throws IOException {
+        final Map<MCRObjectID, Long> revs = new HashMap<>(revisions);
+        final List<Entry> stored = slots.stream()
+            .filter(s -> s.getMCRObjectID() != null && revs.containsKey(s.getMCRObjectID()))
+            .map(s -> toEntry(s, revs.get(s.getMCRObjectID())))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+
+        encoded.keySet().retainAll(stored.stream().map(e -> e.objId).collect(Collectors.toSet()));
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+            new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(stored.size());
+
+            for (Entry entry : stored) {
+                out.writeUTF(entry.objId);
+                out.writeLong(entry.revision);
+                out.writeInt(entry.data.length);
+                out.write(entry.data);
+            }
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return stored.size();
+    }
+
+    private Entry toEntry(final Slot slot, final long revision) {
+        final String objId = slot.getMCRObjectID().toString();
+
+        final Encoded current = encoded.get(objId);
+        if (current != null && current.isCurrent(slot)) {
+            return new Entry(objId, revision, current.data);
+        }
+
+        RuntimeException failure = null;
+
+        for (int i = 0; i < MARSHAL_ATTEMPTS; i++) {
+            final long version = slot.getVersion();
+            try {
+                final byte[] data = encode(slot);
+                if (slot.getVersion() == version) {
+                    encoded.put(objId, new Encoded(slot, version, data));
+                    return new Entry(objId, revision, data);
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        LOGGER.warn("Skip slot " + slot.getSlotId() + " in snapshot, because it was modified while writing.",
+            failure);
+        return null;
+    }
+
+    private static byte[] encode(final Slot slot) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, slot.getSlotId());
+            writeString(out, slot.getStatus() != null ? slot.getStatus().name() : null);
+            writeString(out, slot.getPendingStatus() != null ? slot.getPendingStatus().name() : null);
+            out.writeBoolean(slot.isOnlineOnly());
+            writeString(out, slot.getTitle());
+            writeString(out, slot.getComment());
+            writeDate(out, slot.getValidToAsDate());
+
+            final List<Lecturer> lecturers = slot.getLecturers();
+            out.writeInt(lecturers != null ? lecturers.size() : -1);
+            if (lecturers != null) {
+                for (Lecturer lecturer : lecturers) {
+                    writePerson(out, lecturer);
+                }
+            }
+
+            out.writeBoolean(slot.getContact() != null);
+            if (slot.getContact() != null) {
+                writePerson(out, slot.getContact());
+            }
+
+            final List<WarningDate> warningDates = slot.getWarningDates();
+            out.writeInt(warningDates != null ? warningDates.size() : -1);
+            if (warningDates != null) {
+                for (WarningDate warningDate : warningDates) {
+                    writeDate(out, warningDate.getWarningDateAsDate());
+                    writeString(out, warningDate.getFormat());
+                }
+            }
+
+            final List<SlotEntry<?>> entries = slot.getEntries();
+            out.writeInt(entries != null ? entries.size() : -1);
+            if (entries != null) {
+                for (SlotEntry<?> entry : entries) {
+                    writeBytes(out, new EntityFactory<>(entry).toXML().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static void writePerson(final DataOutput out, final Person person) throws IOException {
+        writeString(out, person.getName());
+        writeString(out, person.getEmail());
+        writeString(out, person.getOrigin());
+    }
+
+    private static <T extends Person> T readPerson(final DataInput in, final Supplier<T> factory)
+        throws IOException {
+        final T person = factory.get();
+        person.setName(readString(in));
+        person.setEmail(readString(in));
+        person.setOrigin(readString(in));
+        return person;
+    }
+
+    private static void writeDate(final DataOutput out, final Date date) throws IOException {
+        out.writeLong(date != null ? date.getTime() : Long.MIN_VALUE);
+    }
+
+    private static Date readDate(final DataInput in) throws IOException {
+        final long time = in.readLong();
+        return time != Long.MIN_VALUE ? new Date(time) : null;
+    }
+
+    private static void writeString(final DataOutput out, final String value) throws IOException {
+        writeBytes(out, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    private static String readString(final DataInput in) throws IOException {
+        final byte[] value = readBytes(in);
+        return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeBytes(final DataOutput out, final byte[] value) throws IOException {
+        out.writeInt(value != null ? value.length : -1);
+        if (value != null) {
+            out.write(value);
+        }
+    }
+
+    private static byte[] readBytes(final DataInput in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+
+    /**
+     * The encoding of a {@link Slot} at given version.
+     */
+    private static final class Encoded {
+
+        private final Slot slot;
+
+        private final long version;
+
+        private final byte[] data;
+
+        Encoded(final Slot slot, final long version, final byte[] data) {
+            this.slot = slot;
+            this.version = version;
+            this.data = data;
+        }
+
+        boolean isCurrent(final Slot other) {
+            return slot == other && version == other.getVersion();
+        }
+    }
+
+    /**
+     * A single snapshot entry.
+     */
+    public final class Entry {
+
+        private final String objId;
+
+        private final long revision;
+
+        private final byte[] data;
+
+        Entry(final String objId, final long revision, final byte[] data) {
+            this.objId = objId;
+            this.revision = revision;
+            this.data = data;
+        }
+
+        /**
+         * @return the revision
+         */
+        public long getRevision() {
+            return revision;
+        }
+
+        /**
+         * Decodes only the slot id, the rest of the stored {@link Slot} isn't touched.
+         *
+         * @return the slot id
+         */
+        public String getSlotId() {
+            try {
+                return readString(new DataInputStream(new ByteArrayInputStream(data)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Couldn't decode slot id of " + objId + ".", e);
+            }
+        }
+
+        /**
+         * Decodes the stored {@link Slot}. The entries of the slot are unmarshalled on first access.
+         *
+         * @return the slot
+         */
+        public Slot toSlot() {
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+            try {
+                final Slot slot = new Slot(readString(in));
+                final String status = readString(in);
+                if (status != null) {
+                    slot.setStatus(Status.valueOf(status));
+                }
+                final String pendingStatus = readString(in);
+                if (pendingStatus != null) {
+                    slot.setPendingStatus(PendingStatus.valueOf(pendingStatus));
+                }
+                slot.setOnlineOnly(in.readBoolean());
+                slot.setTitle(readString(in));
+                slot.setComment(readString(in));
+                slot.setValidTo(readDate(in));
+
+                final int lecturers = in.readInt();
+                if (lecturers >= 0) {
+                    final List<Lecturer> list = new ArrayList<>(lecturers);
+                    for (int i = 0; i < lecturers; i++) {
+                        list.add(readPerson(in, Lecturer::new));
+                    }
+                    slot.setLecturers(list);
+                }
+
+                if (in.readBoolean()) {
+                    slot.setContact(readPerson(in, Contact::new));
+                }
+
+                final int warningDates = in.readInt();
+                if (warningDates >= 0) {
+                    final List<WarningDate> list = new ArrayList<>(warningDates);
+                    for (int i = 0; i < warningDates; i++) {
+                        final WarningDate warningDate = new WarningDate(readDate(in));
+                        warningDate.setFormat(readString(in));
+                        list.add(warningDate);
+                    }
+                    slot.setWarningDates(list);
+                }
+
+                final int offset = data.length - in.available();
+                slot.setEntriesLoader(() -> readEntries(offset));
+                slot.setMCRObjectID(MCRObjectID.getInstance(objId));
+
+                encoded.put(objId, new Encoded(slot, slot.getVersion(), data));
+
+                return slot;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Couldn't decode slot " + objId + ".", e);
+            }
+        }
+
+        private List<SlotEntry<?>> readEntries(final int offset) {
+            final DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(data, offset, data.length - offset));
+
+            try {
+                final int count = in.readInt();
+                if (count < 0) {
+                    return null;
+                }
+
+                final List<SlotEntry<?>> entries = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    entries.add(new EntityFactory<>(SlotEntry.class)
+                        .fromXML(new String(readBytes(in), StandardCharsets.UTF_8)));
+                }
+                return entries;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Couldn't decode entries of slot " + objId + ".", e);
+            }
+        }
+    }
+}
@@ -19,15 +19,32 @@ package de.urmel_dl.dbt.rc.persistency;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
@@ -55,12 +72,21 @@ import org.mycore.common.MCRSessionMgr;
 import org.mycore.common.MCRUserInformation;
 import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.common.content.MCRContent;
+import org.mycore.common.events.MCRShutdownHandler;
+import org.mycore.common.events.MCRShutdownHandler.Closeable;
+import org.mycore.common.processing.MCRProcessableDefaultCollection;
+import org.mycore.common.processing.MCRProcessableRegistry;
+import org.mycore.datamodel.classifications2.MCRCategoryDAO;
+import org.mycore.datamodel.classifications2.MCRCategoryDAOFactory;
 import org.mycore.datamodel.classifications2.MCRCategoryID;
+import org.mycore.datamodel.classifications2.MCRLabel;
 import org.mycore.datamodel.classifications2.impl.MCRCategoryDAOImpl;
 import org.mycore.datamodel.common.MCRAbstractMetadataVersion;
 import org.mycore.datamodel.common.MCRActiveLinkException;
 import org.mycore.datamodel.common.MCRCreatorCache;
+import org.mycore.datamodel.common.MCRObjectIDDate;
 import org.mycore.datamodel.common.MCRXMLMetadataManager;
+import org.mycore.datamodel.ifs2.MCRFileCollection;
 import org.mycore.datamodel.metadata.MCRMetadataManager;
 import org.mycore.datamodel.metadata.MCRObject;
 import org.mycore.datamodel.metadata.MCRObjectID;
@@ -75,6 +101,8 @@ import org.mycore.user2.MCRUserAttribute;
 import org.mycore.user2.MCRUserAttribute_;
 import org.xml.sax.SAXException;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import de.urmel_dl.dbt.media.MediaService;
 import de.urmel_dl.dbt.rc.datamodel.Attendee;
 import de.urmel_dl.dbt.rc.datamodel.Attendee.Attendees;
@@ -116,13 +144,69 @@ public final class SlotManager {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    private static final String CONFIG_PREFIX = "DBT.RC.SlotManager.";
+
+    private static final MCRProcessableDefaultCollection LOADER_COLLECTION;
+
     private static SlotManager singelton;
 
     private SlotList slotList;
 
+    private volatile CompletableFuture<Void> loading = CompletableFuture.completedFuture(null);
+
+    private volatile LoadProgress progress;
+
+    private final Map<String, PendingSlot> pendingSlots = new ConcurrentHashMap<>();
+
+    private final Map<String, String> pendingSlotIds = new ConcurrentHashMap<>();
+
+    private final Map<MCRObjectID, Long> revisions = new ConcurrentHashMap<>();
+
+    private final Map<MCRObjectID, PersistedSlot> persistedSlots = new ConcurrentHashMap<>();
+
+    private final Optional<SlotListSnapshot> snapshot;
+
+    private final SlotSearchIndex searchIndex = new SlotSearchIndex(SlotManager::getLocationLabels,
+        SlotManager::getOwner);
+
+    static {
+        LOADER_COLLECTION = new MCRProcessableDefaultCollection("SlotManager");
+        MCRProcessableRegistry.getSingleInstance().register(LOADER_COLLECTION);
+    }
+
     private SlotManager() {
         slotList = new SlotList();
-        loadList();
+        snapshot = MCRConfiguration2.getString(CONFIG_PREFIX + "Snapshot.File").map(Paths::get)
+            .map(SlotListSnapshot::new);
+
+        loadListAsync();
+
+        snapshot.ifPresent(s -> {
+            final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("SlotSnapshot-#%d").setDaemon(true).build());
+            final int interval = MCRConfiguration2.getInt(CONFIG_PREFIX + "Snapshot.Interval").orElse(15);
+
+            if (interval > 0) {
+                scheduler.scheduleWithFixedDelay(this::writeSnapshot, interval, interval, TimeUnit.MINUTES);
+            }
+
+            MCRShutdownHandler.getInstance().addCloseable(new Closeable() {
+                @Override
+                public void prepareClose() {
+                    scheduler.shutdownNow();
+                }
+
+                @Override
+                public int getPriority() {
+                    return Integer.MIN_VALUE + 10;
+                }
+
+                @Override
+                public void close() {
+                    writeSnapshot();
+                }
+            });
+        });
     }
 
     /**
@@ -232,6 +316,21 @@ public final class SlotManager {
         return false;
     }
 
+    private static Optional<String> getOwner(final MCRObjectID objId) {
+        try {
+            return Optional.ofNullable(MCRCreatorCache.getCreator(objId.toString()));
+        } catch (ExecutionException e) {
+            throw new MCRException(e);
+        }
+    }
+
+    private static Collection<String> getLocationLabels(final MCRCategoryID location) {
+        final MCRCategoryDAO dao = MCRCategoryDAOFactory.getInstance();
+        return Stream.concat(Stream.ofNullable(dao.getCategory(location, 0)), dao.getParents(location).stream())
+            .flatMap(c -> c.getLabels().stream()).filter(l -> !l.getLang().startsWith("x-"))
+            .map(MCRLabel::getText).collect(Collectors.toList());
+    }
+
     public static void setOwner(final String objId)
         throws MCRPersistenceException, MCRActiveLinkException, MCRAccessException {
         setOwner(objId, MCRSessionMgr.getCurrentSession().getUserInformation());
@@ -248,6 +347,7 @@ public final class SlotManager {
         MCRMetadataManager.update(obj);
 
         MCRCreatorCache.invalidate(objId);
+        Optional.ofNullable(singelton).ifPresent(sm -> sm.searchIndex.setOwner(obj.getId(), user.getUserID()));
     }
 
     /**
@@ -328,27 +428,230 @@ public final class SlotManager {
      * Synchronize the {@link SlotList}.
      */
     public synchronized void syncList() {
+        awaitLoaded();
         slotList.getSlots().clear();
+        searchIndex.clear();
+        revisions.clear();
+        persistedSlots.clear();
         loadList();
     }
 
     /**
-     * Loads the {@link Slot} metadata from content store.
+     * Loads the {@link Slot} metadata from content store and waits until all slots are loaded.
+     * You have to clear the {@link SlotManager#slotList} before.
+     */
+    public void loadList() {
+        loadListAsync().join();
+    }
+
+    /**
+     * Loads the {@link Slot} metadata from content store in parallel and returns immediately.
+     * The {@link SlotList} is filled incrementally, a lookup of a not yet loaded slot loads that slot directly.
+     * The number of loader threads is configured by <code>DBT.RC.SlotManager.Loader.ThreadCount</code>.
+     * If a snapshot is configured, all slots with an unchanged revision are restored from the snapshot.
      * You have to clear the {@link SlotManager#slotList} before.
+     *
+     * @return the {@link CompletableFuture} completed after all slots are loaded
+     */
+    public synchronized CompletableFuture<Void> loadListAsync() {
+        if (!loading.isDone()) {
+            return loading;
+        }
+
+        final int threadCount = MCRConfiguration2.getInt(CONFIG_PREFIX + "Loader.ThreadCount").orElse(4);
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount),
+            new ThreadFactoryBuilder().setNameFormat("SlotLoader-#%d").setDaemon(true).build());
+        LOADER_COLLECTION.setProperty("loader threads", threadCount);
+
+        return loadListAsync(executor).whenComplete((r, e) -> executor.shutdown());
+    }
+
+    /**
+     * Loads the {@link Slot} metadata from content store with the given {@link Executor} and returns immediately.
+     *
+     * @param executor the executor running the loader tasks
+     * @return the {@link CompletableFuture} completed after all slots are loaded
+     * @see #loadListAsync()
      */
-    public synchronized void loadList() {
-        final MCRXMLMetadataManager xmlManager = MCRXMLMetadataManager.instance();
-        final List<String> ids = xmlManager.listIDsForBase(getMCRObjectBaseID());
+    public synchronized CompletableFuture<Void> loadListAsync(final Executor executor) {
+        if (!loading.isDone()) {
+            return loading;
+        }
 
+        final List<String> ids = MCRXMLMetadataManager.instance().listIDsForBase(getMCRObjectBaseID());
+        final Map<String, Long> storeRevisions = retrieveRevisions(ids);
+        final Map<String, SlotListSnapshot.Entry> entries = snapshot.map(SlotListSnapshot::read)
+            .orElse(Collections.emptyMap());
+        final LoadProgress loadProgress = new LoadProgress(ids.size());
+
+        pendingSlots.clear();
+        pendingSlotIds.clear();
         ids.forEach(objId -> {
-            try {
-                if (MCRMetadataManager.exists(MCRObjectID.getInstance(objId))) {
-                    final MCRObject obj = MCRMetadataManager.retrieveMCRObject(MCRObjectID.getInstance(objId));
-                    final Slot slot = SlotWrapper.unwrapMCRObject(obj);
-                    slotList.addSlot(slot);
+            final SlotListSnapshot.Entry entry = entries.get(objId);
+            final Long revision = storeRevisions.get(objId);
+            pendingSlots.put(objId, new PendingSlot(objId, revision, entry, loadProgress));
+            // only an unchanged snapshot entry maps the slot id reliably
+            if (entry != null && revision != null && entry.getRevision() == revision) {
+                try {
+                    pendingSlotIds.put(entry.getSlotId(), objId);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Couldn't read slot id of " + objId + " from snapshot.", e);
                 }
-            } catch (final Exception e) {
-                LOGGER.error("Error on loading " + objId + "!", e);
+            }
+        });
+
+        progress = loadProgress;
+        loading = CompletableFuture.allOf(ids.stream()
+            .map(objId -> CompletableFuture.runAsync(() -> loadPending(objId), executor))
+            .toArray(CompletableFuture<?>[]::new))
+            .whenComplete((r, e) -> {
+                pendingSlots.clear();
+                pendingSlotIds.clear();
+                slotList.getSlots().sort(Comparator.comparing(Slot::getMCRObjectID,
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+                loadProgress.finish();
+            });
+
+        return loading;
+    }
+
+    /**
+     * Returns <code>true</code> while the {@link SlotList} is loading.
+     *
+     * @return <code>true</code> if loading
+     */
+    public boolean isLoading() {
+        return !loading.isDone();
+    }
+
+    /**
+     * Checks if the {@link SlotList} is completely loaded.
+     *
+     * @throws SlotListLoadingException thrown while the slot list is loading
+     */
+    public void checkLoaded() {
+        if (isLoading()) {
+            throw new SlotListLoadingException(Optional.ofNullable(progress).map(LoadProgress::estimateRemaining)
+                .orElse(LoadProgress.DEFAULT_REMAINING));
+        }
+    }
+
+    private void awaitLoaded() {
+        if (!loading.isDone()) {
+            LOGGER.debug("Waiting for slot list to be loaded.");
+            loading.join();
+        }
+    }
+
+    /**
+     * Loads the pending {@link Slot} with given {@link MCRObjectID}, either by a loader task or a lookup
+     * while loading. The slot is loaded once, concurrent callers wait for that slot only.
+     *
+     * @param objId the {@link MCRObjectID}
+     * @return the loaded slot or <code>null</code> if the slot isn't pending or couldn't be loaded
+     */
+    private Slot loadPending(final String objId) {
+        final PendingSlot pending = pendingSlots.get(objId);
+        if (pending == null) {
+            return null;
+        }
+
+        if (pending.claimed.compareAndSet(false, true)) {
+            try {
+                pending.slot.complete(loadSlot(pending));
+            } finally {
+                pending.slot.complete(null);
+                pendingSlots.remove(objId, pending);
+            }
+        }
+
+        return pending.slot.join();
+    }
+
+    private Slot loadSlot(final PendingSlot pending) {
+        final String objId = pending.objId;
+        final Long revision = pending.revision;
+        final SlotListSnapshot.Entry entry = pending.entry;
+
+        try {
+            final MCRObjectID id = MCRObjectID.getInstance(objId);
+            Slot slot = null;
+            if (revision != null && entry != null && entry.getRevision() == revision) {
+                slot = entry.toSlot();
+                slotList.addSlot(slot);
+                searchIndex.index(slot);
+                revisions.put(id, revision);
+                persistedSlots.put(id, new PersistedSlot(slot));
+                pending.progress.restored();
+            } else if (MCRMetadataManager.exists(id)) {
+                final MCRObject obj = MCRMetadataManager.retrieveMCRObject(id);
+                slot = SlotWrapper.unwrapMCRObject(obj);
+                slotList.addSlot(slot);
+                searchIndex.index(slot, obj.getService().getFlags("createdby").stream().findFirst().orElse(null));
+                Optional.ofNullable(revision).ifPresent(r -> revisions.put(id, r));
+                persistedSlots.put(id, new PersistedSlot(slot));
+            }
+            pending.progress.loaded();
+            return slot;
+        } catch (final Exception e) {
+            LOGGER.error("Error on loading " + objId + "!", e);
+            pending.progress.failed();
+            return null;
+        }
+    }
+
+    private String findMCRObjectID(final String slotId) {
+        try {
+            final SolrQuery query = new SolrQuery("slotId:" + MCRSolrUtils.escapeSearchValue(slotId));
+            query.addFilterQuery("objectProject:" + PROJECT_ID, "objectType:" + SLOT_TYPE);
+            query.setFields("id");
+            query.setRows(1);
+
+            return MCRSolrClientFactory.getMainSolrClient().query(query).getResults().stream()
+                .map(doc -> (String) doc.getFirstValue("id")).filter(Objects::nonNull).findFirst().orElse(null);
+        } catch (SolrServerException | IOException | RuntimeException e) {
+            LOGGER.debug("Couldn't query object id of slot " + slotId + ".", e);
+            return null;
+        }
+    }
+
+    private Map<String, Long> retrieveRevisions(final List<String> ids) {
+        if (snapshot.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        try {
+            return MCRXMLMetadataManager.instance().retrieveObjectDates(ids).stream()
+                .collect(Collectors.toMap(MCRObjectIDDate::getId, d -> d.getLastModified().getTime(), (a, b) -> a));
+        } catch (IOException e) {
+            LOGGER.warn("Couldn't retrieve revisions of slots.", e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private void updateRevision(final MCRObjectID objId) {
+        if (snapshot.isPresent()) {
+            try {
+                revisions.put(objId, MCRXMLMetadataManager.instance().getLastModified(objId));
+            } catch (IOException e) {
+                revisions.remove(objId);
+            }
+        }
+    }
+
+    /**
+     * Writes the current {@link SlotList} to the configured snapshot file.
+     * Nothing is written while the list is loading.
+     */
+    public void writeSnapshot() {
+        snapshot.filter(s -> !isLoading()).ifPresent(s -> {
+            try {
+                final long start = System.nanoTime();
+                final int count = s.write(slotList.getSlots(), revisions);
+                LOGGER.info("Wrote snapshot of {} slots to {} in {} ms.", count, s.getFile(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Couldn't write slot snapshot " + s.getFile() + ".", e);
             }
         });
     }
@@ -359,12 +662,15 @@ public final class SlotManager {
      * @param slot the slot
      */
     public void addSlot(final Slot slot) {
+        awaitLoaded();
+
         if (slot.getId() == 0 && slot.getLocation() != null) {
-            slot.setId(getNextFreeId(slot.getLocation()));
+            slot.setId(slotList.allocateId(slot.getLocation()));
             slot.setStatus(Status.ACTIVE);
         }
 
         slotList.addSlot(slot);
+        searchIndex.index(slot);
     }
 
     /**
@@ -374,6 +680,7 @@ public final class SlotManager {
      */
     public void setSlot(final Slot slot) {
         slotList.setSlot(slot);
+        searchIndex.index(slot);
     }
 
     /**
@@ -383,6 +690,7 @@ public final class SlotManager {
      */
     public void removeSlot(final Slot slot) {
         slotList.removeSlot(slot);
+        searchIndex.remove(slot);
     }
 
     /**
@@ -392,7 +700,39 @@ public final class SlotManager {
      * @return the slot
      */
     public Slot getSlotById(final String slotId) {
-        return slotList.getSlotById(slotId);
+        final Slot slot = slotList.getSlotById(slotId);
+
+        if (slot == null && isLoading()) {
+            // load only the requested slot, the object id is taken from the snapshot or SOLR
+            final Slot loaded = Optional.ofNullable(pendingSlotIds.get(slotId))
+                .or(() -> Optional.ofNullable(findMCRObjectID(slotId)))
+                .map(this::loadPending).filter(s -> slotId.equals(s.getSlotId()))
+                .orElseGet(() -> slotList.getSlotById(slotId));
+            if (loaded == null) {
+                awaitLoaded();
+                return slotList.getSlotById(slotId);
+            }
+            return loaded;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Returns a slot by given {@link MCRObjectID}.
+     *
+     * @param objId the {@link MCRObjectID}
+     * @return the slot
+     */
+    public Slot getSlotByMCRObjectID(final MCRObjectID objId) {
+        final Slot slot = slotList.getSlotByMCRObjectID(objId);
+
+        if (slot == null && isLoading()) {
+            return Optional.ofNullable(loadPending(objId.toString()))
+                .orElseGet(() -> slotList.getSlotByMCRObjectID(objId));
+        }
+
+        return slot;
     }
 
     /**
@@ -424,16 +764,9 @@ public final class SlotManager {
      * @param rcLocation the reserve collection location
      * @return the next id
      */
-    public synchronized int getNextFreeId(final MCRCategoryID rcLocation) {
-        int lastId = -1;
-
-        for (Slot slot : slotList.getSlots()) {
-            if (slot.getLocation().equals(rcLocation)) {
-                lastId = lastId == -1 || lastId <= slot.getId() ? slot.getId() + 1 : lastId;
-            }
-        }
-
-        return lastId == -1 ? 1 : lastId;
+    public int getNextFreeId(final MCRCategoryID rcLocation) {
+        awaitLoaded();
+        return slotList.getNextFreeId(rcLocation);
     }
 
     /**
@@ -443,11 +776,9 @@ public final class SlotManager {
      * @param id the id to validate
      * @return <code>true</code> if id currently unused
      */
-    public synchronized boolean isFreeId(final MCRCategoryID rcLocation, int id) {
-        final Slot a = new Slot(rcLocation, id);
-        final Slot b = getSlotById(a.getSlotId());
-
-        return b == null;
+    public boolean isFreeId(final MCRCategoryID rcLocation, int id) {
+        awaitLoaded();
+        return getSlotById(new Slot(rcLocation, id).getSlotId()) == null;
     }
 
     /**
@@ -475,6 +806,10 @@ public final class SlotManager {
 
     /**
      * Saves or updates the metadata of given {@link Slot}.
+     * <p>
+     * The slot is compared against its state of the last load or save. An unchanged slot isn't written again. For a
+     * changed slot only the modified entries are marshalled again and only added or removed {@link FileEntry}s are
+     * created or deleted on filesystem.
      *
      * @param slot the slot
      * @throws MCRActiveLinkException thrown from underlying classes
@@ -485,28 +820,82 @@ public final class SlotManager {
     public void saveOrUpdate(final Slot slot)
         throws MCRPersistenceException, MCRActiveLinkException, MCRAccessException {
         final MCRObjectID objID = slot.getMCRObjectID();
+        final boolean exists = objID != null && MCRMetadataManager.exists(objID);
+        final PersistedSlot persisted = exists ? persistedSlots.get(objID) : null;
 
-        Slot oldSlot = null;
+        if (persisted != null && persisted.isCurrent(slot)) {
+            LOGGER.debug("Slot {} is unchanged, skip update.", slot.getSlotId());
+            return;
+        }
 
-        if (objID != null && MCRMetadataManager.exists(objID)) {
-            final MCRObject obj = MCRMetadataManager.retrieveMCRObject(objID);
-            oldSlot = SlotWrapper.unwrapMCRObject(obj);
+        final Map<String, PersistedEntry> entries = new HashMap<>();
+        final Set<String> storedIds;
+        final MCRObject obj;
+
+        if (exists) {
+            final MCRObject current = persisted != null ? persisted.getObject(objID) : null;
+            obj = current != null ? current : MCRMetadataManager.retrieveMCRObject(objID);
+            storedIds = persisted != null ? persisted.fileEntryIds
+                : getFileEntryIds(SlotWrapper.unwrapMCRObject(obj));
             final SlotWrapper wrapper = new SlotWrapper(obj);
-            wrapper.setSlot(slot);
+            wrapper.setSlot(slot, se -> marshalEntry(persisted, entries, se));
             MCRMetadataManager.update(wrapper.getMCRObject());
+            updateRevision(objID);
         } else {
-            final MCRObject obj = SlotWrapper.wrapSlot(slot);
+            final SlotWrapper wrapper = new SlotWrapper();
+            wrapper.setID(PROJECT_ID, 0);
+            wrapper.setSlot(slot, se -> marshalEntry(null, entries, se));
+            obj = wrapper.getMCRObject();
             slot.setMCRObjectID(obj.getId());
             MCRMetadataManager.create(obj);
+            updateRevision(obj.getId());
+            storedIds = Collections.emptySet();
+
+            // reindex to make the new MCRObjectID available
+            if (slotList.getSlotById(slot.getSlotId()) == slot) {
+                slotList.setSlot(slot);
+            }
         }
 
-        if (slot.getEntries() != null) {
-            slot.getEntries().stream().filter(filterFileEntry)
-                .filter(slotEntry -> !FileEntryManager.exists(slot, (SlotEntry<FileEntry>) slotEntry))
-                .forEach(slotEntry -> FileEntryManager.create(slot, (SlotEntry<FileEntry>) slotEntry));
+        if (slotList.getSlotById(slot.getSlotId()) == slot) {
+            searchIndex.index(slot);
         }
 
-        removeDeletedFileEntries(oldSlot, slot);
+        final Set<String> fileEntryIds = getFileEntryIds(slot);
+
+        final List<SlotEntry<FileEntry>> created = slot.getEntries() == null ? Collections.emptyList()
+            : slot.getEntries().stream().filter(filterFileEntry).filter(se -> !storedIds.contains(se.getId()))
+                .map(se -> (SlotEntry<FileEntry>) se).collect(Collectors.toList());
+        final Set<String> deleted = storedIds.stream().filter(id -> !fileEntryIds.contains(id))
+            .peek(id -> LOGGER.info("remove file entry {}", id)).collect(Collectors.toSet());
+
+        FileEntryManager.sync(slot, created, deleted);
+
+        persistedSlots.put(slot.getMCRObjectID(),
+            new PersistedSlot(slot, fileEntryIds, entries, obj, getLastModified(slot.getMCRObjectID())));
+    }
+
+    /**
+     * Returns the element of given {@link SlotEntry}. The element of the last save is reused if the entry wasn't
+     * modified since.
+     */
+    private static Element marshalEntry(final PersistedSlot persisted, final Map<String, PersistedEntry> entries,
+        final SlotEntry<?> slotEntry) {
+        final long version = slotEntry.getVersion();
+        final PersistedEntry stored = persisted != null ? persisted.entries.get(slotEntry.getId()) : null;
+        final PersistedEntry entry = stored != null && stored.entry == slotEntry && stored.version == version
+            ? stored
+            : new PersistedEntry(slotEntry, version, new EntityFactory<>(slotEntry).toDocument().detachRootElement());
+        entries.put(slotEntry.getId(), entry);
+        return entry.element.clone();
+    }
+
+    private static long getLastModified(final MCRObjectID objID) {
+        try {
+            return MCRXMLMetadataManager.instance().getLastModified(objID);
+        } catch (IOException e) {
+            return -1;
+        }
     }
 
     /**
@@ -526,27 +915,46 @@ public final class SlotManager {
             final SlotWrapper wrapper = new SlotWrapper(obj);
             wrapper.setSlot(slot);
             MCRMetadataManager.delete(wrapper.getMCRObject());
+            revisions.remove(objID);
 
-            removeDeletedFileEntries(slot, null);
+            final Set<String> deleted = new HashSet<>(getFileEntryIds(slot));
+            Optional.ofNullable(persistedSlots.remove(objID)).ifPresent(p -> deleted.addAll(p.fileEntryIds));
+            FileEntryManager.sync(slot, Collections.emptyList(), deleted);
             removeSlot(slot);
         } else {
             throw new MCRException("No reserve collection found for ID \"" + objID + "\".");
         }
     }
 
+    /**
+     * Deletes the {@link FileEntry}s of <code>slotBefore</code> on filesystem, which are missing in
+     * <code>slot</code>. All {@link FileEntry}s are deleted if <code>slot</code> is <code>null</code>.
+     *
+     * @param slotBefore the previous {@link Slot}
+     * @param slot the current {@link Slot} or <code>null</code>
+     */
     @SuppressWarnings("unchecked")
     public void removeDeletedFileEntries(Slot slotBefore, Slot slot) {
         if (slotBefore != null && slotBefore.getEntries() != null) {
-            slotBefore.getEntries().stream().filter(filterFileEntry)
-                .filter(se -> Optional.ofNullable(slot).map(Slot::getEntries)
-                    .map(nse -> !nse.stream().filter(filterFileEntry)
-                        .anyMatch(e -> e.getId().equals(se.getId())))
-                    .orElse(true))
-                .peek(e -> LOGGER.info("remove {}", e))
-                .forEach(se -> FileEntryManager.delete(slotBefore, (SlotEntry<FileEntry>) se));
+            final Set<String> fileEntryIds = Optional.ofNullable(slot).map(this::getFileEntryIds)
+                .orElse(Collections.emptySet());
+            final List<SlotEntry<FileEntry>> deleted = slotBefore.getEntries().stream().filter(filterFileEntry)
+                .filter(se -> !fileEntryIds.contains(se.getId())).map(se -> (SlotEntry<FileEntry>) se)
+                .collect(Collectors.toList());
+
+            if (!deleted.isEmpty()) {
+                final MCRFileCollection col = FileEntryManager.getFileCollection(slotBefore);
+                deleted.stream().peek(e -> LOGGER.info("remove {}", e))
+                    .forEach(se -> FileEntryManager.delete(col, se));
+            }
         }
     }
 
+    private Set<String> getFileEntryIds(final Slot slot) {
+        return slot.getEntries() == null ? Collections.emptySet()
+            : slot.getEntries().stream().filter(filterFileEntry).map(SlotEntry::getId).collect(Collectors.toSet());
+    }
+
     /**
      * Returns a list of {@link Attendees} based on {@link MCRObjectID} without any check of valid key.
      *
@@ -619,16 +1027,19 @@ public final class SlotManager {
     }
 
     /**
-     * Returns the current {@link SlotList}.
+     * Returns the current {@link SlotList} and waits until all slots are loaded.
      *
      * @return the slot list
      */
     public SlotList getSlotList() {
+        awaitLoaded();
         return slotList;
     }
 
     /**
      * Returns a filtered and sorted {@link SlotList}.
+     * The list is served from the in-process {@link SlotSearchIndex}, SOLR is only queried for filters or
+     * sort clauses the index doesn't support.
      *
      * @param search the search string
      * @param filter the extra filter
@@ -638,8 +1049,25 @@ public final class SlotManager {
      * @return the slot list
      * @throws IOException thrown on wrong query
      * @throws SolrServerException thrown on SOLR error
+     * @throws SlotListLoadingException thrown while the slot list is loading
      */
     public SlotList getFilteredSlotList(final String search, final String filter, Integer start, Integer rows,
+        final List<SortClause> sortClauses) throws SolrServerException, IOException {
+        checkLoaded();
+
+        final Optional<SlotSearchIndex.Result> result = searchIndex.search(search, filter, start, rows,
+            sortClauses);
+        if (result.isPresent()) {
+            final SlotList slotList = new SlotList(result.get().getSlotIds().stream().map(this::getSlotById)
+                .filter(Objects::nonNull).collect(Collectors.toList()));
+            slotList.setTotal(result.get().getTotal());
+            return slotList;
+        }
+
+        return querySlotList(search, filter, start, rows, sortClauses);
+    }
+
+    private SlotList querySlotList(final String search, final String filter, Integer start, Integer rows,
         final List<SortClause> sortClauses) throws SolrServerException, IOException {
         final SolrClient client = MCRSolrClientFactory.getMainSolrClient();
 
@@ -669,4 +1097,160 @@ public final class SlotManager {
         return slotList;
     }
 
+    /**
+     * The state of a {@link Slot} as last loaded or saved.
+     */
+    private final class PersistedSlot {
+
+        private final Slot slot;
+
+        private final long version;
+
+        private final Set<String> fileEntryIds;
+
+        private final Map<String, PersistedEntry> entries;
+
+        private final MCRObject object;
+
+        private final long lastModified;
+
+        PersistedSlot(final Slot slot) {
+            this(slot, getFileEntryIds(slot), Collections.emptyMap(), null, -1);
+        }
+
+        PersistedSlot(final Slot slot, final Set<String> fileEntryIds, final Map<String, PersistedEntry> entries,
+            final MCRObject object, final long lastModified) {
+            this.slot = slot;
+            this.version = slot.getVersion();
+            this.fileEntryIds = fileEntryIds;
+            this.entries = entries;
+            this.object = object;
+            this.lastModified = lastModified;
+        }
+
+        boolean isCurrent(final Slot other) {
+            return slot == other && version == other.getVersion();
+        }
+
+        /**
+         * Returns the last saved {@link MCRObject}, if it wasn't changed on storage since.
+         */
+        MCRObject getObject(final MCRObjectID objID) {
+            return object != null && lastModified != -1 && lastModified == getLastModified(objID) ? object : null;
+        }
+    }
+
+    /**
+     * The marshalled element of a {@link SlotEntry} as last saved.
+     */
+    private static final class PersistedEntry {
+
+        private final SlotEntry<?> entry;
+
+        private final long version;
+
+        private final Element element;
+
+        PersistedEntry(final SlotEntry<?> entry, final long version, final Element element) {
+            this.entry = entry;
+            this.version = version;
+            this.element = element;
+        }
+    }
+
+    /**
+     * A {@link Slot} that isn't loaded yet.
+     */
+    private static final class PendingSlot {
+
+        private final String objId;
+
+        private final Long revision;
+
+        private final SlotListSnapshot.Entry entry;
+
+        private final LoadProgress progress;
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private final CompletableFuture<Slot> slot = new CompletableFuture<>();
+
+        PendingSlot(final String objId, final Long revision, final SlotListSnapshot.Entry entry,
+            final LoadProgress progress) {
+            this.objId = objId;
+            this.revision = revision;
+            this.entry = entry;
+            this.progress = progress;
+        }
+    }
+
+    private static final class LoadProgress {
+
+        static final long DEFAULT_REMAINING = 5;
+
+        private final int total;
+
+        private final long start = System.nanoTime();
+
+        private final AtomicInteger loaded = new AtomicInteger();
+
+        private final AtomicInteger failed = new AtomicInteger();
+
+        private final AtomicInteger restored = new AtomicInteger();
+
+        LoadProgress(int total) {
+            this.total = total;
+
+            LOADER_COLLECTION.setProperty("slots total", total);
+            LOADER_COLLECTION.setProperty("slots loaded", 0);
+            LOADER_COLLECTION.setProperty("slots failed", 0);
+            LOADER_COLLECTION.setProperty("slots from snapshot", 0);
+            LOADER_COLLECTION.setProperty("loading", true);
+
+            LOGGER.info("Loading {} slots...", total);
+        }
+
+        /**
+         * Estimates the remaining seconds from the average load time of the slots loaded so far.
+         *
+         * @return the remaining seconds, at least one
+         */
+        long estimateRemaining() {
+            final int done = loaded.get() + failed.get();
+            if (done == 0) {
+                return DEFAULT_REMAINING;
+            }
+
+            final long elapsed = System.nanoTime() - start;
+            return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(elapsed / done * Math.max(0, total - done)));
+        }
+
+        void loaded() {
+            final int count = loaded.incrementAndGet();
+            LOADER_COLLECTION.setProperty("slots loaded", count);
+
+            if (total >= 10 && count % (total / 10) == 0) {
+                LOGGER.info("Loaded {} of {} slots ({}%).", count, total, count * 100 / total);
+            }
+        }
+
+        void restored() {
+            LOADER_COLLECTION.setProperty("slots from snapshot", restored.incrementAndGet());
+        }
+
+        void failed() {
+            LOADER_COLLECTION.setProperty("slots failed", failed.incrementAndGet());
+        }
+
+        void finish() {
+            final long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            LOADER_COLLECTION.setProperty("loading", false);
+            LOADER_COLLECTION.setProperty("load time (ms)", duration);
+
+            LOGGER.info("Loaded {} of {} slots in {} ms, {} from snapshot, {} failed.", loaded.get(), total, duration,
+                restored.get(), failed.get());
+        }
+    }
+
 }
@@ -0,0 +1,571 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc.persistency;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrQuery.ORDER;
+import org.apache.solr.client.solrj.SolrQuery.SortClause;
+import org.mycore.datamodel.classifications2.MCRCategoryID;
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+import de.urmel_dl.dbt.rc.datamodel.Lecturer;
+import de.urmel_dl.dbt.rc.datamodel.Status;
+import de.urmel_dl.dbt.rc.datamodel.slot.Slot;
+
+/**
+ * An in-process inverted index over the {@link Slot}s of the {@link SlotManager}.
+ * <p>
+ * The index covers the same fields as the SOLR slot document (<code>slotId</code>, <code>slot.title</code>,
+ * <code>slot.lecturer</code>, <code>slot.location</code>, <code>slot.validTo</code>, <code>slot.status</code>
+ * and <code>slot.onlineOnly</code>) and understands the simple filter and sort syntax used by the
+ * {@link SlotManager} callers. Queries it can't answer are reported as unsupported, so the caller can
+ * fall back to SOLR.
+ * <p>
+ * Location labels and slot owners aren't available on the slot itself and are resolved lazily at query time,
+ * because slots are indexed from loader threads without a database session.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ *
+ */
+public class SlotSearchIndex {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern FILTER_OPERATOR = Pattern.compile("\\s+(?i)(and|or)\\s+");
+
+    private static final Pattern FILTER_CLAUSE = Pattern.compile("([\\w.]+):(\"[^\"]*\"|\\S+)");
+
+    private static final Pattern OWNER_FUNCTION = Pattern
+        .compile("if\\(exists\\(query\\(\\{!v='createdby:([^']+)'\\}\\)\\),(\\d+),(\\d+)\\)");
+
+    private static final String OWNER_FUNCTION_FORMAT = "if(exists(query({!v='createdby:%s'})),100,0)";
+
+    private static final String SEPARATOR = "\u0000";
+
+    private static final String FIELD_SLOTID = "slotId";
+
+    private static final String FIELD_TITLE = "slot.title";
+
+    private static final String FIELD_LECTURER = "slot.lecturer";
+
+    private static final String FIELD_LOCATION = "slot.location";
+
+    private static final String FIELD_VALIDTO = "slot.validTo";
+
+    private static final List<String> SEARCH_FIELDS = List.of(FIELD_SLOTID, FIELD_TITLE, FIELD_LECTURER,
+        FIELD_LOCATION, FIELD_VALIDTO);
+
+    // SOLR returns 10 rows if nothing else is requested
+    private static final int DEFAULT_ROWS = 10;
+
+    private final ConcurrentNavigableMap<String, Set<String>> postings = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Doc> docs = new ConcurrentHashMap<>();
+
+    private final Map<MCRCategoryID, Set<String>> locations = new ConcurrentHashMap<>();
+
+    private final Map<MCRCategoryID, Set<String>> locationTerms = new ConcurrentHashMap<>();
+
+    private final Map<MCRObjectID, Optional<String>> owners = new ConcurrentHashMap<>();
+
+    private final Function<MCRCategoryID, Collection<String>> locationLabels;
+
+    private final Function<MCRObjectID, Optional<String>> ownerLookup;
+
+    /**
+     * Creates a new, empty index.
+     *
+     * @param locationLabels returns the labels of a location and its ancestors
+     * @param ownerLookup returns the owner of a slot object
+     */
+    public SlotSearchIndex(final Function<MCRCategoryID, Collection<String>> locationLabels,
+        final Function<MCRObjectID, Optional<String>> ownerLookup) {
+        this.locationLabels = locationLabels;
+        this.ownerLookup = ownerLookup;
+    }
+
+    /**
+     * Returns the sort clause ranking the slots owned by given user first.
+     *
+     * @param userId the user id
+     * @return the sort clause
+     */
+    public static SortClause ownerFirst(final String userId) {
+        return new SortClause(String.format(Locale.ROOT, OWNER_FUNCTION_FORMAT, userId), ORDER.desc);
+    }
+
+    /**
+     * Adds or replaces the given {@link Slot}.
+     *
+     * @param slot the slot
+     */
+    public void index(final Slot slot) {
+        index(slot, null);
+    }
+
+    /**
+     * Adds or replaces the given {@link Slot} and remembers the owner if known.
+     *
+     * @param slot the slot
+     * @param owner the owner or <code>null</code>
+     */
+    public synchronized void index(final Slot slot, final String owner) {
+        if (slot == null || slot.getLocation() == null) {
+            return;
+        }
+
+        final Doc doc = new Doc(slot);
+        Optional.ofNullable(docs.put(doc.slotId, doc)).ifPresent(this::unindex);
+
+        doc.keys.forEach(key -> postings.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(doc.slotId));
+        if (doc.location != null) {
+            locations.computeIfAbsent(doc.location, k -> ConcurrentHashMap.newKeySet()).add(doc.slotId);
+        }
+        if (owner != null && doc.objId != null) {
+            owners.put(doc.objId, Optional.of(owner));
+        }
+    }
+
+    /**
+     * Removes the given {@link Slot}.
+     *
+     * @param slot the slot
+     */
+    public synchronized void remove(final Slot slot) {
+        if (slot == null || slot.getLocation() == null) {
+            return;
+        }
+
+        Optional.ofNullable(docs.remove(slot.getSlotId())).ifPresent(doc -> {
+            unindex(doc);
+            Optional.ofNullable(doc.objId).ifPresent(owners::remove);
+        });
+    }
+
+    /**
+     * Sets the owner of given object, <code>null</code> forces a lookup on next query.
+     *
+     * @param objId the object id
+     * @param owner the owner or <code>null</code>
+     */
+    public void setOwner(final MCRObjectID objId, final String owner) {
+        if (owner != null) {
+            owners.put(objId, Optional.of(owner));
+        } else {
+            owners.remove(objId);
+        }
+    }
+
+    /**
+     * Removes all slots and resolved locations and owners.
+     */
+    public synchronized void clear() {
+        postings.clear();
+        docs.clear();
+        locations.clear();
+        locationTerms.clear();
+        owners.clear();
+    }
+
+    /**
+     * Returns the number of indexed slots.
+     *
+     * @return the number of slots
+     */
+    public int size() {
+        return docs.size();
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @param search the search string, <code>null</code>, empty or <code>*</code> matches all slots
+     * @param filter the filter, a list of <code>field:value</code> clauses joined either by <code>or</code>
+     *  or by <code>and</code>
+     * @param start the start position
+     * @param rows the number of rows to return
+     * @param sortClauses the clauses for sort
+     * @return the result or {@link Optional#empty()} if filter or sort isn't supported
+     */
+    public Optional<Result> search(final String search, final String filter, final Integer start,
+        final Integer rows, final List<SortClause> sortClauses) {
+        final Optional<Predicate<Doc>> filterPredicate = parseFilter(filter);
+        final Optional<Comparator<Doc>> comparator = parseSort(sortClauses);
+
+        if (filterPredicate.isEmpty() || comparator.isEmpty()) {
+            LOGGER.debug("Unsupported filter \"{}\" or sort \"{}\".", filter, sortClauses);
+            return Optional.empty();
+        }
+
+        final List<Doc> hits = match(search).filter(filterPredicate.get()).sorted(comparator.get())
+            .collect(Collectors.toList());
+
+        final int from = Math.min(hits.size(), Math.max(0, Optional.ofNullable(start).orElse(0)));
+        final int to = Math.min(hits.size(), from + Math.max(0, Optional.ofNullable(rows).orElse(DEFAULT_ROWS)));
+
+        return Optional.of(new Result(hits.subList(from, to).stream().map(doc -> doc.slotId)
+            .collect(Collectors.toList()), hits.size()));
+    }
+
+    private Stream<Doc> match(final String search) {
+        final List<String> terms = search != null && !"*".equals(search.trim()) ? tokenize(search)
+            : Collections.emptyList();
+
+        if (terms.isEmpty()) {
+            return docs.values().stream();
+        }
+
+        Set<String> matches = null;
+        for (int i = 0; i < terms.size(); i++) {
+            final Set<String> termMatches = lookup(SEARCH_FIELDS, terms.get(i), i == terms.size() - 1);
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.retainAll(termMatches);
+            }
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+
+        return matches.stream().map(docs::get).filter(Objects::nonNull);
+    }
+
+    private Set<String> lookup(final Collection<String> fields, final String term, final boolean prefix) {
+        final Set<String> matches = new HashSet<>();
+
+        fields.forEach(field -> {
+            if (FIELD_LOCATION.equals(field)) {
+                locations.forEach((location, slotIds) -> {
+                    if (resolveLocationTerms(location).stream()
+                        .anyMatch(t -> prefix ? t.startsWith(term) : t.equals(term))) {
+                        matches.addAll(slotIds);
+                    }
+                });
+            } else if (prefix) {
+                final String key = field + SEPARATOR + term;
+                postings.subMap(key, true, key + Character.MAX_VALUE, true).values().forEach(matches::addAll);
+            } else {
+                Optional.ofNullable(postings.get(field + SEPARATOR + term)).ifPresent(matches::addAll);
+            }
+        });
+
+        return matches;
+    }
+
+    private Set<String> resolveLocationTerms(final MCRCategoryID location) {
+        final Set<String> terms = locationTerms.get(location);
+        if (terms != null) {
+            return terms;
+        }
+
+        try {
+            final Set<String> resolved = locationLabels.apply(location).stream().map(SlotSearchIndex::tokenize)
+                .flatMap(List::stream).collect(Collectors.toSet());
+            locationTerms.put(location, resolved);
+            return resolved;
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Couldn't resolve labels of location {}.", location, e);
+            return Collections.emptySet();
+        }
+    }
+
+    private boolean isOwner(final Doc doc, final String userId) {
+        if (doc.objId == null) {
+            return false;
+        }
+
+        Optional<String> owner = owners.get(doc.objId);
+        if (owner == null) {
+            try {
+                owner = ownerLookup.apply(doc.objId);
+                owners.put(doc.objId, owner);
+            } catch (final RuntimeException e) {
+                LOGGER.warn("Couldn't resolve owner of {}.", doc.objId, e);
+                return false;
+            }
+        }
+
+        return owner.map(userId::equals).orElse(false);
+    }
+
+    private Optional<Predicate<Doc>> parseFilter(final String filter) {
+        if (filter == null || filter.isBlank()) {
+            return Optional.of(doc -> true);
+        }
+
+        final List<String> operators = new ArrayList<>();
+        final Matcher om = FILTER_OPERATOR.matcher(filter.trim());
+        while (om.find()) {
+            operators.add(om.group(1).toLowerCase(Locale.ROOT));
+        }
+        if (new HashSet<>(operators).size() > 1) {
+            return Optional.empty();
+        }
+
+        final List<Predicate<Doc>> predicates = new ArrayList<>();
+        for (final String clause : FILTER_OPERATOR.split(filter.trim())) {
+            final Matcher cm = FILTER_CLAUSE.matcher(clause);
+            if (!cm.matches()) {
+                return Optional.empty();
+            }
+
+            final String value = cm.group(2).startsWith("\"") ? cm.group(2).substring(1, cm.group(2).length() - 1)
+                : cm.group(2);
+            final Optional<Predicate<Doc>> predicate = parseFilterClause(cm.group(1), value);
+            if (predicate.isEmpty()) {
+                return Optional.empty();
+            }
+            predicates.add(predicate.get());
+        }
+
+        return Optional.of(operators.contains("and") ? predicates.stream().reduce(Predicate::and).get()
+            : predicates.stream().reduce(Predicate::or).get());
+    }
+
+    private Optional<Predicate<Doc>> parseFilterClause(final String field, final String value) {
+        if ("*".equals(value)) {
+            return Optional.of(doc -> true);
+        }
+
+        switch (field) {
+            case FIELD_SLOTID:
+                return Optional.of(doc -> doc.slotId.equals(value));
+            case "slot.status":
+                return Optional.of(doc -> value.equals(doc.status));
+            case "slot.onlineOnly":
+                return Optional.of(doc -> Boolean.parseBoolean(value) == doc.onlineOnly);
+            case FIELD_VALIDTO:
+                return Optional.of(doc -> value.equals(doc.validToStr));
+            case "category":
+                return Optional.of(doc -> value.equals(doc.location.toString()));
+            case "createdby":
+                return Optional.of(doc -> isOwner(doc, value));
+            case FIELD_TITLE:
+            case FIELD_LECTURER:
+            case FIELD_LOCATION:
+                final Set<String> matches = tokenize(value).stream().map(t -> lookup(List.of(field), t, false))
+                    .reduce((m1, m2) -> {
+                        m1.retainAll(m2);
+                        return m1;
+                    }).orElse(Collections.emptySet());
+                return Optional.of(doc -> matches.contains(doc.slotId));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private Optional<Comparator<Doc>> parseSort(final List<SortClause> sortClauses) {
+        Comparator<Doc> comparator = (d1, d2) -> 0;
+
+        if (sortClauses != null) {
+            for (final SortClause sc : sortClauses) {
+                final Optional<Comparator<Doc>> c = parseSortClause(sc);
+                if (c.isEmpty()) {
+                    return Optional.empty();
+                }
+                comparator = comparator.thenComparing(c.get());
+            }
+        }
+
+        return Optional.of(comparator.thenComparing(doc -> doc.slotId));
+    }
+
+    private Optional<Comparator<Doc>> parseSortClause(final SortClause sortClause) {
+        final boolean asc = sortClause.getOrder() == ORDER.asc;
+
+        final Matcher m = OWNER_FUNCTION.matcher(sortClause.getItem().replaceAll("\\s", ""));
+        if (m.matches()) {
+            final String userId = m.group(1);
+            final int owned = Integer.parseInt(m.group(2));
+            final int other = Integer.parseInt(m.group(3));
+            final Comparator<Doc> c = Comparator.comparingInt(doc -> isOwner(doc, userId) ? owned : other);
+            return Optional.of(asc ? c : c.reversed());
+        }
+
+        switch (sortClause.getItem()) {
+            case "score":
+                return Optional.of((d1, d2) -> 0);
+            case FIELD_SLOTID:
+                return Optional.of(comparing(doc -> doc.slotId, asc));
+            case FIELD_TITLE:
+                return Optional.of(comparing(doc -> doc.title, asc));
+            case "slot.lecturers":
+                return Optional.of(comparing(doc -> doc.lecturers, asc));
+            case FIELD_VALIDTO:
+                return Optional.of(comparing(doc -> doc.validTo, asc));
+            case "slot.status":
+                return Optional.of(comparing(doc -> doc.status, asc));
+            case "slot.onlineOnly":
+                return Optional.of(comparing(doc -> doc.onlineOnly, asc));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<Doc> comparing(final Function<Doc, T> extractor,
+        final boolean asc) {
+        return Comparator.comparing(extractor,
+            Comparator.nullsLast(asc ? Comparator.<T>naturalOrder() : Comparator.<T>reverseOrder()));
+    }
+
+    private void unindex(final Doc doc) {
+        doc.keys.forEach(key -> postings.computeIfPresent(key, (k, ids) -> {
+            ids.remove(doc.slotId);
+            return ids.isEmpty() ? null : ids;
+        }));
+        if (doc.location != null) {
+            locations.computeIfPresent(doc.location, (k, ids) -> {
+                ids.remove(doc.slotId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static List<String> tokenize(final String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+
+        final String normalized = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+            .toLowerCase(Locale.ROOT);
+
+        return TOKEN_SEPARATOR.splitAsStream(normalized).filter(t -> !t.isEmpty()).distinct()
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * The result of a search.
+     */
+    public static final class Result {
+
+        private final List<String> slotIds;
+
+        private final long total;
+
+        Result(final List<String> slotIds, final long total) {
+            this.slotIds = slotIds;
+            this.total = total;
+        }
+
+        /**
+         * Returns the slot ids of the requested page.
+         *
+         * @return the slot ids
+         */
+        public List<String> getSlotIds() {
+            return slotIds;
+        }
+
+        /**
+         * Returns the number of all matching slots.
+         *
+         * @return the total
+         */
+        public long getTotal() {
+            return total;
+        }
+    }
+
+    private static final class Doc {
+
+        private final String slotId;
+
+        private final MCRObjectID objId;
+
+        private final MCRCategoryID location;
+
+        private final String title;
+
+        private final String lecturers;
+
+        private final Date validTo;
+
+        private final String validToStr;
+
+        private final String status;
+
+        private final boolean onlineOnly;
+
+        private final Set<String> keys = new LinkedHashSet<>();
+
+        Doc(final Slot slot) {
+            slotId = slot.getSlotId();
+            objId = slot.getMCRObjectID();
+            location = slot.getLocation();
+            title = slot.getTitle();
+            lecturers = Optional.ofNullable(slot.getLecturers()).filter(l -> !l.isEmpty())
+                .map(l -> l.stream().map(Lecturer::getName).filter(Objects::nonNull).map(Doc::sortName)
+                    .collect(Collectors.joining("; ")))
+                .orElse(null);
+            validTo = slot.getValidToAsDate();
+            validToStr = slot.getValidTo();
+            status = Optional.ofNullable(slot.getStatus()).map(Status::value).orElse(null);
+            onlineOnly = slot.isOnlineOnly();
+
+            addKeys(FIELD_SLOTID, slotId);
+            addKeys(FIELD_TITLE, title);
+            Optional.ofNullable(slot.getLecturers())
+                .ifPresent(l -> l.forEach(lecturer -> addKeys(FIELD_LECTURER, lecturer.getName())));
+            addKeys(FIELD_VALIDTO, validToStr);
+        }
+
+        private void addKeys(final String field, final String text) {
+            tokenize(text).forEach(t -> keys.add(field + SEPARATOR + t));
+        }
+
+        // same as the slot.lecturers sort field of the SOLR document
+        private static String sortName(final String name) {
+            if (name.contains(", ") || !name.contains(" ")) {
+                return name;
+            }
+
+            final int idx = name.indexOf(' ');
+            return name.substring(idx + 1) + ", " + name.substring(0, idx);
+        }
+    }
+}
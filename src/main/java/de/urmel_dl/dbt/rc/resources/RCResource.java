@@ -27,6 +27,8 @@ import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.StreamingOutput;
@@ -40,6 +42,7 @@ import de.urmel_dl.dbt.rc.datamodel.slot.SlotEntry;
 import de.urmel_dl.dbt.rc.datamodel.slot.SlotList;
 import de.urmel_dl.dbt.rc.datamodel.slot.entries.FileEntry;
 import de.urmel_dl.dbt.rc.persistency.FileEntryManager;
+import de.urmel_dl.dbt.rc.persistency.SlotListLoadingException;
 import de.urmel_dl.dbt.rc.persistency.SlotManager;
 
 /**
@@ -61,6 +64,11 @@ public class RCResource {
     @GET
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     public SlotList list() {
+        try {
+            SLOT_MGR.checkLoaded();
+        } catch (SlotListLoadingException e) {
+            throw serviceUnavailable(e);
+        }
         return SLOT_MGR.getSlotList().getBasicSlots();
     }
 
@@ -76,7 +84,11 @@ public class RCResource {
     @Path("{search:.+}")
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     public SlotList list(@PathParam("search") String search) throws SolrServerException, IOException {
-        return SLOT_MGR.getFilteredSlotList(search, null, null, null, new ArrayList<>()).getBasicSlots();
+        try {
+            return SLOT_MGR.getFilteredSlotList(search, null, null, null, new ArrayList<>()).getBasicSlots();
+        } catch (SlotListLoadingException e) {
+            throw serviceUnavailable(e);
+        }
     }
 
     /**
@@ -93,7 +105,11 @@ public class RCResource {
     @Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
     public SlotList list(@PathParam("search") String search, @PathParam("filter") String filter)
         throws SolrServerException, IOException {
-        return SLOT_MGR.getFilteredSlotList(search, filter, null, null, new ArrayList<>()).getBasicSlots();
+        try {
+            return SLOT_MGR.getFilteredSlotList(search, filter, null, null, new ArrayList<>()).getBasicSlots();
+        } catch (SlotListLoadingException e) {
+            throw serviceUnavailable(e);
+        }
     }
 
     /**
@@ -180,4 +196,9 @@ public class RCResource {
         return Response.status(Response.Status.NOT_FOUND).entity(msg).type(MediaType.TEXT_PLAIN).build();
     }
 
+    private static WebApplicationException serviceUnavailable(final SlotListLoadingException e) {
+        return new WebApplicationException(e, Response.status(Response.Status.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, e.getRetryAfter()).type(MediaType.TEXT_PLAIN).entity(e.getMessage())
+            .build());
+    }
 }
@@ -33,6 +33,7 @@ import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
@@ -47,6 +48,7 @@ import de.urmel_dl.dbt.rc.datamodel.slot.SlotEntry;
 import de.urmel_dl.dbt.rc.datamodel.slot.SlotList;
 import de.urmel_dl.dbt.rc.datamodel.slot.entries.FileEntry;
 import de.urmel_dl.dbt.rc.persistency.FileEntryManager;
+import de.urmel_dl.dbt.rc.persistency.SlotListLoadingException;
 import de.urmel_dl.dbt.rc.persistency.SlotManager;
 
 /**
@@ -123,7 +125,11 @@ public class RCResource {
                 .collect(Collectors.toList()))
             .orElse(Collections.emptyList());
 
-        return SLOT_MGR.getFilteredSlotList(search, filter, start, rows, sort).getBasicSlots();
+        try {
+            return SLOT_MGR.getFilteredSlotList(search, filter, start, rows, sort).getBasicSlots();
+        } catch (SlotListLoadingException e) {
+            throw serviceUnavailable(e);
+        }
     }
 
     /**
@@ -235,4 +241,9 @@ public class RCResource {
             .build();
     }
 
+    private static WebApplicationException serviceUnavailable(final SlotListLoadingException e) {
+        return new WebApplicationException(e, Response.status(Response.Status.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, e.getRetryAfter()).type(MediaType.TEXT_PLAIN).entity(e.getMessage())
+            .build());
+    }
 }
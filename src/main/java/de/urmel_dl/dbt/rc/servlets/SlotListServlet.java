@@ -53,7 +53,9 @@ import de.urmel_dl.dbt.rc.datamodel.RCCalendar;
 import de.urmel_dl.dbt.rc.datamodel.Status;
 import de.urmel_dl.dbt.rc.datamodel.slot.Slot;
 import de.urmel_dl.dbt.rc.datamodel.slot.SlotList;
+import de.urmel_dl.dbt.rc.persistency.SlotListLoadingException;
 import de.urmel_dl.dbt.rc.persistency.SlotManager;
+import de.urmel_dl.dbt.rc.persistency.SlotSearchIndex;
 import de.urmel_dl.dbt.utils.EntityFactory;
 
 /**
@@ -247,26 +249,31 @@ public class SlotListServlet extends MCRServlet {
             final MCRUserInformation currentUser = MCRSessionMgr.getCurrentSession().getUserInformation();
 
             final List<SortClause> sortClauses = new ArrayList<>();
-            sortClauses.add(new SortClause("if(exists(query({!v='createdby:" + currentUser.getUserID() + "'})),100,0)",
-                "desc"));
+            sortClauses.add(SlotSearchIndex.ownerFirst(currentUser.getUserID()));
             if (sortBy != null && !sortBy.isEmpty() && sortOrder != null && !sortOrder.isEmpty()) {
                 sortClauses.add(new SortClause(sortBy, ORDER.valueOf(sortOrder)));
             } else {
                 sortClauses.add(new SortClause("slot.lecturers", ORDER.asc));
             }
 
-            final SlotList slotList = SLOT_MGR.getFilteredSlotList(filter,
-                !MCRAccessManager.checkPermission(SlotManager.POOLPRIVILEGE_ADMINISTRATE_SLOT)
-                    && !MCRAccessManager.checkPermission(SlotManager.POOLPRIVILEGE_EDIT_SLOT)
-                        ? "slot.status:active or slot.status:pending or createdby:" + currentUser.getUserID()
-                        : null,
-                start, rows, sortClauses);
-
-            final SlotList basicSlotList = slotList.getBasicSlots();
-            basicSlotList.setTotal(slotList.getTotal());
+            final SlotList slotList;
+            try {
+                slotList = SLOT_MGR.getFilteredSlotList(filter,
+                    !MCRAccessManager.checkPermission(SlotManager.POOLPRIVILEGE_ADMINISTRATE_SLOT)
+                        && !MCRAccessManager.checkPermission(SlotManager.POOLPRIVILEGE_EDIT_SLOT)
+                            ? "slot.status:active or slot.status:pending or createdby:" + currentUser.getUserID()
+                            : null,
+                    start, rows, sortClauses);
+            } catch (SlotListLoadingException e) {
+                LOGGER.debug(e.getMessage());
+                job.getResponse().setHeader("Retry-After", Long.toString(e.getRetryAfter()));
+                job.getResponse().sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+                return;
+            }
 
+            // the basic slots are a shared projection, which already carries the total of the filtered list
             getLayoutService().doLayout(job.getRequest(), job.getResponse(),
-                new MCRJDOMContent(new EntityFactory<>(basicSlotList).toDocument()));
+                new MCRJDOMContent(new EntityFactory<>(slotList.getBasicSlots()).toDocument()));
         }
 
     }
@@ -19,9 +19,7 @@ package de.urmel_dl.dbt.rc.servlets;
 
 import java.net.URLEncoder;
 import java.nio.file.Files;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
 
@@ -151,12 +149,14 @@ public class SlotServlet extends MCRServlet {
                     final String items = req.getParameter("items");
                     final StringTokenizer st = new StringTokenizer(items, ",");
 
-                    final List<SlotEntry<?>> sortedEntries = new ArrayList<>();
+                    String afterId = null;
                     while (st.hasMoreTokens()) {
                         final String id = st.nextToken();
-                        sortedEntries.add(slot.getEntryById(id));
+                        if (slot.getEntryById(id) != null) {
+                            slot.moveEntry(id, afterId);
+                            afterId = id;
+                        }
                     }
-                    slot.setEntries(sortedEntries);
 
                     SLOT_MGR.saveOrUpdate(slot);
 
@@ -0,0 +1,237 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * This program is free software; you can use it, redistribute it
+ * and / or modify it under the terms of the GNU General Public License
+ * (GPL) as published by the Free Software Foundation; either version 2
+ * of the License or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, in a file called gpl.txt or license.txt.
+ * If not, write to the Free Software Foundation Inc.,
+ * 59 Temple Place - Suite 330, Boston, MA  02111-1307 USA
+ */
+package de.urmel_dl.dbt.rc.servlets;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.processing.MCRProcessableDefaultCollection;
+import org.mycore.common.processing.MCRProcessableRegistry;
+
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Processes uploads with a fixed number of workers.
+ *
+ * At most <code>workers + queueSize</code> uploads are admitted at a time, further uploads are rejected and should be
+ * answered with <code>503 Service Unavailable</code> and the {@link #getRetryAfter() Retry-After} delay. Uploads into
+ * the same slot can be serialized with the {@link #getSlotLock(String) slot lock}.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ */
+public class UploadPipeline {
+
+    public static final String CONFIG_PREFIX = "DBT.RC.Upload.";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final ThreadPoolExecutor executor;
+
+    private final Semaphore admission;
+
+    private final int retryAfter;
+
+    private final Striped<Lock> slotLocks = Striped.lazyWeakLock(64);
+
+    private final MCRProcessableDefaultCollection collection;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder waitTime = new LongAdder();
+
+    private final LongAdder processingTime = new LongAdder();
+
+    private final LongAccumulator maxWaitTime = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates a new pipeline.
+     *
+     * @param workers the number of uploads processed in parallel
+     * @param queueSize the number of uploads waiting for a worker
+     * @param retryAfter the seconds a rejected client should wait before retrying
+     */
+    public UploadPipeline(int workers, int queueSize, int retryAfter) {
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setNameFormat("RCUpload-#%d").build());
+        this.admission = new Semaphore(workers + queueSize);
+        this.retryAfter = retryAfter;
+
+        collection = new MCRProcessableDefaultCollection("RC Upload");
+        collection.setProperty("workers", workers);
+        collection.setProperty("queue size", queueSize);
+        MCRProcessableRegistry.getSingleInstance().register(collection);
+        updateMetrics();
+    }
+
+    /**
+     * Creates a new pipeline configured by the <code>DBT.RC.Upload.*</code> properties.
+     *
+     * @return the pipeline
+     */
+    public static UploadPipeline fromConfiguration() {
+        return new UploadPipeline(
+            MCRConfiguration2.getInt(CONFIG_PREFIX + "Workers").orElse(Runtime.getRuntime().availableProcessors()),
+            MCRConfiguration2.getInt(CONFIG_PREFIX + "QueueSize").orElse(50),
+            MCRConfiguration2.getInt(CONFIG_PREFIX + "RetryAfter").orElse(30));
+    }
+
+    /**
+     * Admits the given upload task if the pipeline isn't saturated.
+     *
+     * @param task the task
+     * @return <code>true</code> if the task was admitted, <code>false</code> if it was rejected
+     */
+    public boolean execute(Runnable task) {
+        if (!admission.tryAcquire()) {
+            rejected.increment();
+            updateMetrics();
+            return false;
+        }
+
+        final long queuedAt = System.nanoTime();
+        queued.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                final long startedAt = System.nanoTime();
+                queued.decrementAndGet();
+                waitTime.add(startedAt - queuedAt);
+                maxWaitTime.accumulate(startedAt - queuedAt);
+                updateMetrics();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error while processing upload.", e);
+                } finally {
+                    processingTime.add(System.nanoTime() - startedAt);
+                    completed.increment();
+                    admission.release();
+                    updateMetrics();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            admission.release();
+            rejected.increment();
+            updateMetrics();
+            return false;
+        }
+
+        updateMetrics();
+        return true;
+    }
+
+    /**
+     * Returns the lock that serializes changes to the slot with the given id.
+     *
+     * @param slotId the slot id
+     * @return the lock
+     */
+    public Lock getSlotLock(String slotId) {
+        return slotLocks.get(slotId);
+    }
+
+    /**
+     * Returns the seconds a rejected client should wait before retrying.
+     *
+     * @return the delay in seconds
+     */
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the average time uploads waited for a worker.
+     *
+     * @return the time in milliseconds
+     */
+    public long getAverageWaitTime() {
+        return average(waitTime);
+    }
+
+    /**
+     * Returns the average processing time of uploads.
+     *
+     * @return the time in milliseconds
+     */
+    public long getAverageProcessingTime() {
+        return average(processingTime);
+    }
+
+    /**
+     * Stops accepting uploads and waits for running ones.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.warn("Uploads still running on shutdown.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        MCRProcessableRegistry.getSingleInstance().unregister(collection);
+    }
+
+    private long average(LongAdder total) {
+        long count = completed.sum();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(total.sum() / count);
+    }
+
+    private void updateMetrics() {
+        collection.setProperty("queued", getQueueDepth());
+        collection.setProperty("active", getActiveCount());
+        collection.setProperty("completed", getCompletedCount());
+        collection.setProperty("rejected", getRejectedCount());
+        collection.setProperty("avg wait (ms)", getAverageWaitTime());
+        collection.setProperty("max wait (ms)", TimeUnit.NANOSECONDS.toMillis(maxWaitTime.get()));
+        collection.setProperty("avg processing (ms)", getAverageProcessingTime());
+    }
+}
@@ -22,7 +22,8 @@ package de.urmel_dl.dbt.rc.servlets;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import jakarta.servlet.AsyncContext;
 import jakarta.servlet.http.HttpServletRequest;
@@ -86,12 +87,19 @@ public class UploadServlet extends MCRServlet {
             AsyncContext asyncCtx = req.startAsync();
             asyncCtx.setTimeout(600000);
 
-            ThreadPoolExecutor executor = (ThreadPoolExecutor) req.getServletContext()
-                .getAttribute(UploadContextListener.ATTR_EXECUTER);
-            executor
-                .execute(new MCRTransactionableRunnable(
-                    new UploadProcessor(asyncCtx, slot, filePart.getInputStream(), filePart.getSubmittedFileName()),
-                    MCRSessionMgr.getCurrentSession()));
+            UploadPipeline pipeline = (UploadPipeline) req.getServletContext()
+                .getAttribute(UploadContextListener.ATTR_PIPELINE);
+            if (!pipeline.execute(new MCRTransactionableRunnable(
+                new UploadProcessor(asyncCtx, slot, filePart.getInputStream(), filePart.getSubmittedFileName(),
+                    pipeline.getSlotLock(slot.getSlotId())),
+                MCRSessionMgr.getCurrentSession()))) {
+                LOGGER.warn("Reject upload of {} for slot {}, {} uploads are waiting.",
+                    filePart.getSubmittedFileName(), slotId, pipeline.getQueueDepth());
+
+                res.setHeader("Retry-After", Integer.toString(pipeline.getRetryAfter()));
+                res.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                asyncCtx.complete();
+            }
         }
     }
 
@@ -105,14 +113,22 @@ public class UploadServlet extends MCRServlet {
 
         private String fileName;
 
+        private Lock slotLock;
+
         public UploadProcessor() {
         }
 
         public UploadProcessor(AsyncContext asyncCtx, Slot slot, InputStream fileStream, String fileName) {
+            this(asyncCtx, slot, fileStream, fileName, new ReentrantLock());
+        }
+
+        public UploadProcessor(AsyncContext asyncCtx, Slot slot, InputStream fileStream, String fileName,
+            Lock slotLock) {
             this.asyncContext = asyncCtx;
             this.slot = slot;
             this.fileStream = fileStream;
             this.fileName = fileName;
+            this.slotLock = slotLock;
         }
 
         @Override
@@ -144,38 +160,44 @@ public class UploadServlet extends MCRServlet {
                     return;
                 }
 
-                MCREvent evt = null;
-
-                if (slot.getEntries() == null) {
-                    LOGGER.debug("Add new entry: " + slotEntry);
-                    success = slot.addEntry(slotEntry);
-
-                    evt = MCREvent.customEvent(SlotManager.ENTRY_TYPE, MCREvent.EventType.CREATE);
-                    evt.put(SlotManager.ENTRY_TYPE, slotEntry);
-                } else {
-                    final SlotEntry<?> se = slot.getEntryById(slotEntry.getId());
-                    if (se != null) {
-                        LOGGER.debug("Update entry: " + slotEntry);
-                        slot.setEntry(slotEntry);
+                // entries of a slot are changed by one upload at a time
+                slotLock.lock();
+                try {
+                    MCREvent evt = null;
 
-                        evt = MCREvent.customEvent(SlotManager.ENTRY_TYPE, MCREvent.EventType.UPDATE);
-                        evt.put(SlotManager.ENTRY_TYPE, slotEntry);
-                    } else {
-                        LOGGER.debug("Add new entry after \"" + afterId + "\".");
-                        success = slot.addEntry(slotEntry, afterId);
+                    if (slot.getEntries() == null) {
+                        LOGGER.debug("Add new entry: " + slotEntry);
+                        success = slot.addEntry(slotEntry);
 
                         evt = MCREvent.customEvent(SlotManager.ENTRY_TYPE, MCREvent.EventType.CREATE);
                         evt.put(SlotManager.ENTRY_TYPE, slotEntry);
+                    } else {
+                        final SlotEntry<?> se = slot.getEntryById(slotEntry.getId());
+                        if (se != null) {
+                            LOGGER.debug("Update entry: " + slotEntry);
+                            slot.setEntry(slotEntry);
+
+                            evt = MCREvent.customEvent(SlotManager.ENTRY_TYPE, MCREvent.EventType.UPDATE);
+                            evt.put(SlotManager.ENTRY_TYPE, slotEntry);
+                        } else {
+                            LOGGER.debug("Add new entry after \"" + afterId + "\".");
+                            success = slot.addEntry(slotEntry, afterId);
+
+                            evt = MCREvent.customEvent(SlotManager.ENTRY_TYPE, MCREvent.EventType.CREATE);
+                            evt.put(SlotManager.ENTRY_TYPE, slotEntry);
+                        }
                     }
-                }
 
-                if (success) {
-                    SLOT_MGR.saveOrUpdate(slot);
+                    if (success) {
+                        SLOT_MGR.saveOrUpdate(slot);
 
-                    if (evt != null) {
-                        evt.put("slotId", slot.getSlotId());
-                        MCREventManager.instance().handleEvent(evt);
+                        if (evt != null) {
+                            evt.put("slotId", slot.getSlotId());
+                            MCREventManager.instance().handleEvent(evt);
+                        }
                     }
+                } finally {
+                    slotLock.unlock();
                 }
 
                 uploadResponse(res, HttpServletResponse.SC_OK,
@@ -19,32 +19,28 @@
  */
 package de.urmel_dl.dbt.rc.servlets.listener;
 
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 
+import de.urmel_dl.dbt.rc.servlets.UploadPipeline;
+
 /**
  * @author Ren\u00E9 Adler (eagle)
  *
  */
 public class UploadContextListener implements ServletContextListener {
 
-    public static final String ATTR_EXECUTER = "executor";
+    public static final String ATTR_PIPELINE = "uploadPipeline";
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
-        ThreadPoolExecutor executor = new ThreadPoolExecutor(100, 200, 50000L, TimeUnit.MILLISECONDS,
-            new ArrayBlockingQueue<Runnable>(100));
-        sce.getServletContext().setAttribute(ATTR_EXECUTER, executor);
+        sce.getServletContext().setAttribute(ATTR_PIPELINE, UploadPipeline.fromConfiguration());
     }
 
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
-        ThreadPoolExecutor executor = (ThreadPoolExecutor) sce.getServletContext().getAttribute(ATTR_EXECUTER);
-        executor.shutdown();
+        UploadPipeline pipeline = (UploadPipeline) sce.getServletContext().getAttribute(ATTR_PIPELINE);
+        pipeline.shutdown();
     }
 
 }
@@ -19,9 +19,9 @@ package de.urmel_dl.dbt.rc.utils;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 import org.jdom2.Content;
-import org.jdom2.Document;
 import org.jdom2.Element;
 import org.mycore.datamodel.metadata.MCRMetaElement;
 import org.mycore.datamodel.metadata.MCRMetaXML;
@@ -31,6 +31,7 @@ import org.mycore.datamodel.metadata.MCRObjectMetadata;
 import org.mycore.datamodel.metadata.MCRObjectService;
 
 import de.urmel_dl.dbt.rc.datamodel.slot.Slot;
+import de.urmel_dl.dbt.rc.datamodel.slot.SlotEntry;
 import de.urmel_dl.dbt.rc.persistency.SlotManager;
 import de.urmel_dl.dbt.utils.EntityFactory;
 
@@ -101,6 +102,27 @@ public class SlotWrapper {
     }
 
     public void setSlot(Slot slot) {
+        setSlotElement(slot, new EntityFactory<>(slot.getExportableCopy()).toDocument().getRootElement());
+    }
+
+    /**
+     * Sets the given {@link Slot}, but takes the elements of its entries from given function. So the caller can
+     * reuse elements of unchanged entries instead of marshalling the whole slot again.
+     *
+     * @param slot the slot
+     * @param entryElement returns the detached element of a {@link SlotEntry}
+     */
+    public void setSlot(Slot slot, Function<SlotEntry<?>, Element> entryElement) {
+        Element root = new EntityFactory<>(slot.getBasicCopy()).toDocument().getRootElement();
+        if (slot.getEntries() != null) {
+            Element entries = new Element("entries");
+            slot.getEntries().forEach(e -> entries.addContent(entryElement.apply(e)));
+            root.addContent(entries);
+        }
+        setSlotElement(slot, root);
+    }
+
+    private void setSlotElement(Slot slot, Element slotElement) {
         MCRObjectMetadata om = object.getMetadata();
         if (om.getMetadataElement(DEF_SLOT_CONTAINER) != null) {
             om.removeMetadataElement(DEF_SLOT_CONTAINER);
@@ -111,8 +133,7 @@ public class SlotWrapper {
         MCRMetaElement defSlotContainer = new MCRMetaElement(MCRMetaXML.class, DEF_SLOT_CONTAINER, false, true, list);
         om.setMetadataElement(defSlotContainer);
 
-        Document doc = new EntityFactory<>(slot.getExportableCopy()).toDocument();
-        slotContainer.addContent(doc.getRootElement());
+        slotContainer.addContent(slotElement.detach());
 
         if (slot.getReadKey() != null) {
             setServiceFlag("readkey", slot.getReadKey());
@@ -25,6 +25,7 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
@@ -148,7 +149,9 @@ public class VideoSourceResource {
 
     private static Sources buildSources(String derivateId, String path) throws IOException, URISyntaxException {
         String mediaId = MediaService.buildInternalId(derivateId + "_" + path);
-        Sources sources = Sources.build(mediaId, MediaService.getMediaFiles(mediaId));
+        List<java.nio.file.Path> files = MediaService.hasMediaFiles(mediaId) ? MediaService.getMediaFiles(mediaId)
+            : null;
+        Sources sources = Sources.build(mediaId, Optional.ofNullable(files).orElseGet(Collections::emptyList));
         sources.setSources(sources.getSources().stream()
             .filter(s -> !"video/mp4".equals(s.getType())).collect(Collectors.toList()));
         return sources;
@@ -33,8 +33,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -104,6 +104,18 @@ public class EntityFactory<T> {
 
     private final static Map<String, Class<?>[]> CACHED_ENTITIES = new ConcurrentHashMap<>();
 
+    private final static Map<String, JAXBContext> CACHED_CONTEXTS = new ConcurrentHashMap<>();
+
+    private final static Map<String, Map<String, ?>> CACHED_PROPERTIES = new ConcurrentHashMap<>();
+
+    private final static Map<String, Boolean> CACHED_HANDLES = new ConcurrentHashMap<>();
+
+    private final static Map<String, Optional<Method>> CACHED_METHODS = new ConcurrentHashMap<>();
+
+    private final static AtomicInteger CONFIG_GENERATION = new AtomicInteger();
+
+    private final static ThreadLocal<Pool> POOL = ThreadLocal.withInitial(Pool::new);
+
     private final static Map<String, String> MARSHALLER_JSON_PROPERTIES = new HashMap<>();
 
     private final static Map<String, String> UNMARSHALLER_JSON_PROPERTIES = new HashMap<>();
@@ -111,19 +123,21 @@ public class EntityFactory<T> {
     static {
         MARSHALLER_JSON_PROPERTIES.put(MarshallerProperties.MEDIA_TYPE, "application/json");
         UNMARSHALLER_JSON_PROPERTIES.put(UnmarshallerProperties.MEDIA_TYPE, "application/json");
+
+        // drop resolved properties and pooled (un)marshallers if configuration changes
+        MCRConfiguration2.addPropertyChangeEventLister(k -> k.startsWith(CONFIG_PREFIX), (k, o, n) -> {
+            CACHED_PROPERTIES.clear();
+            CACHED_HANDLES.clear();
+            CONFIG_GENERATION.incrementAndGet();
+        });
     }
 
     private Class<T> entityType;
 
     private T entity;
 
-    private BiConsumer<Callable<Marshaller>, Object> marshal = (marshallerCaller, output) -> {
-        Marshaller marshaller;
-        try {
-            marshaller = marshallerCaller.call();
-        } catch (Exception e) {
-            throw new RuntimeException("Couldn't build marshaller.", e);
-        }
+    private BiConsumer<String, Object> marshal = (mediaType, output) -> {
+        Marshaller marshaller = borrowMarshaller(mediaType);
 
         Class<? extends Marshaller> marshallerClass = marshaller.getClass();
         Class<?> outputType = output.getClass();
@@ -138,16 +152,13 @@ public class EntityFactory<T> {
         } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
             throw new RuntimeException(
                 "Couldn't marshal " + entityType + " to output " + outputType + ".", e);
+        } finally {
+            pool().marshallers.put(poolKey(mediaType), marshaller);
         }
     };
 
-    private BiFunction<Callable<Unmarshaller>, Object, T> unmarshal = (unmarshallerCaller, input) -> {
-        Unmarshaller unmarshaller;
-        try {
-            unmarshaller = unmarshallerCaller.call();
-        } catch (Exception e) {
-            throw new RuntimeException("Couldn't build unmarshaller.", e);
-        }
+    private BiFunction<String, Object, T> unmarshal = (mediaType, input) -> {
+        Unmarshaller unmarshaller = borrowUnmarshaller(mediaType);
 
         Class<? extends Unmarshaller> unmarshallerClass = unmarshaller.getClass();
         Class<?> inputType = input.getClass();
@@ -162,22 +173,21 @@ public class EntityFactory<T> {
         } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
             throw new RuntimeException(
                 "Couldn't unmarshal " + inputType + " to " + entityType + ".", e);
+        } finally {
+            pool().unmarshallers.put(poolKey(mediaType), unmarshaller);
         }
     };
 
-    private BiFunction<Callable<Unmarshaller>, Object, T> jsonUnmarshal = (unmarshallerCaller, input) -> {
-        Unmarshaller unmarshaller;
-        try {
-            unmarshaller = unmarshallerCaller.call();
-        } catch (Exception e) {
-            throw new RuntimeException("Couldn't build unmarshaller.", e);
-        }
+    private BiFunction<String, Object, T> jsonUnmarshal = (mediaType, input) -> {
+        Unmarshaller unmarshaller = borrowUnmarshaller(mediaType);
 
         try {
             return unmarshaller.unmarshal(toSource(input), entityType).getValue();
         } catch (IllegalArgumentException | JAXBException e) {
             throw new RuntimeException(
                 "Couldn't unmarshal " + input.getClass() + " to " + entityType + ".", e);
+        } finally {
+            pool().unmarshallers.put(poolKey(mediaType), unmarshaller);
         }
     };
 
@@ -215,12 +225,14 @@ public class EntityFactory<T> {
      * @return <code>true</code> if can be handled
      */
     public boolean canHandle() {
-        return entityType != null && MCRConfiguration2.getPropertiesMap().entrySet().stream()
-            .filter(e -> e.getKey().startsWith(CONFIG_PREFIX))
-            .anyMatch(e -> Stream.of(CONFIG_MARSHALLER, CONFIG_UNMARSHALLER).map(a -> e.getKey().indexOf(a))
-                .filter(i -> i != -1 && CONFIG_PREFIX.length() < i)
-                .map(i -> e.getKey().substring(CONFIG_PREFIX.length(), i - 1))
-                .anyMatch(p -> entityType.getPackage().getName().contains(p) || entityType.getName().contains(p)));
+        return entityType != null && CACHED_HANDLES.computeIfAbsent(entityType.getName(),
+            n -> MCRConfiguration2.getPropertiesMap().entrySet().stream()
+                .filter(e -> e.getKey().startsWith(CONFIG_PREFIX))
+                .anyMatch(e -> Stream.of(CONFIG_MARSHALLER, CONFIG_UNMARSHALLER).map(a -> e.getKey().indexOf(a))
+                    .filter(i -> i != -1 && CONFIG_PREFIX.length() < i)
+                    .map(i -> e.getKey().substring(CONFIG_PREFIX.length(), i - 1))
+                    .anyMatch(
+                        p -> entityType.getPackage().getName().contains(p) || entityType.getName().contains(p))));
     }
 
     /**
@@ -265,7 +277,7 @@ public class EntityFactory<T> {
      * @param source the source
      */
     public <S> void toJSON(S source) {
-        marshal.accept(() -> marshaller(Optional.of(MARSHALLER_JSON_PROPERTIES)), source);
+        marshal.accept(MediaType.APPLICATION_JSON, source);
     }
 
     /**
@@ -286,7 +298,7 @@ public class EntityFactory<T> {
      * @return the entity class
      */
     public T fromJSON(Object source) {
-        return jsonUnmarshal.apply(() -> unmarshaller(Optional.of(UNMARSHALLER_JSON_PROPERTIES)), source);
+        return jsonUnmarshal.apply(MediaType.APPLICATION_JSON, source);
     }
 
     /**
@@ -307,7 +319,7 @@ public class EntityFactory<T> {
      * @param source the source
      */
     public <S> void toXML(S source) {
-        marshal.accept(() -> marshaller(Optional.empty()), source);
+        marshal.accept(MediaType.APPLICATION_XML, source);
     }
 
     /**
@@ -328,7 +340,7 @@ public class EntityFactory<T> {
      * @return the entity class
      */
     public T fromXML(Object source) {
-        return unmarshal.apply(() -> unmarshaller(Optional.empty()), source);
+        return unmarshal.apply(MediaType.APPLICATION_XML, source);
     }
 
     /**
@@ -338,7 +350,7 @@ public class EntityFactory<T> {
      */
     public Document toDocument() {
         JDOMResult r = new JDOMResult();
-        marshal.accept(() -> marshaller(Optional.empty()), r);
+        marshal.accept(MediaType.APPLICATION_XML, r);
         return r.getDocument();
     }
 
@@ -350,7 +362,7 @@ public class EntityFactory<T> {
      */
     public T fromDocument(Document doc) {
         JDOMSource source = new JDOMSource(doc);
-        return unmarshal.apply(() -> unmarshaller(Optional.empty()), source.getInputSource());
+        return unmarshal.apply(MediaType.APPLICATION_XML, source.getInputSource());
     }
 
     /**
@@ -404,13 +416,56 @@ public class EntityFactory<T> {
         return null;
     }
 
+    private static Pool pool() {
+        return POOL.get().checkGeneration();
+    }
+
+    private String poolKey(String mediaType) {
+        return entityType.getName() + ";" + mediaType;
+    }
+
+    private Marshaller borrowMarshaller(String mediaType) {
+        return Optional.ofNullable(pool().marshallers.remove(poolKey(mediaType))).orElseGet(() -> {
+            try {
+                return marshaller(MediaType.APPLICATION_JSON.equals(mediaType)
+                    ? Optional.of(MARSHALLER_JSON_PROPERTIES)
+                    : Optional.empty());
+            } catch (JAXBException e) {
+                throw new RuntimeException("Couldn't build marshaller.", e);
+            }
+        });
+    }
+
+    private Unmarshaller borrowUnmarshaller(String mediaType) {
+        return Optional.ofNullable(pool().unmarshallers.remove(poolKey(mediaType))).orElseGet(() -> {
+            try {
+                return unmarshaller(MediaType.APPLICATION_JSON.equals(mediaType)
+                    ? Optional.of(UNMARSHALLER_JSON_PROPERTIES)
+                    : Optional.empty());
+            } catch (JAXBException e) {
+                throw new RuntimeException("Couldn't build unmarshaller.", e);
+            }
+        });
+    }
+
+    private JAXBContext context() throws JAXBException {
+        final String pkgName = entityType.getPackage().getName();
+
+        JAXBContext context = CACHED_CONTEXTS.get(pkgName);
+        if (context == null) {
+            context = JAXBContext.newInstance(populateEntities());
+            CACHED_CONTEXTS.putIfAbsent(pkgName, context);
+        }
+
+        return context;
+    }
+
     private Marshaller marshaller(Optional<Map<String, ?>> extraProperties) throws JAXBException {
-        JAXBContext context = JAXBContext.newInstance(populateEntities());
-        Marshaller marshaller = context.createMarshaller();
+        Marshaller marshaller = context().createMarshaller();
 
         Map<String, ?> props = extraProperties.orElse(new HashMap<>());
 
-        Stream.of(props, properties(CONFIG_MARSHALLER)).map(Map::entrySet).flatMap(Collection::stream)
+        Stream.of(props, cachedProperties(CONFIG_MARSHALLER)).map(Map::entrySet).flatMap(Collection::stream)
             .forEach((e) -> {
                 try {
                     marshaller.setProperty(e.getKey(), e.getValue());
@@ -423,33 +478,36 @@ public class EntityFactory<T> {
     };
 
     private Unmarshaller unmarshaller(Optional<Map<String, ?>> extraProperties) throws JAXBException {
-        JAXBContext context = JAXBContext.newInstance(populateEntities());
-        Unmarshaller unmarshaller = context.createUnmarshaller();
+        Unmarshaller unmarshaller = context().createUnmarshaller();
 
         Map<String, ?> props = extraProperties.orElse(new HashMap<>());
 
-        Stream.of(props, properties(CONFIG_UNMARSHALLER)).map(Map::entrySet).flatMap(Collection::stream).forEach(e -> {
-            try {
-                unmarshaller.setProperty(e.getKey(), e.getValue());
-            } catch (PropertyException ex) {
-                LOGGER.warn("Property \"{}\" couldn't set.", e.getKey());
-            }
-        });
+        Stream.of(props, cachedProperties(CONFIG_UNMARSHALLER)).map(Map::entrySet).flatMap(Collection::stream)
+            .forEach(e -> {
+                try {
+                    unmarshaller.setProperty(e.getKey(), e.getValue());
+                } catch (PropertyException ex) {
+                    LOGGER.warn("Property \"{}\" couldn't set.", e.getKey());
+                }
+            });
 
         return unmarshaller;
     };
 
     private Optional<Method> findMethod(Class<?> cls, String name, Class<?>... parameterTypes) {
-        return Arrays.stream(cls.getMethods()).filter(m -> name.equals(m.getName())).filter(m -> {
-            Iterator<Class<?>> it1 = Arrays.stream(m.getParameterTypes()).iterator();
-            Iterator<Class<?>> it2 = Arrays.stream(parameterTypes).iterator();
-            while (it1.hasNext() && it2.hasNext()) {
-                if (!it1.next().isAssignableFrom(it2.next())) {
-                    return false;
+        return CACHED_METHODS.computeIfAbsent(
+            cls.getName() + "#" + name + Arrays.stream(parameterTypes).map(Class::getName)
+                .collect(Collectors.joining(",", "(", ")")),
+            k -> Arrays.stream(cls.getMethods()).filter(m -> name.equals(m.getName())).filter(m -> {
+                Iterator<Class<?>> it1 = Arrays.stream(m.getParameterTypes()).iterator();
+                Iterator<Class<?>> it2 = Arrays.stream(parameterTypes).iterator();
+                while (it1.hasNext() && it2.hasNext()) {
+                    if (!it1.next().isAssignableFrom(it2.next())) {
+                        return false;
+                    }
                 }
-            }
-            return !it1.hasNext() && !it2.hasNext();
-        }).findFirst();
+                return !it1.hasNext() && !it2.hasNext();
+            }).findFirst());
     }
 
     private Source toSource(Object input) {
@@ -469,6 +527,10 @@ public class EntityFactory<T> {
         return src;
     }
 
+    private Map<String, ?> cachedProperties(String propType) {
+        return CACHED_PROPERTIES.computeIfAbsent(entityType.getName() + ";" + propType, k -> properties(propType));
+    }
+
     protected Map<String, ?> properties(String propType) {
         Function<String, String> keyFunc = k -> k.substring(k.indexOf(propType) + propType.length());
         Function<String, ?> valueFunc = v -> {
@@ -517,4 +579,25 @@ public class EntityFactory<T> {
         return CACHED_ENTITIES.get(pkgName);
     }
 
+    /**
+     * Thread confined pool of (un)marshallers mapped by entity type and media type.
+     */
+    private static final class Pool {
+
+        private final Map<String, Marshaller> marshallers = new HashMap<>();
+
+        private final Map<String, Unmarshaller> unmarshallers = new HashMap<>();
+
+        private int generation = CONFIG_GENERATION.get();
+
+        private Pool checkGeneration() {
+            if (generation != CONFIG_GENERATION.get()) {
+                marshallers.clear();
+                unmarshallers.clear();
+                generation = CONFIG_GENERATION.get();
+            }
+            return this;
+        }
+    }
+
 }
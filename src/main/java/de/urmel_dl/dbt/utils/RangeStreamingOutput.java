@@ -19,47 +19,287 @@
  */
 package de.urmel_dl.dbt.utils;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.StreamingOutput;
 
 /**
+ * Streams one or more byte ranges of a file.
+ *
+ * The data is moved with {@link FileChannel#transferTo(long, long, WritableByteChannel)} in chunks of the given size,
+ * so the heap usage doesn't depend on the file size. More than one range is written as
+ * <code>multipart/byteranges</code>.
+ *
  * @author Ren\u00E9 Adler (eagle)
  *
  */
 public class RangeStreamingOutput implements StreamingOutput {
 
-    private long length;
+    public static final String MULTIPART_BYTERANGES = "multipart/byteranges";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String BYTES_UNIT = "bytes";
+
+    private static final Pattern RANGE_SPEC_PATTERN = Pattern.compile("\\s*(\\d*)\\s*-\\s*(\\d*)\\s*");
+
+    private final Path file;
+
+    private final long fileLength;
+
+    private final List<Range> ranges;
 
-    private RandomAccessFile raf;
+    private final String contentType;
 
-    private final byte[] buf = new byte[4096];
+    private final String boundary;
 
-    public RangeStreamingOutput(long length, RandomAccessFile raf) {
-        this.length = length;
-        this.raf = raf;
+    private final int chunkSize;
+
+    private final long length;
+
+    /**
+     * Streams the whole file.
+     *
+     * @param file the file
+     * @param fileLength the file length
+     * @param contentType the content type of the file
+     * @param chunkSize the maximum number of bytes per transfer
+     */
+    public RangeStreamingOutput(Path file, long fileLength, String contentType, int chunkSize) {
+        this(file, fileLength, Collections.singletonList(new Range(0, fileLength - 1)), contentType, chunkSize);
+    }
+
+    /**
+     * Streams the given ranges of the file.
+     *
+     * @param file the file
+     * @param fileLength the file length
+     * @param ranges the ranges, as returned by {@link #parseRanges(String, long)}
+     * @param contentType the content type of the file
+     * @param chunkSize the maximum number of bytes per transfer
+     */
+    public RangeStreamingOutput(Path file, long fileLength, List<Range> ranges, String contentType, int chunkSize) {
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("At least one range is required.");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than 0.");
+        }
+
+        this.file = file;
+        this.fileLength = fileLength;
+        this.ranges = ranges;
+        this.contentType = contentType;
+        this.chunkSize = chunkSize;
+        this.boundary = ranges.size() > 1 ? "DBT_" + Long.toHexString(ThreadLocalRandom.current().nextLong())
+            : null;
+
+        long len = ranges.stream().mapToLong(Range::length).sum();
+        if (boundary != null) {
+            len += ranges.stream().mapToLong(r -> partHeader(r).length).sum() + closingBoundary().length;
+        }
+        this.length = len;
+    }
+
+    /**
+     * Parses the value of a <code>Range</code> header.
+     *
+     * @param header the header value
+     * @param fileLength the length of the requested file
+     * @return <code>null</code> if the header is missing or malformed and should be ignored, an empty list if none
+     *  of the ranges is satisfiable, else the satisfiable ranges sorted and with overlapping ones merged
+     */
+    public static List<Range> parseRanges(String header, long fileLength) {
+        if (header == null) {
+            return null;
+        }
+
+        int eq = header.indexOf('=');
+        if (eq == -1 || !BYTES_UNIT.equalsIgnoreCase(header.substring(0, eq).trim())) {
+            return null;
+        }
+
+        List<Range> ranges = new ArrayList<>();
+        for (String spec : header.substring(eq + 1).split(",", -1)) {
+            Matcher m = RANGE_SPEC_PATTERN.matcher(spec);
+            if (!m.matches() || m.group(1).isEmpty() && m.group(2).isEmpty()) {
+                return null;
+            }
+
+            try {
+                if (m.group(1).isEmpty()) {
+                    long suffix = Long.parseLong(m.group(2));
+                    if (suffix > 0 && fileLength > 0) {
+                        ranges.add(new Range(Math.max(0, fileLength - suffix), fileLength - 1));
+                    }
+                } else {
+                    long from = Long.parseLong(m.group(1));
+                    long to = m.group(2).isEmpty() ? Long.MAX_VALUE : Long.parseLong(m.group(2));
+                    if (to < from) {
+                        return null;
+                    }
+                    if (from < fileLength) {
+                        ranges.add(new Range(from, Math.min(to, fileLength - 1)));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        return merge(ranges);
+    }
+
+    private static List<Range> merge(List<Range> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+
+        ranges.sort(Comparator.comparingLong(Range::getFrom));
+
+        List<Range> merged = new ArrayList<>();
+        Range current = ranges.get(0);
+        for (Range next : ranges.subList(1, ranges.size())) {
+            if (next.getFrom() <= current.getTo() + 1) {
+                current = new Range(current.getFrom(), Math.max(current.getTo(), next.getTo()));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+
+        return merged;
     }
 
     @Override
     public void write(OutputStream outputStream) throws WebApplicationException {
-        try {
-            try {
-                while (length != 0) {
-                    int read = raf.read(buf, 0, buf.length > length ? (int) length : buf.length);
-                    outputStream.write(buf, 0, read);
-                    length -= read;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            for (Range range : ranges) {
+                if (boundary != null) {
+                    outputStream.write(partHeader(range));
                 }
-            } finally {
-                raf.close();
+                transfer(channel, range, target);
             }
+            if (boundary != null) {
+                outputStream.write(closingBoundary());
+            }
+            outputStream.flush();
         } catch (IOException e) {
+            LOGGER.debug("Streaming of {} was aborted.", file, e);
         }
     }
 
-    public long getLenth() {
+    private void transfer(FileChannel channel, Range range, WritableByteChannel target) throws IOException {
+        long position = range.getFrom();
+        long remaining = range.length();
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, Math.min(chunkSize, remaining), target);
+            if (transferred <= 0) {
+                throw new EOFException("Unexpected end of " + file + " at position " + position + ".");
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    private byte[] partHeader(Range range) {
+        return ("\r\n--" + boundary + "\r\nContent-Type: " + contentType + "\r\nContent-Range: "
+            + range.toContentRange(fileLength) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] closingBoundary() {
+        return ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns the number of bytes written by this output.
+     *
+     * @return the length
+     */
+    public long getLength() {
         return length;
     }
+
+    /**
+     * Returns the content type of the response, that is the content type of the file for a single range or
+     * <code>multipart/byteranges</code> with the used boundary.
+     *
+     * @return the content type
+     */
+    public String getContentType() {
+        return boundary != null ? MULTIPART_BYTERANGES + "; boundary=" + boundary : contentType;
+    }
+
+    /**
+     * Returns the ranges to write.
+     *
+     * @return the ranges
+     */
+    public List<Range> getRanges() {
+        return Collections.unmodifiableList(ranges);
+    }
+
+    /**
+     * A satisfiable byte range with inclusive bounds.
+     */
+    public static final class Range {
+
+        private final long from;
+
+        private final long to;
+
+        public Range(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public long getFrom() {
+            return from;
+        }
+
+        public long getTo() {
+            return to;
+        }
+
+        public long length() {
+            return to - from + 1;
+        }
+
+        /**
+         * Returns the value of the <code>Content-Range</code> header for this range.
+         *
+         * @param fileLength the complete length
+         * @return the header value
+         */
+        public String toContentRange(long fileLength) {
+            return String.format(Locale.ROOT, "%s %d-%d/%d", BYTES_UNIT, from, to, fileLength);
+        }
+
+        @Override
+        public String toString() {
+            return from + "-" + to;
+        }
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+/**
+ * The {@link IdentifierExtractionQueue} test cases.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ *
+ */
+public class TestIdentifierExtractionQueue extends MCRTestCase {
+
+    @Test
+    public void testSubmit() throws InterruptedException, ExecutionException {
+        MCRObjectID running = MCRObjectID.getInstance("dbt_mods_00000001");
+        MCRObjectID waiting = MCRObjectID.getInstance("dbt_mods_00000002");
+        MCRObjectID blocked = MCRObjectID.getInstance("dbt_mods_00000003");
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<MCRObjectID> processed = new CopyOnWriteArrayList<>();
+
+        IdentifierExtractionQueue queue = new IdentifierExtractionQueue(1, 1, id -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processed.add(id);
+        });
+        try {
+            assertTrue(queue.submit(running));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            assertTrue(queue.submit(waiting));
+            assertFalse("object is already waiting", queue.submit(waiting));
+            assertTrue(queue.isPending(waiting));
+
+            CompletableFuture<Boolean> submitted = CompletableFuture.supplyAsync(() -> queue.submit(blocked));
+            Thread.sleep(100);
+            assertFalse("submit waits for a free slot", submitted.isDone());
+
+            release.countDown();
+
+            assertTrue(submitted.get());
+            assertEquals(1, queue.getBlockedCount());
+            assertEquals(0, queue.getDroppedCount());
+
+            long timeout = System.currentTimeMillis() + 10000;
+            while (queue.getCompletedCount() < 3 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            assertEquals(3, queue.getCompletedCount());
+            assertEquals(List.of(running, waiting, blocked), processed);
+            assertFalse(queue.isPending(waiting));
+        } finally {
+            queue.shutdown();
+        }
+    }
+}
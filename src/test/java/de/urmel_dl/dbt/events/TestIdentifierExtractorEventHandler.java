@@ -32,7 +32,6 @@ import org.jdom2.output.XMLOutputter;
 import org.junit.Test;
 import org.mycore.common.MCRTestCase;
 import org.mycore.common.content.MCRStreamContent;
-import org.mycore.common.events.MCREvent;
 import org.mycore.datamodel.metadata.MCRObject;
 import org.mycore.mods.MCRMODSWrapper;
 import org.xml.sax.SAXParseException;
@@ -52,11 +51,7 @@ public class TestIdentifierExtractorEventHandler extends MCRTestCase {
 
             assertNotNull(obj);
 
-            MCREvent evt = new MCREvent(MCREvent.ObjectType.OBJECT, MCREvent.EventType.CREATE);
-            evt.put(MCREvent.OBJECT_KEY, obj);
-
-            IdentifierExtractorEventHandler eh = new IdentifierExtractorEventHandler();
-            eh.doHandleEvent(evt);
+            assertTrue("should extract identifiers", IdentifierExtractorEventHandler.extractIdentifiers(obj));
 
             new XMLOutputter(Format.getPrettyFormat()).output(obj.createXML(), System.out);
 
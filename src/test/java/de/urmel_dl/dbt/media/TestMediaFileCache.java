@@ -0,0 +1,158 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen
+ * Copyright (C) 2000-2017
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Ren\u00E9 Adler (eagle)
+ *
+ */
+public class TestMediaFileCache {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.newFolder("media").toPath();
+    }
+
+    @Test
+    public void testNegativeCaching() throws InterruptedException {
+        MediaFileCache cache = new MediaFileCache("test", root, 10, Duration.ofMillis(200));
+
+        assertNull(cache.get("missing"));
+        assertNull(cache.get("missing"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getNegativeHits());
+
+        Thread.sleep(300);
+
+        assertNull(cache.get("missing"));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testListing() throws IOException {
+        MediaFileCache cache = new MediaFileCache("test", root, 10, Duration.ofHours(1));
+        Files.createDirectories(root.resolve("id"));
+        Files.createFile(root.resolve("id").resolve("test.mp4"));
+
+        assertEquals(1, cache.get("id").size());
+        assertEquals(1, cache.get("id").size());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        cache.remove("id");
+        assertEquals(1, cache.get("id").size());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testInvalidateOnChange() throws IOException, InterruptedException {
+        MediaFileCache cache = new MediaFileCache("test", root, 10, Duration.ofHours(1));
+        Files.createDirectories(root.resolve("id"));
+        Files.createFile(root.resolve("id").resolve("test.mp4"));
+
+        assertEquals(1, cache.get("id").size());
+        assertNull(cache.get("new"));
+
+        Files.createFile(root.resolve("id").resolve("test.smil"));
+        assertNotNull(await(() -> cache.get("id"), fs -> fs != null && fs.size() == 2));
+
+        Files.createDirectories(root.resolve("new"));
+        Files.createFile(root.resolve("new").resolve("test.mp4"));
+        assertNotNull(await(() -> cache.get("new"), fs -> fs != null && fs.size() == 1));
+    }
+
+    @Test
+    public void testInvalidateOnNestedChange() throws IOException, InterruptedException {
+        MediaFileCache cache = new MediaFileCache("test", root, 10, Duration.ofHours(1));
+        Files.createDirectories(root.resolve("id").resolve("sub"));
+        Files.createFile(root.resolve("id").resolve("sub").resolve("test.mp4"));
+
+        assertEquals(2, cache.get("id").size());
+
+        Files.createFile(root.resolve("id").resolve("sub").resolve("test.smil"));
+        assertNotNull(await(() -> cache.get("id"), fs -> fs != null && fs.size() == 3));
+    }
+
+    @Test
+    public void testChangeListener() throws IOException, InterruptedException {
+        MediaFileCache cache = new MediaFileCache("test", root, 10, Duration.ofHours(1));
+        Set<String> changed = ConcurrentHashMap.newKeySet();
+        cache.setChangeListener(changed::add);
+        cache.startWatching();
+
+        Files.createDirectories(root.resolve("new"));
+        long timeout = System.currentTimeMillis() + 30000;
+        while (!changed.contains("new") && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50);
+        }
+        assertTrue(changed.contains("new"));
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        MediaFileCache cache = new MediaFileCache("test", root, 10, Duration.ofHours(1));
+        Files.createDirectories(root.resolve("id"));
+
+        assertNotNull(cache.get("id"));
+        assertTrue(cache.isWatching());
+
+        cache.close();
+        assertFalse(cache.isWatching());
+        assertNotNull(cache.get("id"));
+    }
+
+    private static List<Path> await(Supplier<List<Path>> supplier,
+        Predicate<List<Path>> condition) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 30000;
+        while (System.currentTimeMillis() < timeout) {
+            List<Path> files = supplier.get();
+            if (condition.test(files)) {
+                return files;
+            }
+            Thread.sleep(50);
+        }
+        return null;
+    }
+}
@@ -19,19 +19,32 @@
 package de.urmel_dl.dbt.media;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.client.Invocation;
 import jakarta.ws.rs.client.WebTarget;
 import jakarta.ws.rs.core.Application;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
 import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mycore.common.config.MCRConfiguration2;
@@ -50,8 +63,14 @@ import de.urmel_dl.dbt.utils.EntityFactory;
  */
 public class TestMediaServiceResource extends JerseyTestCase {
 
+    private static final String MEDIA_ID = "progressiv";
+
+    private static final String MEDIA_FILE = "test.mp4";
+
     private WebTarget webResource;
 
+    private byte[] mediaData;
+
     @Override
     protected Application configure() {
         return new ResourceConfig(MediaServiceResource.class, EntityMessageBodyReader.class,
@@ -70,6 +89,130 @@ public class TestMediaServiceResource extends JerseyTestCase {
         MCRConfiguration2.set("MCR.Media.Wowza.SharedSecred", "test");
 
         webResource = target();
+
+        mediaData = new byte[100000];
+        new Random(42).nextBytes(mediaData);
+
+        Path mediaFile = MediaService.getMediaFile(MEDIA_ID, MEDIA_FILE);
+        Files.createDirectories(mediaFile.getParent());
+        Files.write(mediaFile, mediaData);
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        Path mediaFile = MediaService.getMediaFile(MEDIA_ID, MEDIA_FILE);
+        Files.deleteIfExists(mediaFile);
+        Files.deleteIfExists(mediaFile.getParent());
+
+        super.tearDown();
+    }
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> testProperties = super.getTestProperties();
+        String storage = junitFolder.getRoot().getAbsolutePath();
+        testProperties.put(MediaService.CONFIG_PREFIX + "Media.StoragePath", storage + "/media");
+        testProperties.put(MediaService.CONFIG_PREFIX + "Thumb.StoragePath", storage + "/thumb");
+        testProperties.put(MediaService.CONFIG_PREFIX + "Subtitle.StoragePath", storage + "/subtitle");
+        testProperties.put(MediaService.CONFIG_PREFIX + "Thumb.RenditionCache.Dir", storage + "/thumb-renditions");
+        return testProperties;
+    }
+
+    @Test
+    public void testProgressivDownload() {
+        Response response = progressiv().get();
+        assertEquals(200, response.getStatus());
+        assertEquals("bytes", response.getHeaderString("Accept-Ranges"));
+        assertNotNull(response.getEntityTag());
+        assertNotNull(response.getLastModified());
+        assertArrayEquals(mediaData, response.readEntity(byte[].class));
+    }
+
+    @Test
+    public void testProgressivDownloadRange() {
+        Response response = progressiv().header("Range", "bytes=100-199").get();
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 100-199/" + mediaData.length, response.getHeaderString("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(mediaData, 100, 200), response.readEntity(byte[].class));
+
+        response = progressiv().header("Range", "bytes=-10").get();
+        assertEquals(206, response.getStatus());
+        assertArrayEquals(Arrays.copyOfRange(mediaData, mediaData.length - 10, mediaData.length),
+            response.readEntity(byte[].class));
+
+        response = progressiv().header("Range", "bytes=" + mediaData.length + "-").get();
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */" + mediaData.length, response.getHeaderString("Content-Range"));
+    }
+
+    @Test
+    public void testProgressivDownloadMultiRange() {
+        Response response = progressiv().header("Range", "bytes=0-9,1000-1009").get();
+        assertEquals(206, response.getStatus());
+        assertEquals("multipart/byteranges", response.getMediaType().getType() + "/"
+            + response.getMediaType().getSubtype());
+
+        String boundary = response.getMediaType().getParameters().get("boundary");
+        assertNotNull(boundary);
+
+        String body = new String(response.readEntity(byte[].class), StandardCharsets.ISO_8859_1);
+        assertTrue(body.contains("Content-Range: bytes 0-9/" + mediaData.length));
+        assertTrue(body.contains("Content-Range: bytes 1000-1009/" + mediaData.length));
+        assertTrue(body.endsWith("--" + boundary + "--\r\n"));
+    }
+
+    @Test
+    public void testProgressivDownloadConditional() {
+        Response response = progressiv().get();
+        String eTag = response.getHeaderString(HttpHeaders.ETAG);
+        response.close();
+
+        response = progressiv().header(HttpHeaders.IF_NONE_MATCH, eTag).get();
+        assertEquals(304, response.getStatus());
+
+        response = progressiv().header("Range", "bytes=0-9").header("If-Range", eTag).get();
+        assertEquals(206, response.getStatus());
+        assertEquals(10, response.readEntity(byte[].class).length);
+
+        response = progressiv().header("Range", "bytes=0-9").header("If-Range", "\"outdated\"").get();
+        assertEquals(200, response.getStatus());
+        assertEquals(mediaData.length, response.readEntity(byte[].class).length);
+    }
+
+    @Test
+    public void testProgressivDownloadHeader() {
+        Response response = progressiv().head();
+        assertEquals(200, response.getStatus());
+        assertEquals(Integer.toString(mediaData.length), response.getHeaderString(HttpHeaders.CONTENT_LENGTH));
+
+        response = progressiv().header("Range", "bytes=0-9").head();
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 0-9/" + mediaData.length, response.getHeaderString("Content-Range"));
+        assertEquals("10", response.getHeaderString(HttpHeaders.CONTENT_LENGTH));
+    }
+
+    @Test
+    public void testMediaIndex() throws IOException {
+        MediaService.rebuildMediaIndex();
+        assertTrue(MediaService.hasMediaFiles(MEDIA_ID));
+
+        String mediaId = MediaService.buildInternalId("derivate_video.mp4");
+        assertFalse(MediaService.hasMediaFiles("derivate", "video.mp4"));
+
+        Path mediaFile = MediaService.MEDIA_STORAGE_PATH.resolve(mediaId).resolve("video-720p.mp4");
+        Files.createDirectories(mediaFile.getParent());
+        Files.write(mediaFile, mediaData);
+
+        MediaService.rebuildMediaIndex();
+        assertTrue(MediaService.hasMediaFiles("derivate", "video.mp4"));
+
+        MediaService.deleteMediaFiles(mediaId);
+        assertFalse(MediaService.hasMediaFiles("derivate", "video.mp4"));
+    }
+
+    private Invocation.Builder progressiv() {
+        return webResource.path("media/progressiv/" + MEDIA_ID + "/" + MEDIA_FILE).request();
     }
 
     @Test
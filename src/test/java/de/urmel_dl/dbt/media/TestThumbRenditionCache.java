@@ -0,0 +1,136 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen
+ * Copyright (C) 2000-2017
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.media;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Ren\u00E9 Adler (eagle)
+ *
+ */
+public class TestThumbRenditionCache {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path source;
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        source = folder.newFile("thumb.jpg").toPath();
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB), "JPG", source.toFile());
+        dir = folder.newFolder("renditions").toPath();
+    }
+
+    @Test
+    public void testScale() {
+        BufferedImage img = new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB);
+
+        BufferedImage byWidth = ThumbRenditionCache.scale(img, 120, -1);
+        assertEquals(120, byWidth.getWidth());
+        assertEquals(60, byWidth.getHeight());
+
+        BufferedImage byHeight = ThumbRenditionCache.scale(img, -1, 1000);
+        assertEquals(2000, byHeight.getWidth());
+        assertEquals(1000, byHeight.getHeight());
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        ThumbRenditionCache cache = new ThumbRenditionCache(dir, 1024 * 1024, "JPG");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Path>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> cache.get("ID", "thumb.jpg", source, 160, -1)));
+            }
+
+            Path rendition = futures.get(0).get();
+            for (Future<Path> future : futures) {
+                assertEquals(rendition, future.get());
+            }
+
+            assertTrue(rendition.startsWith(dir));
+            assertEquals("thumb-160w.jpg", rendition.getFileName().toString());
+            assertEquals(160, ImageIO.read(rendition.toFile()).getWidth());
+            assertEquals("scaled once", 1, cache.stats().loadCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidate() throws IOException {
+        ThumbRenditionCache cache = new ThumbRenditionCache(dir, 1024 * 1024, "JPG");
+
+        Path rendition = cache.get("ID", "thumb.jpg", source, 160, -1);
+        Path other = cache.get("OTHER", "thumb.jpg", source, 160, -1);
+        assertEquals(2, cache.size());
+
+        cache.invalidate("ID");
+        assertEquals(1, cache.size());
+        assertFalse(Files.exists(rendition));
+        assertTrue(Files.exists(other));
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        ThumbRenditionCache cache = new ThumbRenditionCache(dir, 1, "JPG");
+
+        Path first = cache.get("ID", "thumb.jpg", source, 400, -1);
+        Path second = cache.get("ID", "thumb.jpg", source, 200, -1);
+
+        assertEquals(1, cache.size());
+        assertFalse(Files.exists(first));
+        assertTrue("latest rendition is kept", Files.exists(second));
+    }
+
+    @Test
+    public void testCleanUp() throws IOException {
+        Path rendition = new ThumbRenditionCache(dir, 1024 * 1024, "JPG").get("ID", "thumb.jpg", source, 160, -1);
+        Path foreign = Files.write(dir.resolve("keep.txt"), new byte[] { 1 });
+
+        new ThumbRenditionCache(dir, 1024 * 1024, "JPG");
+
+        assertFalse(Files.exists(rendition));
+        assertTrue(Files.exists(foreign));
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.opc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.urmel_dl.dbt.opc.datamodel.pica.PPField;
+import de.urmel_dl.dbt.opc.datamodel.pica.Record;
+import de.urmel_dl.dbt.opc.datamodel.pica.Result;
+
+/**
+ * Tests the {@link OPCConnector} against a local stub of the catalog.
+ *
+ * @author René Adler (eagle)
+ */
+public class TestOPCConnectorStub extends MCRTestCase {
+
+    private static final int HITS = 1000;
+
+    private static final int MAX_READ = 100;
+
+    private static final Pattern FIRST = Pattern.compile("FRST=(\\d+)");
+
+    private static final Pattern PPN = Pattern.compile("PPN=([0-9X]+)");
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private OPCConnector opc;
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    private final Map<String, String> cookies = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> recordRequests = new ConcurrentHashMap<>();
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+
+        opc = new OPCConnector("http://127.0.0.1:" + server.getAddress().getPort(), "1");
+        opc.setMaxHits(HITS);
+        opc.setMaxRead(MAX_READ);
+        opc.setMaxParallelReads(3);
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+        executor.shutdownNow();
+        super.tearDown();
+    }
+
+    @Test
+    public void testSearchPaging() throws Exception {
+        Result result = opc.search("paging", "1016");
+        assertNotNull(result);
+
+        List<String> ppns = result.getRecords().stream().map(Record::getPPN).collect(Collectors.toList());
+        assertEquals(IntStream.rangeClosed(1, HITS).mapToObj(TestOPCConnectorStub::ppn).collect(Collectors.toList()),
+            ppns);
+        assertTrue("pages should be read in parallel", maxRunning.get() > 1);
+        assertTrue("parallel reads should be bounded", maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void testRedirect() throws Exception {
+        List<PPField> fields = opc.getPPFields("redirect");
+        assertNotNull(fields);
+        assertEquals("1012341062", fields.stream().filter(f -> "003@".equals(f.getTag())).findFirst()
+            .map(f -> f.getSubfields().get(0).getContent()).orElse(null));
+        assertEquals("session=stub", cookies.get("redirect"));
+    }
+
+    @Test
+    public void testGetRecords() throws Exception {
+        opc.getRecord("100000001");
+        recordRequests.clear();
+        maxRunning.set(0);
+
+        List<String> ppns = List.of("100000003", "100000001", "000000000", "100000002", "100000003", "100000004",
+            "100000005", "100000006");
+        List<Record> records = opc.getRecords(ppns);
+
+        assertEquals(ppns.size(), records.size());
+        for (int i = 0; i < ppns.size(); i++) {
+            if ("000000000".equals(ppns.get(i))) {
+                assertNull(records.get(i));
+            } else {
+                assertEquals(ppns.get(i), records.get(i).getPPN());
+                assertEquals(ppns.get(i), records.get(i).getFieldByTag("003@").getSubfields().get(0).getContent());
+            }
+        }
+
+        assertNull("cached record should not be read again", recordRequests.get("100000001"));
+        assertEquals(1, recordRequests.get("100000003").get());
+        assertTrue("records should be read in parallel", maxRunning.get() > 1);
+        assertTrue("parallel reads should be bounded", maxRunning.get() <= 3);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String uri = exchange.getRequestURI().toString();
+        try {
+            if (uri.contains("PPN=redirect")) {
+                exchange.getResponseHeaders().add("Location", uri.replace("PPN=redirect", "PPN=1012341062"));
+                exchange.getResponseHeaders().add("Set-Cookie", "session=stub");
+                exchange.sendResponseHeaders(302, -1);
+            } else if (uri.contains("PPN=1012341062")) {
+                cookies.put("redirect", exchange.getRequestHeaders().getFirst("Cookie"));
+                respond(exchange, "text/plain", record("1012341062"));
+            } else if (uri.contains("PLAIN=ON")) {
+                Matcher m = PPN.matcher(uri);
+                m.find();
+                String ppn = m.group(1);
+                recordRequests.computeIfAbsent(ppn, p -> new AtomicInteger()).incrementAndGet();
+
+                int current = running.incrementAndGet();
+                maxRunning.accumulateAndGet(current, Math::max);
+                try {
+                    Thread.sleep(50);
+                    respond(exchange, "text/plain", "000000000".equals(ppn) ? new byte[0] : record(ppn));
+                } finally {
+                    running.decrementAndGet();
+                }
+            } else if (uri.contains("ACT=SRCHA")) {
+                respond(exchange, "text/xml", page(1, "<SESSION><SESSIONVAR name=\"SID\">stub</SESSIONVAR>"
+                    + "<SESSIONVAR name=\"SET\">1</SESSIONVAR></SESSION>"));
+            } else if (uri.startsWith("/SID=stub/SET=1/XML=1.0/NXT")) {
+                int current = running.incrementAndGet();
+                maxRunning.accumulateAndGet(current, Math::max);
+                try {
+                    Matcher m = FIRST.matcher(uri);
+                    m.find();
+                    int first = Integer.parseInt(m.group(1));
+                    // later pages answer faster, so they complete out of order
+                    Thread.sleep(Math.max(10, 200 - first / 5));
+                    respond(exchange, "text/xml", page(first, ""));
+                } finally {
+                    running.decrementAndGet();
+                }
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] page(int first, String session) {
+        String titles = IntStream.range(first, Math.min(first + MAX_READ, HITS + 1))
+            .mapToObj(i -> "<SHORTTITLE PPN=\"" + ppn(i) + "\" />")
+            .collect(Collectors.joining());
+        return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><RESULT><SET hits=\"" + HITS + "\">" + titles + "</SET>"
+            + session + "</RESULT>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] record(String ppn) throws IOException {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("benchmark/picaplus_1012341062.pp")) {
+            return new String(is.readAllBytes(), StandardCharsets.ISO_8859_1).replace("1012341062", ppn)
+                .getBytes(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static String ppn(int i) {
+        return String.format(Locale.ROOT, "%09d", i);
+    }
+}
@@ -24,6 +24,7 @@ import static org.junit.Assert.assertNotNull;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import jakarta.ws.rs.WebApplicationException;
@@ -46,6 +47,7 @@ import org.mycore.common.config.MCRConfiguration2;
 import de.urmel_dl.dbt.opc.datamodel.Catalogues;
 import de.urmel_dl.dbt.opc.datamodel.IKTList;
 import de.urmel_dl.dbt.opc.datamodel.pica.Record;
+import de.urmel_dl.dbt.opc.datamodel.pica.Result;
 import de.urmel_dl.dbt.opc.resources.OPCResource;
 import de.urmel_dl.dbt.rest.utils.EntityMessageBodyWriter;
 import de.urmel_dl.dbt.test.JerseyTestCase;
@@ -123,6 +125,31 @@ public class TestOPCResource extends JerseyTestCase {
         });
     }
 
+    @Test
+    public void testRecords() {
+        final String[] PPNs = { "837382513", "211917842" };
+        Stream.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML).forEach(mt -> {
+            Stream.of("", "/DE-27").forEach(cat -> {
+                String response = webResource.path("opc/records" + cat).queryParam("ppn", (Object[]) PPNs)
+                    .request(mt).get(String.class);
+                assertNotNull(response);
+
+                Result result = new EntityFactory<>(Result.class).unmarshalByMediaType(response, mt);
+                assertEquals(PPNs.length, result.getRecords().size());
+                assertEquals(PPNs[0], result.getRecords().get(0).getPPN());
+                assertEquals(PPNs[1], result.getRecords().get(1).getPPN());
+            });
+        });
+    }
+
+    @Test
+    public void testTooManyRecords() {
+        final String[] PPNs = IntStream.rangeClosed(1, 101).mapToObj(Integer::toString).toArray(String[]::new);
+        Response response = webResource.path("opc/records").queryParam("ppn", String.join(",", PPNs))
+            .request(MediaType.APPLICATION_XML).get();
+        assertEquals(400, response.getStatus());
+    }
+
     @Test
     public void testNullRecord() {
         final String PPN = "X44149659";
@@ -0,0 +1,81 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2017
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.opc.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.junit.Test;
+
+/**
+ * @author René Adler (eagle)
+ *
+ */
+public class TestPicaCharDecoder {
+
+    private static final int ISO_8859_1 = 0x1000;
+
+    private static final int UTF_8 = 0x1001;
+
+    @Test
+    public void testDecode() {
+        assertEquals("Grundzüge der Algebra", PicaCharDecoder.decode("GrundzÃ\u0093ge der Algebra"));
+        assertEquals("Café & Bar", PicaCharDecoder.decode("CafÃ¢e &amp; Bar"));
+        assertEquals("Schönbrunn", PicaCharDecoder.decode("SchÒnbrunn", ISO_8859_1));
+        assertEquals("plain text", PicaCharDecoder.decode("plain text"));
+        assertEquals("", PicaCharDecoder.decode(""));
+    }
+
+    @Test
+    public void testDecodeAsBefore() {
+        List<String> parts = new ArrayList<>();
+        for (Map<Integer, String> encChars : PicaCharDecoder.PICA_CHARS.values()) {
+            parts.addAll(encChars.values());
+        }
+        parts.addAll(List.of("a", "e", "E", "u", "z", " ", "&", ";", "&amp;", "&lt", "&#65;", "&uml;", "Ã", "¨"));
+
+        Random random = new Random(42);
+        for (int encoding : new int[] { ISO_8859_1, UTF_8 }) {
+            for (int i = 0; i < 10000; i++) {
+                StringBuilder sb = new StringBuilder();
+                for (int p = random.nextInt(8); p > 0; p--) {
+                    sb.append(parts.get(random.nextInt(parts.size())));
+                }
+
+                String plain = sb.toString();
+                assertEquals(plain, decodeByReplace(plain, encoding), PicaCharDecoder.decode(plain, encoding));
+            }
+        }
+    }
+
+    /**
+     * The decoding as it was done before the trie was introduced.
+     */
+    private static String decodeByReplace(final String plain, final int encoding) {
+        String ppDecoded = plain;
+        for (Map.Entry<String, Map<Integer, String>> picaChar : PicaCharDecoder.PICA_CHARS.entrySet()) {
+            ppDecoded = ppDecoded.replaceAll(picaChar.getValue().get(encoding), picaChar.getKey());
+        }
+        return StringEscapeUtils.unescapeHtml4(ppDecoded);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.opc.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import de.urmel_dl.dbt.opc.datamodel.pica.PPField;
+import de.urmel_dl.dbt.opc.datamodel.pica.PPSubField;
+
+/**
+ * @author René Adler (eagle)
+ *
+ */
+public class TestPicaPlusParser {
+
+    @Test
+    public void testParseFixture() throws IOException {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("benchmark/picaplus_1012341062.pp")) {
+            String raw = new String(is.readAllBytes(), StandardCharsets.ISO_8859_1);
+            List<PPField> fields = new PicaPlusParser(new StringReader(raw)).parse();
+
+            assertEquals(toString(parseBySplit(raw)), toString(fields));
+            assertEquals("Grundzüge der Algebra", fields.stream().filter(f -> "021A".equals(f.getTag()))
+                .findFirst().get().getSubfieldByCode("a").getContent());
+            assertEquals("01", fields.stream().filter(f -> "044K".equals(f.getTag()) && f.getOccurrence() != null)
+                .findFirst().get().getOccurrence());
+        }
+    }
+
+    @Test
+    public void testParseNoRecord() throws IOException {
+        assertNull(new PicaPlusParser(new StringReader("")).parse());
+        assertNull(new PicaPlusParser(new StringReader("003@ \0370123\036\n")).parse());
+    }
+
+    @Test
+    public void testParseAsBefore() throws IOException {
+        String[] parts = { "\036", "\037", "\r\n", "\n", " ", "/", "003@", "021A/01", "a", "0", "-", "text",
+            "Ã\u0093", "&amp;" };
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int p = random.nextInt(16); p > 0; p--) {
+                sb.append(parts[random.nextInt(parts.length)]);
+            }
+
+            String raw = sb.toString();
+            assertEquals(raw, toString(parseBySplit(raw.replaceAll("[\r\n]", ""))),
+                toString(new PicaPlusParser(new StringReader(raw)).parse()));
+        }
+    }
+
+    /**
+     * The parsing as it was done before the streaming parser was introduced.
+     */
+    private static List<PPField> parseBySplit(final String ppraw) {
+        final String[] pp = ppraw.split("\036");
+
+        if (pp.length > 1) {
+            final List<PPField> fields = new ArrayList<>();
+
+            for (int c = 0; c < pp.length; ++c) {
+                final String[] line = pp[c].split(" ", 2);
+
+                if (line.length == 2) {
+                    final PPField ppField = new PPField();
+
+                    final String[] field = line[0].split("/", 2);
+                    ppField.setTag(field[0]);
+                    if (field.length == 2) {
+                        ppField.setOccurrence(field[1]);
+                    }
+
+                    final Matcher matcher = Pattern.compile("\037([a-zA-Z0-9])([^\037]+)").matcher(line[1]);
+                    while (matcher.find()) {
+                        final PPSubField ppSubfield = new PPSubField();
+                        ppSubfield.setCode(matcher.group(1));
+                        ppSubfield.setContent(PicaCharDecoder.decode(matcher.group(2)));
+                        ppField.addSubfield(ppSubfield);
+                    }
+
+                    fields.add(ppField);
+                }
+            }
+
+            return fields;
+        }
+
+        return null;
+    }
+
+    private static String toString(final List<PPField> fields) {
+        if (fields == null) {
+            return "null";
+        }
+        return fields.stream()
+            .map(f -> f.getTag() + "/" + f.getOccurrence() + ":" + f.getSubfields().stream()
+                .map(s -> "$" + s.getCode() + s.getContent()).collect(Collectors.joining()))
+            .collect(Collectors.joining("|"));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+
+import de.urmel_dl.dbt.rc.datamodel.slot.entries.FileEntry;
+import de.urmel_dl.dbt.rc.datamodel.slot.entries.FileEntry.FileEntryProcessingException;
+
+/**
+ * The {@link FileEntry} test cases.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ *
+ */
+public class TestFileEntry extends MCRTestCase {
+
+    private static final String ENTRY_ID = "e4a3f8b2-0c1d-4a6e-9b7f-2d5c8e1f3a90";
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> testProperties = super.getTestProperties();
+        String root = junitFolder.getRoot().getAbsolutePath();
+        testProperties.put("DBT.RC.FileEntry.TempDir", root + "/tmp");
+        testProperties.put("DBT.RC.FileEntry.ExportCache.Dir", root + "/export");
+        return testProperties;
+    }
+
+    @Test
+    public void testCreateFileEntry() throws Exception {
+        byte[] content = "Lorem ipsum dolor sit amet.".getBytes(StandardCharsets.UTF_8);
+
+        FileEntry fe = FileEntry.createFileEntry(ENTRY_ID, "test.txt", "comment", false,
+            new ByteArrayInputStream(content));
+        try {
+            assertTrue(FileEntry.isTempFile(fe.getPath()));
+            assertArrayEquals(content, Files.readAllBytes(fe.getPath()));
+            assertEquals(content.length, fe.getSize());
+            assertEquals(sha1(content), fe.getHash());
+        } finally {
+            fe.deleteIsTmpFile();
+        }
+    }
+
+    @Test
+    public void testCreateCopyrightedPDF() throws Exception {
+        FileEntry fe = FileEntry.createFileEntry(ENTRY_ID, "test.pdf", null, true,
+            new ByteArrayInputStream(buildPDF(3)));
+        try {
+            byte[] stored = Files.readAllBytes(fe.getPath());
+            assertEquals(stored.length, fe.getSize());
+            assertEquals(sha1(stored), fe.getHash());
+
+            try (PDDocument doc = PDDocument.load(stored)) {
+                assertTrue(doc.isEncrypted());
+                assertEquals(3, doc.getNumberOfPages());
+                assertFalse(doc.getCurrentAccessPermission().canPrint());
+            }
+        } finally {
+            fe.deleteIsTmpFile();
+        }
+    }
+
+    @Test
+    public void testExportablePath() throws Exception {
+        FileEntry fe = FileEntry.createFileEntry(ENTRY_ID, "test.pdf", null, true,
+            new ByteArrayInputStream(buildPDF(2)));
+        try {
+            Path exportable = fe.getExportablePath(ENTRY_ID);
+            assertNotEquals(fe.getPath(), exportable);
+            assertEquals(exportable, fe.getExportablePath(ENTRY_ID));
+
+            try (PDDocument doc = PDDocument.load(exportable.toFile())) {
+                assertFalse(doc.isEncrypted());
+                assertEquals(2, doc.getNumberOfPages());
+            }
+        } finally {
+            fe.deleteIsTmpFile();
+        }
+
+        FileEntry txt = FileEntry.createFileEntry(ENTRY_ID, "test.txt", null, true,
+            new ByteArrayInputStream("no pdf".getBytes(StandardCharsets.UTF_8)));
+        try {
+            assertEquals(txt.getPath(), txt.getExportablePath(ENTRY_ID));
+        } finally {
+            txt.deleteIsTmpFile();
+        }
+    }
+
+    @Test
+    public void testCreateCopyrightedPDFPageLimit() throws Exception {
+        try {
+            FileEntry.createFileEntry(ENTRY_ID, "test.pdf", null, true, new ByteArrayInputStream(buildPDF(51)));
+            fail("page limit not checked");
+        } catch (FileEntryProcessingException e) {
+            assertEquals(101, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testCreateCopyrightedNonPDF() throws Exception {
+        byte[] content = "no pdf".getBytes(StandardCharsets.UTF_8);
+
+        FileEntry fe = FileEntry.createFileEntry(ENTRY_ID, "test.txt", null, true, new ByteArrayInputStream(content));
+        try {
+            assertNotNull(fe.getPath());
+            assertEquals(sha1(content), fe.getHash());
+        } finally {
+            fe.deleteIsTmpFile();
+        }
+    }
+
+    private static byte[] buildPDF(int numPages) throws IOException {
+        try (PDDocument doc = new PDDocument(); ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
+            for (int i = 0; i < numPages; i++) {
+                doc.addPage(new PDPage());
+            }
+            doc.save(bos);
+            return bos.toByteArray();
+        }
+    }
+
+    private static String sha1(byte[] data) throws NoSuchAlgorithmException {
+        return String.format(Locale.ROOT, "%032X",
+            new BigInteger(1, MessageDigest.getInstance(FileEntry.DEFAULT_HASH_TYPE).digest(data)));
+    }
+}
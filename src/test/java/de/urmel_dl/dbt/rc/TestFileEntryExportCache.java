@@ -0,0 +1,98 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen
+ * Copyright (C) 2000-2017
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+package de.urmel_dl.dbt.rc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.urmel_dl.dbt.rc.datamodel.slot.entries.FileEntryExportCache;
+
+/**
+ * @author Ren\u00E9 Adler (eagle)
+ *
+ */
+public class TestFileEntryExportCache {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = folder.newFolder("export").toPath();
+    }
+
+    @Test
+    public void testOpenLargeCopy() throws IOException {
+        FileEntryExportCache cache = new FileEntryExportCache(dir, 1);
+
+        byte[] content = content(8192, 1);
+        try (InputStream is = cache.open("ID", target -> write(target, content)).get()) {
+            assertArrayEquals(content, is.readAllBytes());
+        }
+
+        assertEquals("latest copy is kept", 1, cache.size());
+    }
+
+    @Test
+    public void testOpenEvictedCopy() throws IOException {
+        FileEntryExportCache cache = new FileEntryExportCache(dir, 1);
+
+        byte[] first = content(4096, 1);
+        byte[] second = content(4096, 2);
+        try (InputStream is = cache.open("FIRST", target -> write(target, first)).get()) {
+            cache.open("SECOND", target -> write(target, second)).get().close();
+
+            assertEquals(1, cache.size());
+            assertArrayEquals("evicted copy is still readable", first, is.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testNoExportableCopy() throws IOException {
+        FileEntryExportCache cache = new FileEntryExportCache(dir, 1024 * 1024);
+
+        assertFalse(cache.open("ID", target -> false).isPresent());
+        assertFalse(cache.open("ID", target -> write(target, content(1, 1))).isPresent());
+        assertEquals("writer called once", 1, cache.stats().loadCount());
+    }
+
+    private static byte[] content(int length, int value) {
+        byte[] content = new byte[length];
+        Arrays.fill(content, (byte) value);
+        return content;
+    }
+
+    private static boolean write(Path target, byte[] content) throws IOException {
+        Files.write(target, content);
+        return true;
+    }
+}
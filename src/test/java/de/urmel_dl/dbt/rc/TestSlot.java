@@ -18,17 +18,30 @@
 package de.urmel_dl.dbt.rc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.jdom2.Document;
 import org.jdom2.JDOMException;
@@ -52,9 +65,11 @@ import org.mycore.datamodel.classifications2.MCRCategoryID;
 import org.mycore.datamodel.classifications2.impl.MCRCategoryDAOImpl;
 import org.mycore.datamodel.classifications2.utils.MCRXMLTransformer;
 import org.mycore.datamodel.common.MCRActiveLinkException;
+import org.mycore.datamodel.common.MCRXMLMetadataManager;
 import org.mycore.datamodel.ifs2.MCRStoreCenter;
 import org.mycore.datamodel.metadata.MCRMetadataManager;
 import org.mycore.datamodel.metadata.MCRObject;
+import org.mycore.datamodel.metadata.MCRObjectID;
 import org.xml.sax.SAXException;
 
 import de.urmel_dl.dbt.rc.datamodel.Lecturer;
@@ -66,6 +81,9 @@ import de.urmel_dl.dbt.rc.datamodel.slot.SlotEntry;
 import de.urmel_dl.dbt.rc.datamodel.slot.SlotList;
 import de.urmel_dl.dbt.rc.datamodel.slot.entries.FileEntry;
 import de.urmel_dl.dbt.rc.datamodel.slot.entries.HeadlineEntry;
+import de.urmel_dl.dbt.rc.persistency.FileEntryManager;
+import de.urmel_dl.dbt.rc.persistency.SlotListLoadingException;
+import de.urmel_dl.dbt.rc.persistency.SlotListSnapshot;
 import de.urmel_dl.dbt.rc.persistency.SlotManager;
 import de.urmel_dl.dbt.rc.utils.SlotWrapper;
 import de.urmel_dl.dbt.utils.EntityFactory;
@@ -228,6 +246,85 @@ public class TestSlot extends MCRJPATestCase {
         new XMLOutputter(Format.getPrettyFormat()).output(new EntityFactory<>(activeSlots).toDocument(), System.out);
     }
 
+    @Test
+    public void testSlotListProjections() {
+        Slot slot1 = new Slot("3400.01.01.0001");
+        slot1.setStatus(Status.ACTIVE);
+        slot1.setTitle("Test 1");
+
+        Slot slot2 = new Slot("3400.01.01.0002");
+        slot2.setStatus(Status.ARCHIVED);
+
+        SlotList slotList = new SlotList();
+        slotList.addSlot(slot1);
+        slotList.addSlot(slot2);
+
+        Slot basicCopy = slot1.getBasicCopy();
+        assertSame(basicCopy, slot1.getBasicCopy());
+        assertSame(slot1.getExportableCopy(), slot1.getExportableCopy());
+
+        SlotList basicSlots = slotList.getBasicSlots();
+        SlotList activeSlots = slotList.getActiveSlots();
+        assertSame(basicSlots, slotList.getBasicSlots());
+        assertSame(activeSlots, slotList.getActiveSlots());
+        assertEquals(2, basicSlots.getSlots().size());
+        assertEquals(1, activeSlots.getSlots().size());
+
+        long version = slot1.getVersion();
+        slot1.setTitle("Test 2");
+        assertTrue(slot1.getVersion() > version);
+        assertNotSame(basicCopy, slot1.getBasicCopy());
+        assertEquals("Test 2", slot1.getBasicCopy().getTitle());
+        assertNotSame(basicSlots, slotList.getBasicSlots());
+        assertEquals("Test 2", slotList.getBasicSlots().getSlotById(slot1.getSlotId()).getTitle());
+
+        version = slot2.getVersion();
+        slot2.addEntry(new SlotEntry<>());
+        assertTrue(slot2.getVersion() > version);
+
+        version = slot2.getVersion();
+        slot2.getEntries().get(0).setModified(new Date());
+        assertTrue(slot2.getVersion() > version);
+
+        SlotEntry<HeadlineEntry> headline = new SlotEntry<>();
+        headline.setEntry(new HeadlineEntry());
+        slot2.addEntry(headline);
+        version = slot2.getVersion();
+        headline.getEntry().setText("Headline");
+        assertTrue(slot2.getVersion() > version);
+
+        version = slot2.getVersion();
+        headline.getDateCreated().setDate(new Date(0));
+        assertTrue(slot2.getVersion() > version);
+
+        Lecturer lecturer = new Lecturer();
+        slot1.addLecturer(lecturer);
+        basicSlots = slotList.getBasicSlots();
+        version = slot1.getVersion();
+        lecturer.setName("Mustermann, Max");
+        assertTrue(slot1.getVersion() > version);
+        assertNotSame(basicSlots, slotList.getBasicSlots());
+
+        version = slot1.getVersion();
+        slot1.getLecturers().remove(0);
+        assertTrue(slot1.getVersion() > version);
+
+        version = slot2.getVersion();
+        slot2.setEntries(Collections.emptyList());
+        assertTrue(slot2.getVersion() > version);
+
+        activeSlots = slotList.getActiveSlots();
+        version = slotList.getVersion();
+        slotList.removeSlot(slot1);
+        assertTrue(slotList.getVersion() > version);
+        assertNotSame(activeSlots, slotList.getActiveSlots());
+        assertEquals(0, slotList.getActiveSlots().getSlots().size());
+
+        SlotList projection = slotList.getBasicSlots();
+        assertThrows(UnsupportedOperationException.class, () -> projection.setTotal(10L));
+        assertThrows(UnsupportedOperationException.class, () -> projection.getSlots().clear());
+    }
+
     @Test
     public void testGetNextFreeId() throws IOException {
         Slot slot1 = new Slot("3400.01.01.0001");
@@ -243,6 +340,20 @@ public class TestSlot extends MCRJPATestCase {
         assertEquals(1, SLOT_MANAGER.getNextFreeId(new MCRCategoryID(Slot.CLASSIF_ROOT_LOCATION, "0027.01.01")));
     }
 
+    @Test
+    public void testConcurrentAddSlot() {
+        MCRCategoryID location = new MCRCategoryID(Slot.CLASSIF_ROOT_LOCATION, "3400.01.01");
+
+        SLOT_MANAGER.addSlot(new Slot("3400.01.01.0005"));
+
+        IntStream.range(0, 100).parallel().forEach(i -> SLOT_MANAGER.addSlot(new Slot(location, 0)));
+
+        assertEquals(101, SLOT_MANAGER.getSlotList().getSlotsByLocation(location).size());
+        assertEquals(106, SLOT_MANAGER.getNextFreeId(location));
+        assertTrue(SLOT_MANAGER.isFreeId(location, 1));
+        assertNotNull(SLOT_MANAGER.getSlotById("3400.01.01.0105"));
+    }
+
     @Test
     public void testGetSlotById() throws IOException {
         Slot slot1 = new Slot("3400.01.01.0001");
@@ -259,6 +370,57 @@ public class TestSlot extends MCRJPATestCase {
         assertEquals(new MCRCategoryID(Slot.CLASSIF_ROOT_LOCATION, "3400.01.01"), found.getLocation());
     }
 
+    @Test
+    public void testSlotListIndex() {
+        SlotList slotList = new SlotList();
+
+        Slot slot1 = new Slot("3400.01.01.0001");
+        slotList.addSlot(slot1);
+
+        Slot slot2 = new Slot("0027.01.01.0001");
+        slotList.addSlot(slot2);
+
+        assertEquals(slot1, slotList.getSlotById("3400.01.01.0001"));
+        assertEquals(1,
+            slotList.getSlotsByLocation(new MCRCategoryID(Slot.CLASSIF_ROOT_LOCATION, "0027.01.01")).size());
+
+        Slot updated = new Slot("3400.01.01.0001");
+        updated.setTitle("Updated");
+        slotList.setSlot(updated);
+
+        assertEquals(2, slotList.getSlots().size());
+        assertEquals("Updated", slotList.getSlotById("3400.01.01.0001").getTitle());
+
+        slotList.getSlots().remove(slot2);
+
+        assertNull(slotList.getSlotById("0027.01.01.0001"));
+        assertTrue(
+            slotList.getSlotsByLocation(new MCRCategoryID(Slot.CLASSIF_ROOT_LOCATION, "0027.01.01")).isEmpty());
+
+        slotList.getSlots().clear();
+
+        assertNull(slotList.getSlotById("3400.01.01.0001"));
+    }
+
+    @Test
+    public void testSlotListWithoutLocation() {
+        SlotList slotList = new SlotList();
+
+        Slot slot1 = new Slot((MCRCategoryID) null, 1);
+        slotList.addSlot(slot1);
+        slotList.addSlot(new Slot("3400.01.01.0001"));
+
+        List<Slot> snapshot = slotList.getSlots().stream().collect(Collectors.toList());
+        assertEquals(2, snapshot.size());
+        assertSame(slot1, slotList.getSlots().get(0));
+
+        slotList.removeSlot(slot1);
+
+        assertEquals(1, slotList.getSlots().size());
+        assertEquals(2, snapshot.size());
+        assertNotNull(slotList.getSlotById("3400.01.01.0001"));
+    }
+
     @Test
     public void testSaveSlot()
         throws IOException, JDOMException, SAXException, MCRPersistenceException, MCRActiveLinkException,
@@ -301,6 +463,42 @@ public class TestSlot extends MCRJPATestCase {
         assertEquals(slot.getEntries().get(0).getId(), ts.getEntries().get(0).getId());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testUpdateSlotWithFileEntry()
+        throws IOException, MCRPersistenceException, MCRActiveLinkException, MCRAccessException {
+        Slot slot = slotWithFileEntry();
+
+        SLOT_MANAGER.saveOrUpdate(slot);
+
+        SlotEntry<FileEntry> slotEntry = (SlotEntry<FileEntry>) slot.getEntries().get(0);
+        assertTrue(FileEntryManager.exists(slot, slotEntry));
+
+        // an unchanged slot isn't written again
+        long lastModified = MCRXMLMetadataManager.instance().getLastModified(slot.getMCRObjectID());
+        SLOT_MANAGER.saveOrUpdate(slot);
+        assertEquals(lastModified, MCRXMLMetadataManager.instance().getLastModified(slot.getMCRObjectID()));
+
+        // nested changes modify the entry and slot version and are saved
+        long version = slotEntry.getVersion();
+        slotEntry.getEntry().setComment("Changed comment");
+        assertTrue(slotEntry.getVersion() > version);
+        slot.getLecturers().get(0).setName("Musterfrau, Erika");
+        SLOT_MANAGER.saveOrUpdate(slot);
+
+        Slot stored = SlotWrapper.unwrapMCRObject(MCRMetadataManager.retrieveMCRObject(slot.getMCRObjectID()));
+        assertEquals("Changed comment", ((FileEntry) stored.getEntryById(slotEntry.getId()).getEntry()).getComment());
+        assertEquals("Musterfrau, Erika", stored.getLecturers().get(0).getName());
+        assertTrue(FileEntryManager.exists(slot, slotEntry));
+
+        slot.removeEntry(slotEntry);
+        SLOT_MANAGER.saveOrUpdate(slot);
+
+        assertFalse(FileEntryManager.exists(slot, slotEntry));
+        assertNull(SlotWrapper.unwrapMCRObject(MCRMetadataManager.retrieveMCRObject(slot.getMCRObjectID()))
+            .getEntryById(slotEntry.getId()));
+    }
+
     @Test
     public void testDeleteSlot()
         throws IOException, JDOMException, SAXException, MCRPersistenceException, MCRActiveLinkException,
@@ -352,7 +550,125 @@ public class TestSlot extends MCRJPATestCase {
         assertEquals(0, SLOT_MANAGER.getSlotList().getSlots().size());
 
         SLOT_MANAGER.loadList();
+        assertFalse(SLOT_MANAGER.isLoading());
         assertEquals(2, SLOT_MANAGER.getSlotList().getSlots().size());
+        assertEquals(slot1.getSlotId(), SLOT_MANAGER.getSlotByMCRObjectID(slot1.getMCRObjectID()).getSlotId());
+    }
+
+    @Test
+    public void testGetSlotListWhileLoading()
+        throws IOException, MCRPersistenceException, MCRActiveLinkException, MCRAccessException {
+        Slot slot1 = new Slot("3400.01.01.0001");
+        slot1.setStatus(Status.ACTIVE);
+        SLOT_MANAGER.addSlot(slot1);
+        SLOT_MANAGER.saveOrUpdate(slot1);
+
+        Slot slot2 = new Slot("3400.01.01.0002");
+        slot2.setStatus(Status.FREE);
+        SLOT_MANAGER.addSlot(slot2);
+        SLOT_MANAGER.saveOrUpdate(slot2);
+
+        // the snapshot maps the slot ids to the object ids while loading
+        SLOT_MANAGER.writeSnapshot();
+        SLOT_MANAGER.getSlotList().getSlots().clear();
+
+        // the loader tasks are only queued, so the list stays loading until they are run
+        List<Runnable> tasks = new ArrayList<>();
+        SLOT_MANAGER.loadListAsync(tasks::add);
+        assertTrue(SLOT_MANAGER.isLoading());
+        assertEquals(2, tasks.size());
+
+        SlotListLoadingException e = assertThrows(SlotListLoadingException.class,
+            () -> SLOT_MANAGER.getFilteredSlotList(null, null, 0, 50, Collections.emptyList()));
+        assertTrue(e.getRetryAfter() > 0);
+
+        Slot loaded1 = SLOT_MANAGER.getSlotById(slot1.getSlotId());
+        assertNotNull(loaded1);
+        assertEquals(slot1.getMCRObjectID(), loaded1.getMCRObjectID());
+        assertTrue(SLOT_MANAGER.isLoading());
+
+        Slot loaded2 = SLOT_MANAGER.getSlotByMCRObjectID(slot2.getMCRObjectID());
+        assertNotNull(loaded2);
+        assertEquals(slot2.getSlotId(), loaded2.getSlotId());
+        assertTrue(SLOT_MANAGER.isLoading());
+        assertEquals(2, SLOT_MANAGER.getSlotList().getSlots().size());
+
+        tasks.forEach(Runnable::run);
+
+        assertFalse(SLOT_MANAGER.isLoading());
+        assertEquals(2, SLOT_MANAGER.getSlotList().getSlots().size());
+        assertSame(loaded1, SLOT_MANAGER.getSlotById(slot1.getSlotId()));
+        assertSame(loaded2, SLOT_MANAGER.getSlotById(slot2.getSlotId()));
+    }
+
+    @Test
+    public void testSlotListSnapshot()
+        throws IOException, MCRPersistenceException, MCRActiveLinkException, MCRAccessException {
+        Slot slot = activeSlot();
+        SLOT_MANAGER.saveOrUpdate(slot);
+
+        SlotListSnapshot snapshot = new SlotListSnapshot(folder.getRoot().toPath().resolve("slot.snapshot"));
+        assertEquals(1, snapshot.write(Arrays.asList(slot), Collections.singletonMap(slot.getMCRObjectID(), 42L)));
+
+        Map<String, SlotListSnapshot.Entry> entries = snapshot.read();
+        assertEquals(1, entries.size());
+
+        SlotListSnapshot.Entry entry = entries.get(slot.getMCRObjectID().toString());
+        assertEquals(42L, entry.getRevision());
+
+        Slot restored = entry.toSlot();
+        assertEquals(slot.getSlotId(), restored.getSlotId());
+        assertEquals(slot.getMCRObjectID(), restored.getMCRObjectID());
+        assertEquals(slot.getTitle(), restored.getTitle());
+        assertEquals(slot.getStatus(), restored.getStatus());
+        assertEquals(slot.getValidToAsDate(), restored.getValidToAsDate());
+        assertEquals(slot.getLecturers(), restored.getLecturers());
+
+        // the entries are unmarshalled on first access without modifying the slot
+        long version = restored.getVersion();
+        assertEquals(slot.getEntries().get(0).getId(), restored.getEntries().get(0).getId());
+        assertEquals("Überschrift", ((HeadlineEntry) restored.getEntries().get(0).getEntry()).getText());
+        assertSame(restored, restored.getEntries().get(0).getSlot());
+        assertEquals(version, restored.getVersion());
+    }
+
+    @Test
+    public void testSlotListSnapshotRestart() throws IOException {
+        final int count = 1000;
+        final List<Slot> slots = IntStream.rangeClosed(1, count).mapToObj(i -> {
+            Slot slot = activeSlot();
+            slot.setId(i);
+            slot.setMCRObjectID(MCRObjectID.getInstance(MCRObjectID.formatID(SlotManager.getMCRObjectBaseID(), i)));
+            return slot;
+        }).collect(Collectors.toList());
+        final Map<MCRObjectID, Long> revisions = slots.stream()
+            .collect(Collectors.toMap(Slot::getMCRObjectID, s -> 1L));
+
+        Path file = folder.getRoot().toPath().resolve("restart.snapshot");
+        assertEquals(count, new SlotListSnapshot(file).write(slots, revisions));
+
+        // restart with a new snapshot
+        long start = System.nanoTime();
+        SlotListSnapshot snapshot = new SlotListSnapshot(file);
+        List<Slot> restored = snapshot.read().values().stream().map(SlotListSnapshot.Entry::toSlot)
+            .collect(Collectors.toList());
+        long restoreTime = System.nanoTime() - start;
+
+        assertEquals(count, restored.size());
+        restored.forEach(s -> assertEquals("Test ESA", s.getTitle()));
+
+        // unchanged slots are written without unmarshalling their entries
+        start = System.nanoTime();
+        assertEquals(count, snapshot.write(restored, revisions));
+        long writeTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        restored.forEach(s -> assertEquals(1, s.getEntries().size()));
+        long entriesTime = System.nanoTime() - start;
+
+        System.out.println("Restored " + count + " slots in " + TimeUnit.NANOSECONDS.toMillis(restoreTime)
+            + " ms, rewrote snapshot in " + TimeUnit.NANOSECONDS.toMillis(writeTime) + " ms, unmarshalled entries in "
+            + TimeUnit.NANOSECONDS.toMillis(entriesTime) + " ms.");
     }
 
     @Test
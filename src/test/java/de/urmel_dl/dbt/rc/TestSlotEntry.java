@@ -18,11 +18,16 @@
 package de.urmel_dl.dbt.rc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.Collectors;
 
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
@@ -242,6 +247,65 @@ public class TestSlotEntry extends MCRTestCase {
         assertTrue(iPT < iHT);
     }
 
+    @Test
+    public void testMoveSlotEntries() {
+        Slot slot = new Slot("3400.01.01.0001");
+
+        SlotEntry<?> headline = newHeadLineEntry();
+        SlotEntry<?> pText = newPlainTextEntry();
+        SlotEntry<?> link = newWebLinkEntry();
+
+        slot.addEntry(headline);
+        slot.addEntry(pText);
+        slot.addEntry(link);
+
+        assertTrue(slot.moveEntry(link.getId(), headline.getId()));
+        assertEquals(Arrays.asList(headline, link, pText), slot.getEntries());
+
+        assertTrue(slot.moveEntry(pText.getId(), null));
+        assertEquals(Arrays.asList(pText, headline, link), slot.getEntries());
+
+        assertFalse(slot.moveEntry(pText.getId(), pText.getId()));
+        assertFalse(slot.moveEntry(pText.getId(), "unknown"));
+
+        assertTrue(slot.removeEntry(headline));
+        assertNull(slot.getEntryById(headline.getId()));
+        assertEquals(Arrays.asList(pText, link), slot.getEntries());
+
+        SlotEntry<?> hText = newHtmlTextEntry();
+        hText.setId(link.getId());
+        slot.setEntry(hText);
+        assertSame(hText, slot.getEntryById(link.getId()));
+        assertSame(slot, hText.getSlot());
+        assertEquals(Arrays.asList(pText, hText), slot.getEntries());
+
+        String oldId = pText.getId();
+        pText.setId("changed");
+        assertNull(slot.getEntryById(oldId));
+        assertSame(pText, slot.getEntryById("changed"));
+        assertFalse(slot.getEntries().contains(headline));
+        assertTrue(slot.removeEntry(pText));
+        assertEquals(Arrays.asList(hText), slot.getEntries());
+    }
+
+    @Test
+    public void testTransformSlotEntries() {
+        Slot slot = new Slot("3400.01.01.0001");
+
+        slot.addEntry(newHeadLineEntry());
+        slot.addEntry(newPlainTextEntry());
+        slot.addEntry(newWebLinkEntry());
+
+        Slot copy = new EntityFactory<>(Slot.class).fromDocument(new EntityFactory<>(slot).toDocument());
+
+        assertEquals(slot.getEntries().stream().map(SlotEntry::getId).collect(Collectors.toList()),
+            copy.getEntries().stream().map(SlotEntry::getId).collect(Collectors.toList()));
+        slot.getEntries().forEach(e -> {
+            assertNotNull(copy.getEntryById(e.getId()));
+            assertSame(copy, copy.getEntryById(e.getId()).getSlot());
+        });
+    }
+
     @Test
     public void testSlotEntryTypes() throws IOException {
         SlotEntryTypes entryTypes = SlotEntryTypes.instance();
@@ -0,0 +1,146 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.solr.client.solrj.SolrQuery.ORDER;
+import org.apache.solr.client.solrj.SolrQuery.SortClause;
+import org.junit.Before;
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+import de.urmel_dl.dbt.rc.datamodel.Lecturer;
+import de.urmel_dl.dbt.rc.datamodel.Status;
+import de.urmel_dl.dbt.rc.datamodel.slot.Slot;
+import de.urmel_dl.dbt.rc.persistency.SlotSearchIndex;
+import de.urmel_dl.dbt.rc.persistency.SlotSearchIndex.Result;
+
+/**
+ * The {@link SlotSearchIndex} test cases.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ *
+ */
+public class TestSlotSearchIndex extends MCRTestCase {
+
+    private SlotSearchIndex index;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+
+        index = new SlotSearchIndex(location -> Arrays.asList("Universität Jena", "Physik"),
+            objId -> Optional.of(objId.getNumberAsInteger() % 2 == 0 ? "alice" : "bob"));
+
+        index.index(buildSlot("3400.01.01.0001", 1, "Quantenmechanik", "Max Müller", Status.ACTIVE));
+        index.index(buildSlot("3400.01.01.0002", 2, "Optik", "Erika Schmidt", Status.ARCHIVED));
+        index.index(buildSlot("3400.01.01.0003", 3, "Mechanik", "Hans Albers", Status.PENDING));
+        index.index(buildSlot("3400.01.01.0004", 4, "Thermodynamik", "Anna Zeller", Status.ACTIVE));
+    }
+
+    @Test
+    public void testSearch() {
+        assertEquals(4, search("*", null).getTotal());
+        assertEquals(Arrays.asList("3400.01.01.0003"), search("mechanik", null).getSlotIds());
+        assertEquals(Arrays.asList("3400.01.01.0001"), search("Quanten", null).getSlotIds());
+        assertEquals(Arrays.asList("3400.01.01.0001"), search("muller max", null).getSlotIds());
+        assertEquals(Arrays.asList("3400.01.01.0002"), search("3400.01.01.0002", null).getSlotIds());
+        assertEquals(4, search("jena", null).getTotal());
+        assertEquals(0, search("berlin", null).getTotal());
+    }
+
+    @Test
+    public void testFilter() {
+        final Result result = search(null, "slot.status:active or slot.status:pending or createdby:alice");
+        assertEquals(Arrays.asList("3400.01.01.0001", "3400.01.01.0002", "3400.01.01.0003", "3400.01.01.0004"),
+            result.getSlotIds());
+
+        assertEquals(Arrays.asList("3400.01.01.0001", "3400.01.01.0003"),
+            search(null, "slot.status:pending or createdby:bob").getSlotIds());
+        assertEquals(Arrays.asList("3400.01.01.0004"),
+            search(null, "slot.status:active and createdby:alice").getSlotIds());
+
+        assertFalse(index.search(null, "slot.status:active and createdby:alice or slotId:1", 0, 10,
+            Collections.emptyList()).isPresent());
+        assertFalse(index.search(null, "objectKind:mycoreobject", 0, 10, Collections.emptyList()).isPresent());
+    }
+
+    @Test
+    public void testSort() {
+        final List<SortClause> sort = Arrays.asList(SlotSearchIndex.ownerFirst("alice"),
+            new SortClause("slot.lecturers", ORDER.asc));
+
+        Result result = index.search(null, null, 0, 3, sort).get();
+        assertEquals(4, result.getTotal());
+        assertEquals(Arrays.asList("3400.01.01.0002", "3400.01.01.0004", "3400.01.01.0003"),
+            result.getSlotIds());
+
+        result = index.search(null, null, 3, 3, sort).get();
+        assertEquals(Arrays.asList("3400.01.01.0001"), result.getSlotIds());
+
+        result = index.search(null, null, 0, 10, Arrays.asList(new SortClause("slot.title", ORDER.desc))).get();
+        assertEquals("3400.01.01.0004", result.getSlotIds().get(0));
+
+        assertFalse(index.search(null, null, 0, 10, Arrays.asList(new SortClause("random", ORDER.asc)))
+            .isPresent());
+    }
+
+    @Test
+    public void testUpdate() {
+        final Slot slot = buildSlot("3400.01.01.0002", 2, "Akustik", "Erika Schmidt", Status.ACTIVE);
+        index.index(slot);
+
+        assertEquals(0, search("optik", null).getTotal());
+        assertEquals(Arrays.asList("3400.01.01.0002"), search("akustik", null).getSlotIds());
+        assertEquals(3, search(null, "slot.status:active").getTotal());
+
+        index.remove(slot);
+
+        assertEquals(0, search("akustik", null).getTotal());
+        assertEquals(3, index.size());
+
+        index.setOwner(MCRObjectID.getInstance("rc_slot_00000001"), "alice");
+        assertTrue(search(null, "createdby:alice").getSlotIds().contains("3400.01.01.0001"));
+    }
+
+    private Result search(final String search, final String filter) {
+        return index.search(search, filter, 0, 10, Collections.emptyList()).get();
+    }
+
+    private static Slot buildSlot(final String slotId, final int objNum, final String title, final String lecturer,
+        final Status status) {
+        final Slot slot = new Slot(slotId);
+        slot.setMCRObjectID(MCRObjectID.getInstance(MCRObjectID.formatID("rc_slot", objNum)));
+        slot.setTitle(title);
+        final Lecturer l = new Lecturer();
+        l.setName(lecturer);
+        slot.addLecturer(l);
+        slot.setStatus(status);
+        return slot;
+    }
+}
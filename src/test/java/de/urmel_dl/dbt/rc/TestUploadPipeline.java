@@ -0,0 +1,110 @@
+/*
+ * This file is part of the Digitale Bibliothek Thüringen repository software.
+ * Copyright (c) 2000 - 2016
+ * See <https://www.db-thueringen.de/> and <https://github.com/ThULB/dbt/>
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.urmel_dl.dbt.rc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+
+import de.urmel_dl.dbt.rc.servlets.UploadPipeline;
+
+/**
+ * The {@link UploadPipeline} test cases.
+ *
+ * @author Ren\u00E9 Adler (eagle)
+ *
+ */
+public class TestUploadPipeline extends MCRTestCase {
+
+    @Test
+    public void testAdmission() throws InterruptedException {
+        UploadPipeline pipeline = new UploadPipeline(1, 1, 10);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(2);
+            Runnable task = () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            };
+
+            assertTrue(pipeline.execute(task));
+            assertTrue(pipeline.execute(task));
+            assertFalse(pipeline.execute(task));
+            assertEquals(1, pipeline.getRejectedCount());
+            assertEquals(10, pipeline.getRetryAfter());
+
+            release.countDown();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+
+            long timeout = System.currentTimeMillis() + 10000;
+            while (pipeline.getCompletedCount() < 2 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, pipeline.getCompletedCount());
+            assertEquals(0, pipeline.getQueueDepth());
+            assertTrue(pipeline.execute(() -> {
+            }));
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    public void testSlotLock() throws InterruptedException {
+        UploadPipeline pipeline = new UploadPipeline(4, 10, 10);
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(4);
+
+            for (int i = 0; i < 4; i++) {
+                Lock lock = pipeline.getSlotLock("0001.2018.0001");
+                assertTrue(pipeline.execute(() -> {
+                    lock.lock();
+                    try {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        Thread.sleep(50);
+                        running.decrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        lock.unlock();
+                    }
+                    done.countDown();
+                }));
+            }
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(1, maxRunning.get());
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+}
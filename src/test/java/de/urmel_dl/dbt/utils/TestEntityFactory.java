@@ -18,6 +18,7 @@
  */
 package de.urmel_dl.dbt.utils;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -79,6 +80,23 @@ public class TestEntityFactory extends MCRTestCase {
         assertTrue((Boolean) props.get("eclipselink.json.include-root"));
     }
 
+    @Test
+    public void testCachedMarshaller() {
+        EntityFactory<TestEntity> ef = new EntityFactory<>(testEntity());
+
+        String json = ef.toJSON();
+        assertEquals(json, ef.toJSON());
+        assertFalse(json.contains("testEntity"));
+
+        MCRConfiguration2.set(
+            EntityFactory.CONFIG_PREFIX + TestEntity.class.getName() + "."
+                + EntityFactory.CONFIG_MARSHALLER
+                + "eclipselink.json.include-root",
+            "true");
+
+        assertTrue(ef.toJSON().contains("testEntity"));
+    }
+
     private TestEntity testEntity() {
         TestEntity tst = new TestEntity();
         tst.num = 0;
@@ -0,0 +1 @@
+001A a2000:05-07-11001B a1999:12-03-19t09:41:12.000001D a0009:21-12-11001U autf8001X a0002@ 0Aau003@ 01012341062004A 03-540-29462-9fGb. : EUR 49.95007G aDNB01012341062010@ ager011@ a2011019@ aXA-DE021A aGrundzÓge der Algebrahvon Hans MÓller ; Karl SchÒnbrunn028A 91234567897Tp1AgndXD0118123456dHansaMÓller028C 99876543217Tp1dKarlaSchÒnbrunn032@ a2., Óberarb. Aufl.033A pBerlin ; HeidelbergnSpringer034D aXII, 318 S.034I a24 cm036E aSpringer-Lehrbuch037A aLiteraturverz. S. 309 - 312044K 91043292117Ts1AgndXDaAlgebra044K/01 91042237907Ts1aLehrbuch045E a510dd045Q/01 a31.20jAlgebra: Allgemeines047A SFEaIlmenau101@ a31cPICA201B/01 007-10-12t14:32:07.000203@/01 0123456789209A/01 fMAGaSK 200 MÓlx00209C/01 a06001100X209G/01 a01.01.Ñtudex00209R/01 uhttps://www.db-thueringen.de/receive/dbt_mods_00000001237A/01 aCafâe &amp; Bibliothek
\ No newline at end of file